@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Access to the corpus of real-world release files bundled in the benchmarks resources, and helpers
+ * to lay them out as fixture root file systems.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class Corpus {
+
+  private Corpus() {
+  }
+
+  static String load(final String name) throws IOException {
+    try (InputStream in = Corpus.class.getResourceAsStream("/corpus/" + name)) {
+      if (in == null) {
+        throw new IOException("No corpus file " + name);
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = in.read(buffer)) >= 0) {
+        out.write(buffer, 0, read);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Creates a root file system holding one release file, and a number of unrelated files in its /etc directory.
+   *
+   * @param scenario   the detector expected to answer, one of the built-in detector ids or "none"
+   * @param etcEntries the number of unrelated files in /etc
+   */
+  static Path createRoot(final String scenario, final int etcEntries) throws IOException {
+    Path root = Files.createTempDirectory("os-platform-finder-bench");
+    Path etc = Files.createDirectories(root.resolve("etc"));
+    for (int i = 0; i < etcEntries; i++) {
+      Files.createFile(etc.resolve("unrelated" + i + ".conf"));
+    }
+    if ("lsb-release".equals(scenario)) {
+      write(etc.resolve("lsb-release"), load("lsb-release.ubuntu-22.04"));
+    } else if ("os-release".equals(scenario)) {
+      write(etc.resolve("os-release"), load("os-release.fedora-40"));
+    } else if ("system-release".equals(scenario)) {
+      write(etc.resolve("system-release"), load("release.system-release"));
+    } else if ("release-glob".equals(scenario)) {
+      write(etc.resolve("redhat-release"), load("release.redhat-release"));
+    } else if ("version-glob".equals(scenario)) {
+      write(etc.resolve("slackware_version"), load("release.slackware-version"));
+    } else if ("issue".equals(scenario)) {
+      write(etc.resolve("issue"), load("release.issue"));
+    } else if ("proc-version".equals(scenario)) {
+      write(Files.createDirectories(root.resolve("proc")).resolve("version"), load("release.proc-version"));
+    } else if (!"none".equals(scenario)) {
+      throw new IllegalArgumentException("Unknown scenario " + scenario);
+    }
+    return root;
+  }
+
+  static void delete(final Path root) throws IOException {
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+        Files.delete(file);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+        Files.delete(dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private static void write(final Path file, final String content) throws IOException {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full detection pipeline against fixture root file systems, one per detector that can answer,
+ * with a small and a large /etc directory.
+ * <br>
+ * Run it with the GC profiler (-prof gc, or through {@link BenchmarkRunner}) to get the allocation per detection.
+ *
+ * @author Aurelien Broszniowski
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetectionChainBenchmark {
+
+  @Param({ "lsb-release", "os-release", "system-release", "release-glob", "version-glob", "issue", "proc-version", "none" })
+  public String scenario;
+
+  @Param({ "20", "2000" })
+  public int etcEntries;
+
+  private Path root;
+  private ExecutorService executor;
+
+  @Setup
+  public void setUp() throws IOException {
+    root = Corpus.createRoot(scenario, etcEntries);
+    executor = Executors.newFixedThreadPool(BuiltinDetector.values().length);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    executor.shutdownNow();
+    Corpus.delete(root);
+  }
+
+  @Benchmark
+  public OS.OsInfo sequential() {
+    return OS.detect(root);
+  }
+
+  @Benchmark
+  public String concurrent() {
+    return DetectorPipeline.defaultPipeline().detect(new ProbeContext(root, "Linux", "6.8", "amd64", false), executor);
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of each release file parser over the corpus of real-world files.
+ * <br>
+ * The *BufferedReader benchmarks go through the line based entry points kept on {@link OS}, the others
+ * parse the whole content in place as the detectors do.
+ *
+ * @author Aurelien Broszniowski
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class OsReleaseCorpus {
+    @Param({ "os-release.ubuntu-24.04", "os-release.debian-12", "os-release.fedora-40", "os-release.rhel-9",
+        "os-release.alpine-3.20", "os-release.archlinux", "os-release.amzn-2023" })
+    public String file;
+    String content;
+
+    @Setup
+    public void setUp() throws IOException {
+      content = Corpus.load(file);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class LsbReleaseCorpus {
+    @Param({ "lsb-release.ubuntu-22.04", "lsb-release.linuxmint-21" })
+    public String file;
+    String content;
+
+    @Setup
+    public void setUp() throws IOException {
+      content = Corpus.load(file);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class GenericReleaseCorpus {
+    @Param({ "release.redhat-release", "release.centos-release", "release.SuSE-release", "release.system-release",
+        "release.slackware-version", "release.issue", "release.proc-version", "os-release.fedora-40" })
+    public String file;
+    String content;
+
+    @Setup
+    public void setUp() throws IOException {
+      content = Corpus.load(file);
+    }
+  }
+
+  @Benchmark
+  public String osRelease(final OsReleaseCorpus corpus) {
+    return ReleaseFiles.parseOsReleasePlatformName(corpus.content);
+  }
+
+  @Benchmark
+  public String lsbRelease(final LsbReleaseCorpus corpus) {
+    return ReleaseFiles.parseLsbPlatformName(corpus.content);
+  }
+
+  @Benchmark
+  public String genericRelease(final GenericReleaseCorpus corpus) {
+    return ReleaseFiles.parsePlatformName(corpus.content);
+  }
+
+  @Benchmark
+  public OS.OsInfo lsbReleaseBufferedReader(final LsbReleaseCorpus corpus) throws IOException {
+    return OS.OS.readPlatformNameFromLsb("Linux", "6.8", "amd64", new BufferedReader(new StringReader(corpus.content)));
+  }
+
+  @Benchmark
+  public OS.OsInfo genericReleaseBufferedReader(final GenericReleaseCorpus corpus) throws IOException {
+    return OS.OS.readPlatformName("Linux", "6.8", "amd64", new BufferedReader(new StringReader(corpus.content)));
+  }
+}
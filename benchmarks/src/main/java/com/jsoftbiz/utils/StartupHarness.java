@@ -0,0 +1,213 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures the cold start cost of the library : the time from the launch of a fresh JVM running
+ * {@link com.jsoftbiz.App} to the line printing the result of its first getPlatformName() call.
+ * <br>
+ * Each mode (lazy, concurrent, cached) is run against fixture root file systems, with and without an AppCDS
+ * archive, and reported as time-to-first-call percentiles. A separate run with class loading logs gives the number
+ * of classes loaded, in total and from the library.
+ * <br>
+ * Usage : java -cp benchmarks.jar com.jsoftbiz.utils.StartupHarness [--runs N] [--java path/to/java] [--classpath cp]
+ * [--scenarios os-release,release-glob,...]
+ *
+ * @author Aurelien Broszniowski
+ */
+public class StartupHarness {
+
+  private static final String PLATFORM_LINE = " - Platform name = ";
+  private static final String[] MODES = { "lazy", "concurrent", "cached" };
+
+  private final String java;
+  private final String classpath;
+  private final int runs;
+  private final Path workDir;
+
+  StartupHarness(final String java, final String classpath, final int runs, final Path workDir) {
+    this.java = java;
+    this.classpath = classpath;
+    this.runs = runs;
+    this.workDir = workDir;
+  }
+
+  public static void main(String[] args) throws Exception {
+    String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    String classpath = new File(OS.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    int runs = 20;
+    List<String> scenarios = Arrays.asList("os-release", "release-glob", "proc-version");
+    for (int i = 0; i < args.length; i++) {
+      if ("--runs".equals(args[i])) {
+        runs = Integer.parseInt(args[++i]);
+      } else if ("--java".equals(args[i])) {
+        java = args[++i];
+      } else if ("--classpath".equals(args[i])) {
+        classpath = args[++i];
+      } else if ("--scenarios".equals(args[i])) {
+        scenarios = Arrays.asList(args[++i].split(","));
+      } else {
+        System.err.println("Unknown option " + args[i]);
+        System.exit(1);
+      }
+    }
+
+    Path workDir = Files.createTempDirectory("os-platform-finder-startup");
+    try {
+      StartupHarness harness = new StartupHarness(java, classpath, runs, workDir);
+      boolean appCds = harness.supportsAppCds();
+      if (!appCds) {
+        System.out.println("AppCDS dynamic archives need Java 13+, running without them");
+      }
+      System.out.println(String.format(Locale.ROOT, "%-14s %-11s %-6s %9s %9s %9s %9s %9s %8s %8s",
+          "scenario", "mode", "cds", "min(ms)", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)", "classes", "library"));
+      for (String scenario : scenarios) {
+        Path root = Corpus.createRoot(scenario, 2000);
+        try {
+          for (String mode : MODES) {
+            harness.report(scenario, mode, root, null);
+            if (appCds) {
+              harness.report(scenario, mode, root, harness.createArchive(scenario, mode, root));
+            }
+          }
+        } finally {
+          Corpus.delete(root);
+        }
+      }
+    } finally {
+      Corpus.delete(workDir);
+    }
+  }
+
+  private void report(final String scenario, final String mode, final Path root, final Path archive) throws IOException, InterruptedException {
+    List<String> extraOptions = new ArrayList<String>();
+    if (archive != null) {
+      extraOptions.add("-XX:SharedArchiveFile=" + archive);
+    }
+    if ("cached".equals(mode)) {
+      // prime the cache, so that the measured runs revalidate it
+      launch(mode, root, extraOptions, null);
+    }
+
+    long[] timings = new long[runs];
+    for (int i = 0; i < runs; i++) {
+      timings[i] = launch(mode, root, extraOptions, null);
+    }
+    Arrays.sort(timings);
+
+    List<String> loadedClasses = new ArrayList<String>();
+    List<String> logOptions = new ArrayList<String>(extraOptions);
+    logOptions.add("-verbose:class");
+    launch(mode, root, logOptions, loadedClasses);
+    int libraryClasses = 0;
+    for (String line : loadedClasses) {
+      if (line.contains("com.jsoftbiz.")) {
+        libraryClasses++;
+      }
+    }
+
+    System.out.println(String.format(Locale.ROOT, "%-14s %-11s %-6s %9.2f %9.2f %9.2f %9.2f %9.2f %8d %8d",
+        scenario, mode, archive != null ? "yes" : "no", millis(timings[0]), millis(percentile(timings, 50)),
+        millis(percentile(timings, 90)), millis(percentile(timings, 99)), millis(timings[timings.length - 1]),
+        loadedClasses.size(), libraryClasses));
+  }
+
+  private Path createArchive(final String scenario, final String mode, final Path root) throws IOException, InterruptedException {
+    Path archive = workDir.resolve(scenario + "-" + mode + ".jsa");
+    launch(mode, root, Collections.singletonList("-XX:ArchiveClassesAtExit=" + archive), null);
+    return archive;
+  }
+
+  private boolean supportsAppCds() throws IOException, InterruptedException {
+    Process process = new ProcessBuilder(java, "-XX:ArchiveClassesAtExit=" + workDir.resolve("probe.jsa"), "-version")
+        .redirectErrorStream(true).start();
+    drain(process, null);
+    return process.waitFor() == 0;
+  }
+
+  /**
+   * @param loadedClasses if not null, receives the class loading log lines
+   * @return the nanoseconds from the launch to the platform name line
+   */
+  private long launch(final String mode, final Path root, final List<String> options, final List<String> loadedClasses) throws IOException, InterruptedException {
+    List<String> command = new ArrayList<String>();
+    command.add(java);
+    command.addAll(options);
+    command.add("-D" + OS.ROOT_PROPERTY + "=" + root);
+    if ("cached".equals(mode)) {
+      command.add("-D" + DetectionCache.CACHE_DIR_PROPERTY + "=" + workDir.resolve("cache-" + root.getFileName()));
+    }
+    command.add("-cp");
+    command.add(classpath);
+    command.add("com.jsoftbiz.App");
+    if ("concurrent".equals(mode)) {
+      command.add("--concurrent");
+    }
+
+    long start = System.nanoTime();
+    Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    long elapsed = drain(process, loadedClasses) - start;
+    int exitCode = process.waitFor();
+    if (exitCode != 0) {
+      throw new IllegalStateException("Command " + command + " exited with " + exitCode);
+    }
+    return elapsed;
+  }
+
+  /**
+   * @return the System.nanoTime() when the platform name line was read
+   */
+  private static long drain(final Process process, final List<String> loadedClasses) throws IOException {
+    long platformLineTime = 0;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (platformLineTime == 0 && line.startsWith(PLATFORM_LINE)) {
+          platformLineTime = System.nanoTime();
+        }
+        // JDK 8 logs "[Loaded ...", JDK 9+ logs "[...][info][class,load] ..."
+        if (loadedClasses != null && (line.startsWith("[Loaded ") || line.contains("[class,load]"))) {
+          loadedClasses.add(line);
+        }
+      }
+    }
+    return platformLineTime != 0 ? platformLineTime : System.nanoTime();
+  }
+
+  private static long percentile(final long[] sorted, final int percentile) {
+    int index = (int)Math.ceil(percentile / 100.0 * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+
+  private static double millis(final long nanos) {
+    return nanos / 1000000.0;
+  }
+}
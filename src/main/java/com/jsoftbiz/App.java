@@ -17,11 +17,57 @@
 package com.jsoftbiz;
 
 import com.jsoftbiz.utils.OS;
+import com.jsoftbiz.utils.PlatformChangeListener;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
 
 public class App {
 
-  public static void main(String[] args) {
+  private static final String USAGE = "Usage: java -jar os-platform-finder.jar [--concurrent] [--format json|text]\n"
+                                      + "       java -jar os-platform-finder.jar --serve [--port PORT] [--socket PATH]";
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    boolean concurrent = false;
+    boolean serve = false;
+    String format = null;
+    int port = -1;
+    Path socket = null;
+    try {
+      for (int i = 0; i < args.length; i++) {
+        if ("--concurrent".equals(args[i])) {
+          concurrent = true;
+        } else if ("--format".equals(args[i]) && i + 1 < args.length && ("json".equals(args[i + 1]) || "text".equals(args[i + 1]))) {
+          format = args[++i];
+        } else if ("--serve".equals(args[i])) {
+          serve = true;
+        } else if ("--port".equals(args[i]) && i + 1 < args.length) {
+          port = Integer.parseInt(args[++i]);
+        } else if ("--socket".equals(args[i]) && i + 1 < args.length) {
+          socket = Paths.get(args[++i]);
+        } else {
+          usage();
+        }
+      }
+    } catch (NumberFormatException e) {
+      usage();
+    }
 
+    if (serve) {
+      serve(concurrent, port, socket);
+    } else if (format != null) {
+      PlatformFacts facts = PlatformFacts.collect(OS.OS, concurrent);
+      System.out.write("json".equals(format) ? facts.json() : facts.text());
+      System.out.flush();
+    } else {
+      print(concurrent);
+    }
+  }
+
+  private static void print(final boolean concurrent) {
     System.out.println("name " + System.getProperty("os.name"));
     System.out.println("version " + System.getProperty("os.version"));
     System.out.println("arch " + System.getProperty("os.arch"));
@@ -29,9 +75,56 @@ public class App {
 
     OS myOS = OS.OS;
     System.out.println("Your OS is :");
-    System.out.println(" - Platform name = " + myOS.getPlatformName());
+    System.out.println(" - Platform name = " + (concurrent ? myOS.getPlatformName(null) : myOS.getPlatformName()));
     System.out.println(" - OS name = " + myOS.getName());
     System.out.println(" - OS version = " + myOS.getVersion());
     System.out.println(" - OS architecture = " + myOS.getArch());
   }
+
+  /**
+   * Detects once, then serves the facts until the JVM is stopped, refreshing them when the platform changes.
+   */
+  private static void serve(final boolean concurrent, final int port, final Path socket) throws IOException, InterruptedException {
+    final OS myOS = OS.OS;
+    final PlatformServer server = new PlatformServer(PlatformFacts.collect(myOS, concurrent));
+    myOS.addPlatformChangeListener(new PlatformChangeListener() {
+      @Override
+      public void platformChanged(final OS.OsInfo previous, final OS.OsInfo current) {
+        server.update(PlatformFacts.collect(myOS, false));
+      }
+    });
+    try {
+      myOS.watch();
+    } catch (IOException e) {
+      System.err.println("The platform changes can not be watched, serving the facts as detected : " + e.getMessage());
+    }
+
+    if (port >= 0 || socket == null) {
+      InetSocketAddress address = server.startHttp(Math.max(port, 0));
+      System.out.println("Serving on http://" + address.getHostString() + ":" + address.getPort() + "/");
+    }
+    if (socket != null) {
+      server.startUnix(socket);
+      System.out.println("Serving on unix:" + socket);
+    }
+
+    final CountDownLatch stopped = new CountDownLatch(1);
+    Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          server.close();
+        } catch (IOException e) {
+          // exiting anyway
+        }
+        stopped.countDown();
+      }
+    }));
+    stopped.await();
+  }
+
+  private static void usage() {
+    System.err.println(USAGE);
+    System.exit(1);
+  }
 }
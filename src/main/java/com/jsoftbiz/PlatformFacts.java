@@ -0,0 +1,155 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz;
+
+import com.jsoftbiz.utils.LibcInfo;
+import com.jsoftbiz.utils.OS;
+import com.jsoftbiz.utils.OsRelease;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The platform facts printed and served by {@link App}, with their JSON and key=value renderings computed once,
+ * so that answering a query is only writing bytes.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class PlatformFacts {
+
+  private final Map<String, String> facts;
+  private final byte[] json;
+  private final byte[] text;
+
+  PlatformFacts(final Map<String, String> facts) {
+    this.facts = Collections.unmodifiableMap(new LinkedHashMap<String, String>(facts));
+    this.json = toJson(facts).getBytes(StandardCharsets.UTF_8);
+    this.text = toText(facts).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param concurrent whether to probe the platform sources concurrently
+   */
+  static PlatformFacts collect(final OS os, final boolean concurrent) {
+    Map<String, String> facts = new LinkedHashMap<String, String>();
+    facts.put("platform", concurrent ? os.getPlatformName(null) : os.getPlatformName());
+    facts.put("os.name", os.getName());
+    facts.put("os.version", os.getVersion());
+    facts.put("os.arch", os.getArch());
+    facts.put("os.family", os.getFamily().name().toLowerCase(Locale.ROOT));
+    facts.put("cpu.arch", os.getCpuArch().name().toLowerCase(Locale.ROOT));
+    if (os.isUnix()) {
+      LibcInfo libc = os.getLibcInfo();
+      if (libc.getFlavor() != null) {
+        facts.put("libc", libc.getFlavor().name().toLowerCase(Locale.ROOT));
+      }
+      put(facts, "libc.version", libc.getVersion());
+    }
+    OsRelease osRelease = os.getOsRelease();
+    if (osRelease != null) {
+      put(facts, "release.id", osRelease.getId());
+      put(facts, "release.version_id", osRelease.getVersionId());
+    }
+    return new PlatformFacts(facts);
+  }
+
+  Map<String, String> getFacts() {
+    return facts;
+  }
+
+  /**
+   * @return the value of the fact, or null if unknown
+   */
+  String get(final String key) {
+    return facts.get(key);
+  }
+
+  /**
+   * @return the facts as a JSON object, UTF-8 encoded and ending with a new line, not to be modified
+   */
+  byte[] json() {
+    return json;
+  }
+
+  /**
+   * @return the facts as key=value lines, UTF-8 encoded, not to be modified
+   */
+  byte[] text() {
+    return text;
+  }
+
+  static String toJson(final Map<String, String> facts) {
+    StringBuilder sb = new StringBuilder("{");
+    for (Map.Entry<String, String> fact : facts.entrySet()) {
+      if (sb.length() > 1) {
+        sb.append(',');
+      }
+      appendJsonString(sb, fact.getKey());
+      sb.append(':');
+      appendJsonString(sb, fact.getValue());
+    }
+    return sb.append("}\n").toString();
+  }
+
+  static String toText(final Map<String, String> facts) {
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String, String> fact : facts.entrySet()) {
+      sb.append(fact.getKey()).append('=').append(fact.getValue().replace('\n', ' ')).append('\n');
+    }
+    return sb.toString();
+  }
+
+  private static void appendJsonString(final StringBuilder sb, final String value) {
+    sb.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int)c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    sb.append('"');
+  }
+
+  private static void put(final Map<String, String> facts, final String key, final String value) {
+    if (value != null) {
+      facts.put(key, value);
+    }
+  }
+}
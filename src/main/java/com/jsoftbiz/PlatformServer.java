@@ -0,0 +1,352 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the {@link PlatformFacts} on the loopback interface over HTTP, and over a Unix domain socket on Java 16+.
+ * <br>
+ * HTTP : GET / (or /facts) answers the facts in JSON, or as key=value lines with ?format=text, and GET /facts/KEY
+ * answers the value of one fact. Unix domain socket : the client sends a line, "json", "text" or a fact key, and
+ * reads the answer until the server closes the connection.
+ * <br>
+ * HTTP requests are handled by a small thread pool. The Unix domain socket clients are all served by one selector
+ * thread, which never blocks on a client : a client that does not send its request within {@link #UNIX_TIMEOUT_MILLIS},
+ * or that does not read its answer, is disconnected, and clients beyond {@link #MAX_UNIX_CLIENTS} are refused, so that
+ * idle clients can neither stall the other ones nor the HTTP server.
+ * <br>
+ * The JSON and key=value answers are rendered when the facts change, not per query.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class PlatformServer implements Closeable {
+
+  static final long UNIX_TIMEOUT_MILLIS = 5000;
+  static final int MAX_UNIX_CLIENTS = 64;
+
+  private static final int MAX_REQUEST_LENGTH = 256;
+  private static final int THREADS = 4;
+  private static final String FACTS_PATH = "/facts/";
+
+  private final ExecutorService executor;
+  private final long unixTimeoutMillis;
+  private volatile PlatformFacts facts;
+  private HttpServer http;
+  private ServerSocketChannel unix;
+  private Selector selector;
+  private Path socket;
+
+  PlatformServer(final PlatformFacts facts) {
+    this(facts, UNIX_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * @param unixTimeoutMillis the time given to a Unix domain socket client to send its request and read the answer
+   */
+  PlatformServer(final PlatformFacts facts, final long unixTimeoutMillis) {
+    this.facts = facts;
+    this.unixTimeoutMillis = unixTimeoutMillis;
+    this.executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override
+      public Thread newThread(final Runnable runnable) {
+        Thread thread = new Thread(runnable, "os-platform-finder-server-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * @param port the loopback port, 0 for any free port
+   * @return the address the HTTP server listens on
+   */
+  InetSocketAddress startHttp(final int port) throws IOException {
+    http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    http.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        handleHttp(exchange);
+      }
+    });
+    http.setExecutor(executor);
+    http.start();
+    return http.getAddress();
+  }
+
+  /**
+   * Binds the Unix domain socket, replacing a stale socket file left by a previous run.
+   *
+   * @throws IOException if the socket can not be bound, or the JVM is older than Java 16
+   */
+  void startUnix(final Path socket) throws IOException {
+    Files.deleteIfExists(socket);
+    unix = openUnixChannel();
+    unix.bind(unixAddress(socket));
+    this.socket = socket;
+    unix.configureBlocking(false);
+    selector = unix.provider().openSelector();
+    unix.register(selector, SelectionKey.OP_ACCEPT);
+    Thread selectorThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        serveUnix();
+      }
+    }, "os-platform-finder-server-unix");
+    selectorThread.setDaemon(true);
+    selectorThread.start();
+  }
+
+  /**
+   * Replaces the facts served, e.g. when the platform changed.
+   */
+  void update(final PlatformFacts facts) {
+    this.facts = facts;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (http != null) {
+      http.stop(0);
+    }
+    if (unix != null) {
+      unix.close();
+      selector.wakeup();
+      Files.deleteIfExists(socket);
+    }
+    executor.shutdownNow();
+  }
+
+  private void handleHttp(final HttpExchange exchange) throws IOException {
+    try {
+      String method = exchange.getRequestMethod();
+      if (!"GET".equals(method) && !"HEAD".equals(method)) {
+        send(exchange, 405, "text/plain", "Method not allowed\n".getBytes(StandardCharsets.UTF_8));
+        return;
+      }
+      PlatformFacts current = facts;
+      String path = exchange.getRequestURI().getPath();
+      if (path.equals("/") || path.equals("/facts") || path.equals(FACTS_PATH)) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null && query.contains("format=text")) {
+          send(exchange, 200, "text/plain", current.text());
+        } else {
+          send(exchange, 200, "application/json", current.json());
+        }
+      } else if (path.startsWith(FACTS_PATH) && current.get(path.substring(FACTS_PATH.length())) != null) {
+        send(exchange, 200, "text/plain", (current.get(path.substring(FACTS_PATH.length())) + "\n").getBytes(StandardCharsets.UTF_8));
+      } else {
+        send(exchange, 404, "text/plain", "Unknown fact\n".getBytes(StandardCharsets.UTF_8));
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private static void send(final HttpExchange exchange, final int status, final String contentType, final byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+    boolean head = "HEAD".equals(exchange.getRequestMethod());
+    exchange.sendResponseHeaders(status, head ? -1 : body.length);
+    if (!head) {
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+
+  private void serveUnix() {
+    try {
+      while (unix.isOpen()) {
+        selector.select(unixTimeoutMillis);
+        Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+        while (selected.hasNext()) {
+          SelectionKey key = selected.next();
+          selected.remove();
+          try {
+            if (!key.isValid()) {
+              continue;
+            }
+            if (key.isAcceptable()) {
+              acceptUnix();
+            } else if (key.isReadable()) {
+              readUnix(key);
+            } else if (key.isWritable()) {
+              writeUnix(key);
+            }
+          } catch (IOException e) {
+            // the client went away
+            closeQuietly(key);
+          }
+        }
+        expireUnix();
+      }
+    } catch (IOException | ClosedSelectorException e) {
+      // closed
+    } finally {
+      if (selector.isOpen()) {
+        for (SelectionKey key : selector.keys()) {
+          closeQuietly(key);
+        }
+        try {
+          selector.close();
+        } catch (IOException e) {
+          // nothing more to release
+        }
+      }
+    }
+  }
+
+  private void acceptUnix() throws IOException {
+    SocketChannel client;
+    while ((client = unix.accept()) != null) {
+      // the server socket is one of the keys
+      if (selector.keys().size() > MAX_UNIX_CLIENTS) {
+        client.close();
+        continue;
+      }
+      client.configureBlocking(false);
+      client.register(selector, SelectionKey.OP_READ, new UnixClient(System.nanoTime() + unixTimeoutMillis * 1000000L));
+    }
+  }
+
+  private void readUnix(final SelectionKey key) throws IOException {
+    UnixClient client = (UnixClient)key.attachment();
+    ByteBuffer request = client.request;
+    int from = request.position();
+    boolean endOfStream = ((SocketChannel)key.channel()).read(request) < 0;
+    int end = -1;
+    for (int i = from; i < request.position(); i++) {
+      if (request.get(i) == '\n') {
+        end = i;
+        break;
+      }
+    }
+    if (end < 0 && !endOfStream && request.hasRemaining()) {
+      return;
+    }
+    String query = new String(request.array(), 0, end >= 0 ? end : request.position(), StandardCharsets.UTF_8).trim();
+    client.response = ByteBuffer.wrap(answer(facts, query));
+    key.interestOps(SelectionKey.OP_WRITE);
+    writeUnix(key);
+  }
+
+  private static void writeUnix(final SelectionKey key) throws IOException {
+    ByteBuffer response = ((UnixClient)key.attachment()).response;
+    ((SocketChannel)key.channel()).write(response);
+    if (!response.hasRemaining()) {
+      closeQuietly(key);
+    }
+  }
+
+  /**
+   * Disconnects the clients that did not send their request, or read their answer, in time.
+   */
+  private void expireUnix() {
+    long now = System.nanoTime();
+    for (SelectionKey key : selector.keys()) {
+      Object client = key.attachment();
+      if (client != null && now - ((UnixClient)client).deadline > 0) {
+        closeQuietly(key);
+      }
+    }
+  }
+
+  private static void closeQuietly(final SelectionKey key) {
+    key.cancel();
+    try {
+      key.channel().close();
+    } catch (IOException e) {
+      // nothing more to release
+    }
+  }
+
+  private static final class UnixClient {
+    private final ByteBuffer request = ByteBuffer.allocate(MAX_REQUEST_LENGTH);
+    private final long deadline;
+    private ByteBuffer response;
+
+    private UnixClient(final long deadline) {
+      this.deadline = deadline;
+    }
+  }
+
+  /**
+   * @param query "json", "text", empty for json, or a fact key
+   */
+  static byte[] answer(final PlatformFacts facts, final String query) {
+    if (query.isEmpty() || query.equals("json")) {
+      return facts.json();
+    }
+    if (query.equals("text")) {
+      return facts.text();
+    }
+    String value = facts.get(query);
+    return ((value != null ? value : "") + "\n").getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * ServerSocketChannel.open(StandardProtocolFamily.UNIX), through reflection to still compile for Java 8.
+   */
+  private static ServerSocketChannel openUnixChannel() throws IOException {
+    try {
+      ProtocolFamily family = StandardProtocolFamily.valueOf("UNIX");
+      return (ServerSocketChannel)ServerSocketChannel.class.getMethod("open", ProtocolFamily.class).invoke(null, family);
+    } catch (IllegalArgumentException | NoSuchMethodException | IllegalAccessException e) {
+      throw new IOException("Unix domain sockets need Java 16+", e);
+    } catch (InvocationTargetException e) {
+      throw e.getCause() instanceof IOException ? (IOException)e.getCause() : new IOException(e.getCause());
+    }
+  }
+
+  private static SocketAddress unixAddress(final Path socket) throws IOException {
+    try {
+      return (SocketAddress)Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class).invoke(null, socket);
+    } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+      throw new IOException("Unix domain sockets need Java 16+", e);
+    } catch (InvocationTargetException e) {
+      throw new IOException(e.getCause());
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The detectors shipped with the library, see {@link PlatformDetector} for their ids and priorities.
+ * <br>
+ * The Mac ones only apply to the running host when the OS name says so, as the OS name says nothing of another root
+ * file system, and the Unix ones only apply to Unix platforms.
+ *
+ * @author Aurelien Broszniowski
+ */
+enum BuiltinDetector implements PlatformDetector {
+
+  // Mac requires a bit of work, but at least it's consistent
+  MAC("mac", 100, false) {
+    @Override
+    String probe(final ProbeContext context) {
+      String name = context.getName();
+      if (!context.isHost() || name == null || !name.startsWith("Mac")) {
+        return null;
+      }
+      return OS.initMacOsInfo(name, context.getVersion(), context.getArch()).getPlatformName();
+    }
+  },
+  DARWIN("darwin", 110, false) {
+    @Override
+    String probe(final ProbeContext context) {
+      String name = context.getName();
+      if (!context.isHost() || name == null || !name.startsWith("Darwin")) {
+        return null;
+      }
+      return OS.initDarwinOsInfo(name, context.getVersion(), context.getArch()).getPlatformName();
+    }
+  },
+  // The most likely is to have a LSB compliant distro
+  LSB_RELEASE("lsb-release", 200, true) {
+    @Override
+    String probe(final ProbeContext context) throws IOException {
+      return ReleaseFiles.parseLsbPlatformName(context.read(context.etcFile("lsb-release")));
+    }
+  },
+  // Try new /etc/os-release file from systemd
+  OS_RELEASE("os-release", 300, true) {
+    @Override
+    String probe(final ProbeContext context) throws IOException {
+      return ReleaseFiles.parseOsReleasePlatformName(context.read(context.etcFile("os-release")));
+    }
+  },
+  // Generic Linux platform name
+  SYSTEM_RELEASE("system-release", 400, true) {
+    @Override
+    String probe(final ProbeContext context) throws IOException {
+      return ReleaseFiles.parsePlatformName(context.read(context.etcFile("system-release")));
+    }
+  },
+  // if generic 'system-release' file is not present, then try to find another one
+  RELEASE_GLOB("release-glob", 500, true) {
+    @Override
+    String probe(final ProbeContext context) throws IOException {
+      return probeFirst(context, EtcIndex.RELEASE_SUFFIX);
+    }
+  },
+  // if generic 'system-release' file is not present, then try to find '_version'
+  VERSION_GLOB("version-glob", 600, true) {
+    @Override
+    String probe(final ProbeContext context) throws IOException {
+      return probeFirst(context, EtcIndex.VERSION_SUFFIX);
+    }
+  },
+  // try with /etc/issue file
+  ISSUE("issue", 700, true) {
+    @Override
+    String probe(final ProbeContext context) throws IOException {
+      if (!context.etcIndex().contains("issue")) {
+        return null;
+      }
+      return ReleaseFiles.parsePlatformName(context.read(context.etcFile("issue")));
+    }
+  },
+  // if nothing found yet, looks for the version info
+  PROC_VERSION("proc-version", 800, true) {
+    @Override
+    String probe(final ProbeContext context) throws IOException {
+      return ReleaseFiles.parsePlatformName(context.read(context.procVersion()));
+    }
+  };
+
+  private final String id;
+  private final int priority;
+  private final boolean unix;
+
+  BuiltinDetector(final String id, final int priority, final boolean unix) {
+    this.id = id;
+    this.priority = priority;
+    this.unix = unix;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getPriority() {
+    return priority;
+  }
+
+  @Override
+  public String detect(final DetectionContext context) throws IOException {
+    ProbeContext probeContext = (ProbeContext)context;
+    if (unix && !probeContext.isUnix()) {
+      return null;
+    }
+    return probe(probeContext);
+  }
+
+  abstract String probe(ProbeContext context) throws IOException;
+
+  private static String probeFirst(final ProbeContext context, final String suffix) throws IOException {
+    Path file = context.etcIndex().firstEndingWith(suffix);
+    if (file == null) {
+      return null;
+    }
+    return ReleaseFiles.parsePlatformName(context.read(file));
+  }
+}
@@ -0,0 +1,449 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What the process is actually allowed to use when it runs in a container or under a cgroup : the effective
+ * number of CPUs and the memory limit, from the cgroup v1 or v2 controller files, and the container runtime.
+ * <br>
+ * The cgroups of the process are found in /proc/self/cgroup, and where their hierarchies are mounted in
+ * /proc/self/mountinfo. The limits are then read from cpu.max, memory.max and cpuset.cpus.effective for cgroup v2,
+ * or from cpu.cfs_quota_us / cpu.cfs_period_us, memory.limit_in_bytes and cpuset.effective_cpus for cgroup v1.
+ * A limit set on a parent cgroup applies too, so the lowest one on the way up to the mount point wins.
+ * <br>
+ * The runtime comes from the marker files (/.dockerenv, /run/.containerenv), the cgroup paths, the overlay
+ * of the root mount, and the "container" environment variable of process 1.
+ *
+ * @author Aurelien Broszniowski
+ */
+public final class ContainerInfo {
+
+  /**
+   * Value of the limits when there is none.
+   */
+  public static final long UNLIMITED = -1;
+
+  // cgroup v1 reports no memory limit as Long.MAX_VALUE rounded down to the page size
+  private static final long UNLIMITED_MEMORY_THRESHOLD = 1L << 62;
+  private static final int MOUNTINFO_MAX_SIZE = 4 * 1024 * 1024;
+  private static final String[][] RUNTIME_MARKERS = {
+      { "libpod", "podman" },
+      { "crio", "cri-o" },
+      { "docker", "docker" },
+      { "containerd", "containerd" },
+      { "lxc", "lxc" }
+  };
+
+  private final String runtime;
+  private final boolean kubernetes;
+  private final int cgroupVersion;
+  private final double cpuQuota;
+  private final int cpuSetCount;
+  private final int effectiveCpuCount;
+  private final long memoryLimit;
+
+  ContainerInfo(final String runtime, final boolean kubernetes, final int cgroupVersion, final double cpuQuota,
+                final int cpuSetCount, final int effectiveCpuCount, final long memoryLimit) {
+    this.runtime = runtime;
+    this.kubernetes = kubernetes;
+    this.cgroupVersion = cgroupVersion;
+    this.cpuQuota = cpuQuota;
+    this.cpuSetCount = cpuSetCount;
+    this.effectiveCpuCount = effectiveCpuCount;
+    this.memoryLimit = memoryLimit;
+  }
+
+  /**
+   * Reads the container information of the process, from the /proc and /sys of the root file system.
+   * Missing or unreadable files only mean that the information is unknown.
+   *
+   * @param root "/" for the running host, or the root of a copy of its /proc and /sys
+   */
+  public static ContainerInfo read(final Path root) {
+    ReleaseFileReader reader = new ReleaseFileReader();
+    Path procSelf = root.resolve("proc").resolve("self");
+    // text searched for the runtime markers
+    StringBuilder markers = new StringBuilder();
+
+    Map<String, String> cgroupPaths = new HashMap<String, String>();
+    CharSequence cgroup = SysFiles.read(reader, procSelf.resolve("cgroup"));
+    if (cgroup != null) {
+      markers.append(cgroup);
+      parseCgroups(cgroup, cgroupPaths);
+    }
+
+    Map<String, CgroupMount> mounts = new HashMap<String, CgroupMount>();
+    CharSequence mountinfo = SysFiles.read(new ReleaseFileReader(MOUNTINFO_MAX_SIZE), procSelf.resolve("mountinfo"));
+    if (mountinfo != null) {
+      parseMounts(mountinfo, mounts, markers);
+    }
+
+    CgroupDir cpuV1 = CgroupDir.of(root, mounts.get("cpu"), cgroupPaths.get("cpu"));
+    CgroupDir memoryV1 = CgroupDir.of(root, mounts.get("memory"), cgroupPaths.get("memory"));
+    CgroupDir cpusetV1 = CgroupDir.of(root, mounts.get("cpuset"), cgroupPaths.get("cpuset"));
+    CgroupDir v2 = CgroupDir.of(root, mounts.get(""), cgroupPaths.get(""));
+
+    int cgroupVersion = cpuV1 != null || memoryV1 != null || cpusetV1 != null ? 1 : (v2 != null ? 2 : 0);
+    double cpuQuota = cpuV1 != null ? cpuQuotaV1(reader, cpuV1) : (v2 != null ? cpuQuotaV2(reader, v2) : UNLIMITED);
+    long memoryLimit = memoryV1 != null ? memoryLimit(reader, memoryV1, "memory.limit_in_bytes")
+        : (v2 != null ? memoryLimit(reader, v2, "memory.max") : UNLIMITED);
+    BitSet cpuSet = cpusetV1 != null ? cpuSet(reader, cpusetV1, "cpuset.effective_cpus", "cpuset.cpus")
+        : (v2 != null ? cpuSet(reader, v2, "cpuset.cpus.effective", null) : null);
+    int cpuSetCount = cpuSet == null || cpuSet.isEmpty() ? -1 : cpuSet.cardinality();
+
+    boolean host = root.getNameCount() == 0;
+    BitSet online = SysFiles.readCpuList(reader, root.resolve("sys/devices/system/cpu/online"));
+    int effectiveCpuCount = online == null || online.isEmpty() ? Runtime.getRuntime().availableProcessors() : online.cardinality();
+    if (cpuSetCount > 0) {
+      effectiveCpuCount = Math.min(effectiveCpuCount, cpuSetCount);
+    }
+    if (cpuQuota > 0) {
+      effectiveCpuCount = Math.min(effectiveCpuCount, (int)Math.ceil(cpuQuota));
+    }
+
+    String runtime = detectRuntime(root, reader, markers);
+    boolean kubernetes = markers.indexOf("kubepods") >= 0 || (host && System.getenv("KUBERNETES_SERVICE_HOST") != null);
+    return new ContainerInfo(runtime, kubernetes, cgroupVersion, cpuQuota, cpuSetCount, Math.max(1, effectiveCpuCount), memoryLimit);
+  }
+
+  /**
+   * @return whether the process runs in a container
+   */
+  public boolean isContainerized() {
+    return runtime != null || kubernetes;
+  }
+
+  /**
+   * @return the container runtime, e.g. "docker", "podman", "containerd", "cri-o", "lxc", "systemd-nspawn",
+   * or null if none was identified
+   */
+  public String getRuntime() {
+    return runtime;
+  }
+
+  /**
+   * @return whether the container is a Kubernetes pod
+   */
+  public boolean isKubernetes() {
+    return kubernetes;
+  }
+
+  /**
+   * @return 1 or 2 for the cgroup version of the resource controllers, 1 for hybrid setups, or 0 if there is none
+   */
+  public int getCgroupVersion() {
+    return cgroupVersion;
+  }
+
+  /**
+   * @return the CPU bandwidth the cgroup may use, in CPUs (quota / period, e.g. 1.5), or {@link #UNLIMITED}
+   */
+  public double getCpuQuota() {
+    return cpuQuota;
+  }
+
+  /**
+   * @return the number of CPUs of the cpuset the process may run on, or -1 if unknown
+   */
+  public int getCpuSetCount() {
+    return cpuSetCount;
+  }
+
+  /**
+   * @return the number of CPUs the process can actually use : the online CPUs, capped by the cpuset and by the
+   * CPU quota rounded up, at least 1. This is the number to size thread pools from.
+   */
+  public int getEffectiveCpuCount() {
+    return effectiveCpuCount;
+  }
+
+  /**
+   * @return the memory limit of the cgroup in bytes, or {@link #UNLIMITED}
+   */
+  public long getMemoryLimit() {
+    return memoryLimit;
+  }
+
+  @Override
+  public String toString() {
+    return "ContainerInfo{" +
+           "Runtime = " + runtime + ", " +
+           "Kubernetes = " + kubernetes + ", " +
+           "Cgroup version = " + cgroupVersion + ", " +
+           "CPU quota = " + cpuQuota + ", " +
+           "CPU set = " + cpuSetCount + ", " +
+           "Effective CPUs = " + effectiveCpuCount + ", " +
+           "Memory limit = " + memoryLimit +
+           '}';
+  }
+
+  /**
+   * Lines are "hierarchy-id:controller,controller:path", the cgroup v2 line having no controller.
+   * The v2 path is stored under the "" key.
+   */
+  private static void parseCgroups(final CharSequence cgroup, final Map<String, String> cgroupPaths) {
+    int length = cgroup.length();
+    int start = 0;
+    while (start < length) {
+      int end = ReleaseFiles.lineEnd(cgroup, start, length);
+      int firstColon = SysFiles.indexOf(cgroup, ':', start, end);
+      int secondColon = firstColon < 0 ? -1 : SysFiles.indexOf(cgroup, ':', firstColon + 1, end);
+      if (secondColon >= 0) {
+        String path = cgroup.subSequence(secondColon + 1, end).toString();
+        if (secondColon == firstColon + 1) {
+          cgroupPaths.put("", path);
+        } else {
+          for (String controller : cgroup.subSequence(firstColon + 1, secondColon).toString().split(",")) {
+            cgroupPaths.put(controller, path);
+          }
+        }
+      }
+      start = ReleaseFiles.nextLineStart(cgroup, end, length);
+    }
+  }
+
+  /**
+   * Lines are "id parent major:minor root mount-point options [optional fields] - fstype source super-options".
+   * The cgroup v2 mount is stored under the "" key, the v1 ones under each of their controllers.
+   */
+  private static void parseMounts(final CharSequence mountinfo, final Map<String, CgroupMount> mounts, final StringBuilder markers) {
+    int length = mountinfo.length();
+    int start = 0;
+    while (start < length) {
+      int end = ReleaseFiles.lineEnd(mountinfo, start, length);
+      String line = mountinfo.subSequence(start, end).toString();
+      start = ReleaseFiles.nextLineStart(mountinfo, end, length);
+
+      int separator = line.indexOf(" - ");
+      if (separator < 0) {
+        continue;
+      }
+      String[] fields = line.substring(0, separator).split(" ");
+      String[] fsFields = line.substring(separator + 3).split(" ");
+      if (fields.length < 5 || fsFields.length < 1) {
+        continue;
+      }
+      String mountPoint = unescape(fields[4]);
+      if (mountPoint.equals("/")) {
+        // e.g. the overlay lowerdir of the container image
+        markers.append(line).append('\n');
+      }
+      CgroupMount mount = new CgroupMount(unescape(fields[3]), mountPoint);
+      if (fsFields[0].equals("cgroup2")) {
+        if (!mounts.containsKey("")) {
+          mounts.put("", mount);
+        }
+      } else if (fsFields[0].equals("cgroup") && fsFields.length >= 3) {
+        for (String option : fsFields[2].split(",")) {
+          if (!mounts.containsKey(option)) {
+            mounts.put(option, mount);
+          }
+        }
+      }
+    }
+  }
+
+  private static double cpuQuotaV1(final ReleaseFileReader reader, final CgroupDir dir) {
+    double quota = UNLIMITED;
+    for (Path level = dir.dir; level != null; level = dir.parent(level)) {
+      long quotaMicros = SysFiles.readLong(reader, level.resolve("cpu.cfs_quota_us"));
+      long periodMicros = SysFiles.readLong(reader, level.resolve("cpu.cfs_period_us"));
+      if (quotaMicros > 0 && periodMicros > 0) {
+        quota = min(quota, (double)quotaMicros / periodMicros);
+      }
+    }
+    return quota;
+  }
+
+  /**
+   * cpu.max is "max 100000" without limit, or e.g. "150000 100000" for 1.5 CPU.
+   */
+  private static double cpuQuotaV2(final ReleaseFileReader reader, final CgroupDir dir) {
+    double quota = UNLIMITED;
+    for (Path level = dir.dir; level != null; level = dir.parent(level)) {
+      CharSequence content = SysFiles.read(reader, level.resolve("cpu.max"));
+      if (content == null) {
+        continue;
+      }
+      int length = content.length();
+      int quotaStart = SysFiles.skipWhitespace(content, 0, length);
+      int quotaEnd = SysFiles.tokenEnd(content, quotaStart, length);
+      int periodStart = SysFiles.skipWhitespace(content, quotaEnd, length);
+      long quotaMicros = SysFiles.parseLong(content, quotaStart, quotaEnd);
+      long periodMicros = SysFiles.parseLong(content, periodStart, SysFiles.tokenEnd(content, periodStart, length));
+      if (quotaMicros > 0 && periodMicros > 0) {
+        quota = min(quota, (double)quotaMicros / periodMicros);
+      }
+    }
+    return quota;
+  }
+
+  private static long memoryLimit(final ReleaseFileReader reader, final CgroupDir dir, final String fileName) {
+    long limit = UNLIMITED;
+    for (Path level = dir.dir; level != null; level = dir.parent(level)) {
+      long levelLimit = SysFiles.readLong(reader, level.resolve(fileName));
+      if (levelLimit > 0 && levelLimit < UNLIMITED_MEMORY_THRESHOLD && (limit == UNLIMITED || levelLimit < limit)) {
+        limit = levelLimit;
+      }
+    }
+    return limit;
+  }
+
+  /**
+   * The effective cpuset already accounts for the parents, so the closest file wins.
+   */
+  private static BitSet cpuSet(final ReleaseFileReader reader, final CgroupDir dir, final String fileName, final String fallbackFileName) {
+    for (Path level = dir.dir; level != null; level = dir.parent(level)) {
+      BitSet cpus = SysFiles.readCpuList(reader, level.resolve(fileName));
+      if (cpus == null && fallbackFileName != null) {
+        cpus = SysFiles.readCpuList(reader, level.resolve(fallbackFileName));
+      }
+      if (cpus != null && !cpus.isEmpty()) {
+        return cpus;
+      }
+    }
+    return null;
+  }
+
+  private static String detectRuntime(final Path root, final ReleaseFileReader reader, final StringBuilder markers) {
+    if (Files.exists(root.resolve(".dockerenv"))) {
+      return "docker";
+    }
+    if (Files.exists(root.resolve("run/.containerenv"))) {
+      return "podman";
+    }
+    for (String[] marker : RUNTIME_MARKERS) {
+      if (markers.indexOf(marker[0]) >= 0) {
+        return marker[1];
+      }
+    }
+    // NUL separated NAME=value pairs, e.g. container=lxc or container=systemd-nspawn
+    CharSequence environ = SysFiles.read(reader, root.resolve("proc/1/environ"));
+    if (environ != null) {
+      String variables = environ.toString();
+      int index = variables.startsWith("container=") ? 0 : variables.indexOf("\u0000container=");
+      if (index >= 0) {
+        int valueStart = variables.indexOf('=', index) + 1;
+        int valueEnd = variables.indexOf('\u0000', valueStart);
+        String value = variables.substring(valueStart, valueEnd < 0 ? variables.length() : valueEnd);
+        if (value.length() > 0) {
+          return value;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static double min(final double limit, final double other) {
+    return limit == UNLIMITED ? other : Math.min(limit, other);
+  }
+
+  /**
+   * mountinfo escapes space, tab, newline and backslash as octal, e.g. "\040".
+   */
+  private static String unescape(final String field) {
+    if (field.indexOf('\\') < 0) {
+      return field;
+    }
+    StringBuilder sb = new StringBuilder(field.length());
+    for (int i = 0; i < field.length(); i++) {
+      char c = field.charAt(i);
+      if (c == '\\' && i + 3 < field.length() && isOctal(field.charAt(i + 1)) && isOctal(field.charAt(i + 2)) && isOctal(field.charAt(i + 3))) {
+        sb.append((char)((field.charAt(i + 1) - '0') * 64 + (field.charAt(i + 2) - '0') * 8 + (field.charAt(i + 3) - '0')));
+        i += 3;
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  private static boolean isOctal(final char c) {
+    return c >= '0' && c <= '7';
+  }
+
+  private static final class CgroupMount {
+    private final String root;
+    private final String mountPoint;
+
+    private CgroupMount(final String root, final String mountPoint) {
+      this.root = root;
+      this.mountPoint = mountPoint;
+    }
+  }
+
+  /**
+   * The directory of a cgroup, and the mount point it sits under.
+   */
+  private static final class CgroupDir {
+    private final Path mountDir;
+    private final Path dir;
+
+    private CgroupDir(final Path mountDir, final Path dir) {
+      this.mountDir = mountDir;
+      this.dir = dir;
+    }
+
+    /**
+     * @return the directory of the cgroup, or of its closest existing parent when it is not visible, e.g. from
+     * within a container whose cgroup namespace is not private, or null if the controller is not mounted
+     */
+    static CgroupDir of(final Path root, final CgroupMount mount, final String cgroupPath) {
+      if (mount == null || cgroupPath == null) {
+        return null;
+      }
+      Path mountDir = resolve(root, mount.mountPoint);
+      String relativePath;
+      if (mount.root.equals("/")) {
+        relativePath = cgroupPath;
+      } else if (cgroupPath.equals(mount.root) || cgroupPath.startsWith(mount.root + "/")) {
+        relativePath = cgroupPath.substring(mount.root.length());
+      } else {
+        relativePath = "/";
+      }
+      if (relativePath.contains("..")) {
+        relativePath = "/";
+      }
+      Path dir = resolve(mountDir, relativePath);
+      while (!Files.isDirectory(dir) && !dir.equals(mountDir)) {
+        dir = dir.getParent();
+      }
+      return new CgroupDir(mountDir, dir);
+    }
+
+    /**
+     * @return the parent cgroup directory, or null at the mount point
+     */
+    Path parent(final Path level) {
+      return level.equals(mountDir) ? null : level.getParent();
+    }
+
+    private static Path resolve(final Path base, final String absolutePath) {
+      String relative = absolutePath;
+      while (relative.startsWith("/")) {
+        relative = relative.substring(1);
+      }
+      return relative.length() == 0 ? base : base.resolve(relative);
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.nio.ByteOrder;
+
+/**
+ * Normalized CPU architecture, resolved once from the os.arch system property, whose value depends on the JVM
+ * vendor : amd64 and x86_64 are both {@link #X86_64}, aarch64 and arm64 are both {@link #AARCH64}.
+ * <br>
+ * The architecture of the running JVM is held in a static final of {@link OS}, see {@link OS#getCpuArch()}.
+ *
+ * @author Aurelien Broszniowski
+ */
+public enum CpuArch {
+  X86_64(64, ByteOrder.LITTLE_ENDIAN),
+  X86(32, ByteOrder.LITTLE_ENDIAN),
+  AARCH64(64, ByteOrder.LITTLE_ENDIAN),
+  ARM(32, ByteOrder.LITTLE_ENDIAN),
+  PPC64LE(64, ByteOrder.LITTLE_ENDIAN),
+  PPC64(64, ByteOrder.BIG_ENDIAN),
+  PPC(32, ByteOrder.BIG_ENDIAN),
+  S390X(64, ByteOrder.BIG_ENDIAN),
+  RISCV64(64, ByteOrder.LITTLE_ENDIAN),
+  LOONGARCH64(64, ByteOrder.LITTLE_ENDIAN),
+  SPARCV9(64, ByteOrder.BIG_ENDIAN),
+  /** an architecture not listed here, whose bitness and byte order are unknown */
+  UNKNOWN(0, null);
+
+  private final int bits;
+  private final ByteOrder byteOrder;
+
+  CpuArch(final int bits, final ByteOrder byteOrder) {
+    this.bits = bits;
+    this.byteOrder = byteOrder;
+  }
+
+  /**
+   * @param osArch the os.arch system property, which may be null
+   */
+  public static CpuArch of(final String osArch) {
+    if (osArch == null) {
+      return UNKNOWN;
+    }
+    switch (osArch) {
+      case "amd64":
+      case "x86_64":
+      case "x64":
+        return X86_64;
+      case "x86":
+      case "i386":
+      case "i486":
+      case "i586":
+      case "i686":
+        return X86;
+      case "aarch64":
+      case "arm64":
+        return AARCH64;
+      case "ppc64le":
+        return PPC64LE;
+      case "ppc64":
+        return PPC64;
+      case "ppc":
+      case "powerpc":
+        return PPC;
+      case "s390x":
+        return S390X;
+      case "riscv64":
+        return RISCV64;
+      case "loongarch64":
+        return LOONGARCH64;
+      case "sparcv9":
+        return SPARCV9;
+      default:
+        return osArch.startsWith("arm") ? ARM : UNKNOWN;
+    }
+  }
+
+  /**
+   * @return 64 or 32, or 0 if unknown
+   */
+  public int getBits() {
+    return bits;
+  }
+
+  public boolean is64Bit() {
+    return bits == 64;
+  }
+
+  /**
+   * @return the byte order, or null if unknown
+   */
+  public ByteOrder getByteOrder() {
+    return byteOrder;
+  }
+}
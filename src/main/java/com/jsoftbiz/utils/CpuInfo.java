@@ -0,0 +1,428 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The CPU topology and instruction set of a Linux machine : sockets, physical and logical cores, NUMA nodes,
+ * cache sizes, the CPUs the process may run on, and the CPU flags (avx2, avx512f, sve...).
+ * <br>
+ * /proc/cpuinfo is streamed line by line with a {@link ProcLineReader}, its keys compared in place, and only
+ * the flags of the first processor are kept, so that a machine with hundreds of threads costs no more garbage
+ * than a small one. The topology falls back on /sys/devices/system/cpu when /proc/cpuinfo does not give it,
+ * e.g. on ARM. The caches come from the sysfs cache directories of the first CPU, the NUMA nodes from
+ * /sys/devices/system/node/online and the affinity from the Cpus_allowed_list of /proc/self/status.
+ *
+ * @author Aurelien Broszniowski
+ */
+public final class CpuInfo {
+
+  /**
+   * Value of the sizes and counts that could not be read.
+   */
+  public static final int UNKNOWN = -1;
+
+  private final int logicalCpuCount;
+  private final int socketCount;
+  private final int physicalCoreCount;
+  private final int numaNodeCount;
+  private final long l1DataCacheSize;
+  private final long l1InstructionCacheSize;
+  private final long l2CacheSize;
+  private final long l3CacheSize;
+  private final int cacheLineSize;
+  private final BitSet affinity;
+  private final Set<String> flags;
+  private final String vendor;
+  private final String modelName;
+
+  private CpuInfo(final Builder builder) {
+    this.logicalCpuCount = builder.logicalCpuCount;
+    this.socketCount = builder.socketCount;
+    this.physicalCoreCount = builder.physicalCoreCount;
+    this.numaNodeCount = builder.numaNodeCount;
+    this.l1DataCacheSize = builder.l1DataCacheSize;
+    this.l1InstructionCacheSize = builder.l1InstructionCacheSize;
+    this.l2CacheSize = builder.l2CacheSize;
+    this.l3CacheSize = builder.l3CacheSize;
+    this.cacheLineSize = builder.cacheLineSize;
+    this.affinity = builder.affinity;
+    this.flags = builder.flags == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(builder.flags);
+    this.vendor = builder.vendor;
+    this.modelName = builder.modelName;
+  }
+
+  /**
+   * Reads the CPU information from the /proc and /sys of the root file system.
+   * Missing or unreadable files only mean that the information is unknown.
+   *
+   * @param root "/" for the running host, or the root of a copy of its /proc and /sys
+   */
+  public static CpuInfo read(final Path root) {
+    ReleaseFileReader reader = new ReleaseFileReader();
+    Path cpuDir = root.resolve("sys/devices/system/cpu");
+    Builder builder = new Builder();
+
+    BitSet sockets = new BitSet();
+    Set<Long> cores = new HashSet<Long>();
+    int processors = parseCpuInfo(root.resolve("proc/cpuinfo"), builder, sockets, cores);
+
+    BitSet online = SysFiles.readCpuList(reader, cpuDir.resolve("online"));
+    if (online != null && !online.isEmpty()) {
+      builder.logicalCpuCount = online.cardinality();
+    } else if (processors > 0) {
+      builder.logicalCpuCount = processors;
+    } else {
+      builder.logicalCpuCount = Runtime.getRuntime().availableProcessors();
+    }
+
+    if (sockets.isEmpty() || cores.isEmpty()) {
+      sockets.clear();
+      cores.clear();
+      readSysfsTopology(reader, cpuDir, online, builder.logicalCpuCount, sockets, cores);
+    }
+    builder.socketCount = sockets.isEmpty() ? 1 : sockets.cardinality();
+    builder.physicalCoreCount = cores.isEmpty() ? builder.logicalCpuCount : cores.size();
+
+    BitSet nodes = SysFiles.readCpuList(reader, root.resolve("sys/devices/system/node/online"));
+    builder.numaNodeCount = nodes == null || nodes.isEmpty() ? 1 : nodes.cardinality();
+
+    readCaches(reader, cpuDir.resolve("cpu" + (online != null && !online.isEmpty() ? online.nextSetBit(0) : 0)).resolve("cache"), builder);
+    builder.affinity = readAffinity(reader, root.resolve("proc/self/status"));
+    return new CpuInfo(builder);
+  }
+
+  /**
+   * @return the number of online logical CPUs (hardware threads)
+   */
+  public int getLogicalCpuCount() {
+    return logicalCpuCount;
+  }
+
+  public int getSocketCount() {
+    return socketCount;
+  }
+
+  /**
+   * @return the number of physical cores, over all the sockets
+   */
+  public int getPhysicalCoreCount() {
+    return physicalCoreCount;
+  }
+
+  /**
+   * @return the number of hardware threads per physical core, e.g. 2 with hyper-threading
+   */
+  public int getThreadsPerCore() {
+    return Math.max(1, logicalCpuCount / Math.max(1, physicalCoreCount));
+  }
+
+  public int getNumaNodeCount() {
+    return numaNodeCount;
+  }
+
+  /**
+   * @return the size in bytes of one L1 data cache, or {@link #UNKNOWN}
+   */
+  public long getL1DataCacheSize() {
+    return l1DataCacheSize;
+  }
+
+  /**
+   * @return the size in bytes of one L1 instruction cache, or {@link #UNKNOWN}
+   */
+  public long getL1InstructionCacheSize() {
+    return l1InstructionCacheSize;
+  }
+
+  /**
+   * @return the size in bytes of one L2 cache, or {@link #UNKNOWN}
+   */
+  public long getL2CacheSize() {
+    return l2CacheSize;
+  }
+
+  /**
+   * @return the size in bytes of one L3 cache, or {@link #UNKNOWN}
+   */
+  public long getL3CacheSize() {
+    return l3CacheSize;
+  }
+
+  /**
+   * @return the cache line size in bytes, or {@link #UNKNOWN}
+   */
+  public int getCacheLineSize() {
+    return cacheLineSize;
+  }
+
+  /**
+   * @return the CPUs the process may run on, or null if unknown
+   */
+  public BitSet getAffinity() {
+    return affinity == null ? null : (BitSet)affinity.clone();
+  }
+
+  /**
+   * @return the number of CPUs the process may run on, or {@link #UNKNOWN}
+   */
+  public int getAffinityCount() {
+    return affinity == null ? UNKNOWN : affinity.cardinality();
+  }
+
+  /**
+   * @return the flags of /proc/cpuinfo, the "flags" on x86 and the "Features" on ARM, sorted
+   */
+  public Set<String> getFlags() {
+    return flags;
+  }
+
+  public boolean hasFlag(final String flag) {
+    return flags.contains(flag);
+  }
+
+  public boolean hasAvx2() {
+    return hasFlag("avx2");
+  }
+
+  /**
+   * @return whether the AVX-512 foundation instructions are available
+   */
+  public boolean hasAvx512() {
+    return hasFlag("avx512f");
+  }
+
+  /**
+   * @return whether the ARM Scalable Vector Extension is available
+   */
+  public boolean hasSve() {
+    return hasFlag("sve");
+  }
+
+  /**
+   * @return whether the ARM Advanced SIMD (NEON) instructions are available
+   */
+  public boolean hasNeon() {
+    return hasFlag("asimd") || hasFlag("neon");
+  }
+
+  /**
+   * @return the vendor_id, e.g. GenuineIntel, or null
+   */
+  public String getVendor() {
+    return vendor;
+  }
+
+  /**
+   * @return the model name, or null
+   */
+  public String getModelName() {
+    return modelName;
+  }
+
+  @Override
+  public String toString() {
+    return "CpuInfo{" +
+           "Model = " + modelName + ", " +
+           "Sockets = " + socketCount + ", " +
+           "Cores = " + physicalCoreCount + ", " +
+           "Logical CPUs = " + logicalCpuCount + ", " +
+           "NUMA nodes = " + numaNodeCount + ", " +
+           "L1d = " + l1DataCacheSize + ", " +
+           "L1i = " + l1InstructionCacheSize + ", " +
+           "L2 = " + l2CacheSize + ", " +
+           "L3 = " + l3CacheSize + ", " +
+           "Affinity = " + affinity + ", " +
+           "Flags = " + flags.size() +
+           '}';
+  }
+
+  /**
+   * @return the number of processors listed
+   */
+  private static int parseCpuInfo(final Path cpuInfo, final Builder builder, final BitSet sockets, final Set<Long> cores) {
+    int processors = 0;
+    long physicalId = 0;
+    try (ProcLineReader lines = new ProcLineReader(cpuInfo)) {
+      while (lines.next()) {
+        CharSequence line = lines.line();
+        int length = line.length();
+        int colon = SysFiles.indexOf(line, ':', 0, length);
+        if (colon < 0) {
+          continue;
+        }
+        int keyEnd = SysFiles.trimEnd(line, 0, colon);
+        int valueStart = SysFiles.skipWhitespace(line, colon + 1, length);
+        int valueEnd = SysFiles.trimEnd(line, valueStart, length);
+        if (SysFiles.regionEquals(line, 0, keyEnd, "processor")) {
+          processors++;
+          physicalId = 0;
+        } else if (SysFiles.regionEquals(line, 0, keyEnd, "physical id")) {
+          physicalId = SysFiles.parseLong(line, valueStart, valueEnd);
+          if (physicalId >= 0 && physicalId < Integer.MAX_VALUE) {
+            sockets.set((int)physicalId);
+          }
+        } else if (SysFiles.regionEquals(line, 0, keyEnd, "core id")) {
+          long coreId = SysFiles.parseLong(line, valueStart, valueEnd);
+          if (coreId >= 0 && physicalId >= 0) {
+            cores.add((physicalId << 32) | coreId);
+          }
+        } else if (builder.flags == null && (SysFiles.regionEquals(line, 0, keyEnd, "flags") || SysFiles.regionEquals(line, 0, keyEnd, "Features"))) {
+          builder.flags = parseFlags(line, valueStart, valueEnd);
+        } else if (builder.vendor == null && SysFiles.regionEquals(line, 0, keyEnd, "vendor_id")) {
+          builder.vendor = line.subSequence(valueStart, valueEnd).toString();
+        } else if (builder.modelName == null && SysFiles.regionEquals(line, 0, keyEnd, "model name")) {
+          builder.modelName = line.subSequence(valueStart, valueEnd).toString();
+        }
+      }
+    } catch (IOException e) {
+      // no /proc/cpuinfo, everything comes from sysfs
+    }
+    return processors;
+  }
+
+  private static Set<String> parseFlags(final CharSequence line, final int start, final int end) {
+    Set<String> flags = new TreeSet<String>();
+    int i = start;
+    while (i < end) {
+      int flagEnd = SysFiles.tokenEnd(line, i, end);
+      if (flagEnd > i) {
+        flags.add(line.subSequence(i, flagEnd).toString());
+      }
+      i = SysFiles.skipWhitespace(line, flagEnd, end);
+    }
+    return flags;
+  }
+
+  private static void readSysfsTopology(final ReleaseFileReader reader, final Path cpuDir, final BitSet online, final int logicalCpuCount,
+                                        final BitSet sockets, final Set<Long> cores) {
+    BitSet cpus = online;
+    if (cpus == null || cpus.isEmpty()) {
+      cpus = new BitSet();
+      cpus.set(0, logicalCpuCount);
+    }
+    for (int cpu = cpus.nextSetBit(0); cpu >= 0; cpu = cpus.nextSetBit(cpu + 1)) {
+      Path topology = cpuDir.resolve("cpu" + cpu).resolve("topology");
+      long packageId = SysFiles.readLong(reader, topology.resolve("physical_package_id"));
+      long coreId = SysFiles.readLong(reader, topology.resolve("core_id"));
+      if (packageId >= 0 && packageId < Integer.MAX_VALUE) {
+        sockets.set((int)packageId);
+      }
+      if (coreId >= 0) {
+        cores.add((Math.max(0, packageId) << 32) | coreId);
+      }
+    }
+  }
+
+  /**
+   * Each indexN directory is one cache of the CPU, with its level, type (Data, Instruction, Unified) and size.
+   */
+  private static void readCaches(final ReleaseFileReader reader, final Path cacheDir, final Builder builder) {
+    for (int index = 0; ; index++) {
+      Path indexDir = cacheDir.resolve("index" + index);
+      if (!Files.isDirectory(indexDir)) {
+        break;
+      }
+      long level = SysFiles.readLong(reader, indexDir.resolve("level"));
+      long size = readSize(reader, indexDir.resolve("size"));
+      CharSequence type = SysFiles.read(reader, indexDir.resolve("type"));
+      boolean instruction = type != null && SysFiles.regionEquals(type, 0, SysFiles.trimEnd(type, 0, type.length()), "Instruction");
+      if (level == 1) {
+        if (instruction) {
+          builder.l1InstructionCacheSize = size;
+        } else {
+          builder.l1DataCacheSize = size;
+        }
+      } else if (level == 2) {
+        builder.l2CacheSize = size;
+      } else if (level == 3) {
+        builder.l3CacheSize = size;
+      }
+      if (builder.cacheLineSize == UNKNOWN) {
+        long lineSize = SysFiles.readLong(reader, indexDir.resolve("coherency_line_size"));
+        builder.cacheLineSize = lineSize > 0 && lineSize <= Integer.MAX_VALUE ? (int)lineSize : UNKNOWN;
+      }
+    }
+  }
+
+  /**
+   * @return the size of a "48K" or "32M" file in bytes, or {@link #UNKNOWN}
+   */
+  private static long readSize(final ReleaseFileReader reader, final Path file) {
+    CharSequence content = SysFiles.read(reader, file);
+    if (content == null) {
+      return UNKNOWN;
+    }
+    int end = SysFiles.trimEnd(content, 0, content.length());
+    if (end == 0) {
+      return UNKNOWN;
+    }
+    long multiplier = 1;
+    char unit = content.charAt(end - 1);
+    if (unit == 'K') {
+      multiplier = 1024;
+    } else if (unit == 'M') {
+      multiplier = 1024 * 1024;
+    } else if (unit == 'G') {
+      multiplier = 1024 * 1024 * 1024;
+    }
+    long value = SysFiles.parseLong(content, 0, multiplier == 1 ? end : end - 1);
+    return value < 0 ? UNKNOWN : value * multiplier;
+  }
+
+  private static BitSet readAffinity(final ReleaseFileReader reader, final Path status) {
+    CharSequence content = SysFiles.read(reader, status);
+    if (content == null) {
+      return null;
+    }
+    int length = content.length();
+    int start = 0;
+    while (start < length) {
+      int end = ReleaseFiles.lineEnd(content, start, length);
+      int colon = SysFiles.indexOf(content, ':', start, end);
+      if (colon >= 0 && SysFiles.regionEquals(content, start, colon, "Cpus_allowed_list")) {
+        return SysFiles.parseCpuList(content, colon + 1, end);
+      }
+      start = ReleaseFiles.nextLineStart(content, end, length);
+    }
+    return null;
+  }
+
+  private static final class Builder {
+    private int logicalCpuCount;
+    private int socketCount;
+    private int physicalCoreCount;
+    private int numaNodeCount;
+    private long l1DataCacheSize = UNKNOWN;
+    private long l1InstructionCacheSize = UNKNOWN;
+    private long l2CacheSize = UNKNOWN;
+    private long l3CacheSize = UNKNOWN;
+    private int cacheLineSize = UNKNOWN;
+    private BitSet affinity;
+    private Set<String> flags;
+    private String vendor;
+    private String modelName;
+  }
+}
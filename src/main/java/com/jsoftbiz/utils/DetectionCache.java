@@ -0,0 +1,196 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Properties;
+
+/**
+ * Opt-in persistent cache of the detected platform, so that short-lived JVMs do not repeat the whole detection
+ * chain at every launch. It is enabled by setting the {@value #CACHE_DIR_PROPERTY} system property to a
+ * writable directory.
+ * <br>
+ * Along with the result and the id of the detector that produced it, the cache stores the fingerprint (size, modification time and file key, i.e. the inode)
+ * of every file the detection consulted, including the ones that were missing. A cached result is only used if
+ * all these fingerprints are unchanged, which costs one stat per file and no read nor directory listing.
+ * The {@value DetectorPipeline#DISABLED_DETECTORS_PROPERTY} setting is stored too, so that a result is not reused
+ * once its detector is disabled, or once a disabled detector of higher priority is enabled again.
+ * <br>
+ * The cache is best effort : any error reading or writing it is ignored and the detection simply runs.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class DetectionCache {
+
+  static final String CACHE_DIR_PROPERTY = "os-platform-finder.cache.dir";
+  static final String CACHE_FILE_NAME = "os-platform-finder.cache";
+
+  private static final String ABSENT = "absent";
+
+  private final Path cacheFile;
+  private final String disabledDetectors;
+
+  DetectionCache(final Path dir) {
+    this(dir, System.getProperty(DetectorPipeline.DISABLED_DETECTORS_PROPERTY));
+  }
+
+  /**
+   * @param disabledDetectors the value of the {@value DetectorPipeline#DISABLED_DETECTORS_PROPERTY} setting, or null
+   */
+  DetectionCache(final Path dir, final String disabledDetectors) {
+    this.cacheFile = dir.resolve(CACHE_FILE_NAME);
+    this.disabledDetectors = disabledDetectors == null || disabledDetectors.trim().length() == 0 ? null : disabledDetectors.trim();
+  }
+
+  /**
+   * @return the cache configured through the system properties, or null if it is not enabled
+   */
+  static DetectionCache fromSystemProperties() {
+    String dir = System.getProperty(CACHE_DIR_PROPERTY);
+    if (dir == null || dir.trim().length() == 0) {
+      return null;
+    }
+    return new DetectionCache(Paths.get(dir.trim()));
+  }
+
+  /** @return the file holding the cached result */
+  Path getCacheFile() {
+    return cacheFile;
+  }
+
+  /**
+   * @param root the root file system being detected
+   * @return the cached result if it was detected from the same root, for the same OS name, version and architecture,
+   * with the same detectors disabled, and none of the consulted files changed since, or null
+   */
+  Entry load(final Path root, final String name, final String version, final String arch) {
+    Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(cacheFile)) {
+      properties.load(in);
+    } catch (IOException e) {
+      return null;
+    }
+    if (!root.toAbsolutePath().toString().equals(properties.getProperty("root")) || !equal(name, properties.getProperty("name")) || !equal(version, properties.getProperty("version"))
+        || !equal(arch, properties.getProperty("arch")) || !equal(disabledDetectors, properties.getProperty("detectors.disabled"))) {
+      return null;
+    }
+    String platformName = properties.getProperty("platformName");
+    if (platformName == null) {
+      return null;
+    }
+    for (int i = 0; ; i++) {
+      String path = properties.getProperty("file." + i + ".path");
+      if (path == null) {
+        break;
+      }
+      if (!fingerprint(Paths.get(path)).equals(properties.getProperty("file." + i + ".fingerprint"))) {
+        return null;
+      }
+    }
+    return new Entry(OS.OsInfo.of(name, version, arch, platformName), properties.getProperty("detector"));
+  }
+
+  void store(final Path root, final OS.OsInfo osInfo, final PlatformDetector detector, final Collection<Path> consulted) {
+    Properties properties = new Properties();
+    properties.setProperty("root", root.toAbsolutePath().toString());
+    setIfNotNull(properties, "name", osInfo.getName());
+    setIfNotNull(properties, "version", osInfo.getVersion());
+    setIfNotNull(properties, "arch", osInfo.getArch());
+    setIfNotNull(properties, "detectors.disabled", disabledDetectors);
+    properties.setProperty("platformName", osInfo.getPlatformName());
+    if (detector != null) {
+      properties.setProperty("detector", detector.getId());
+    }
+    int i = 0;
+    for (Path path : consulted) {
+      properties.setProperty("file." + i + ".path", path.toAbsolutePath().toString());
+      properties.setProperty("file." + i + ".fingerprint", fingerprint(path));
+      i++;
+    }
+
+    try {
+      Files.createDirectories(cacheFile.getParent());
+      Path tmpFile = Files.createTempFile(cacheFile.getParent(), CACHE_FILE_NAME, ".tmp");
+      try {
+        try (OutputStream out = Files.newOutputStream(tmpFile)) {
+          properties.store(out, "os-platform-finder detection cache");
+        }
+        try {
+          Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+    } catch (IOException e) {
+      // the cache is only an optimization
+    }
+  }
+
+  static String fingerprint(final Path path) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      return attributes.size() + "/" + attributes.lastModifiedTime() + "/" + attributes.fileKey();
+    } catch (NoSuchFileException e) {
+      return ABSENT;
+    } catch (IOException e) {
+      return "unreadable";
+    }
+  }
+
+  private static void setIfNotNull(final Properties properties, final String key, final String value) {
+    if (value != null) {
+      properties.setProperty(key, value);
+    }
+  }
+
+  private static boolean equal(final String first, final String second) {
+    return first == null ? second == null : first.equals(second);
+  }
+
+  static final class Entry {
+    private final OS.OsInfo osInfo;
+    private final String detectorId;
+
+    Entry(final OS.OsInfo osInfo, final String detectorId) {
+      this.osInfo = osInfo;
+      this.detectorId = detectorId;
+    }
+
+    OS.OsInfo getOsInfo() {
+      return osInfo;
+    }
+
+    /**
+     * @return the id of the detector that produced the cached platform name, or null if it is the fallback on the OS name
+     */
+    String getDetectorId() {
+      return detectorId;
+    }
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * What a {@link PlatformDetector} knows about the platform being detected.
+ *
+ * @author Aurelien Broszniowski
+ */
+public interface DetectionContext {
+
+  /**
+   * @return the root of the probed file system, "/" for the running host
+   */
+  Path getRoot();
+
+  /**
+   * @return the OS name, as given by the os.name system property
+   */
+  String getName();
+
+  /**
+   * @return the OS version, as given by the os.version system property
+   */
+  String getVersion();
+
+  /**
+   * @return the OS architecture, as given by the os.arch system property
+   */
+  String getArch();
+
+  /**
+   * Reads a small text file as UTF-8, truncated to 64 KiB. The file is recorded as consulted by the detection,
+   * so that a cached result is invalidated when it changes.
+   *
+   * @param path the file, usually resolved against {@link #getRoot()}
+   * @return the content, only valid until the next call to this method
+   * @throws IOException if the file does not exist or can not be read
+   */
+  CharSequence read(Path path) throws IOException;
+}
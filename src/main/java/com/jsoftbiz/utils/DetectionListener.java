@@ -0,0 +1,74 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.nio.file.Path;
+
+/**
+ * Callbacks of a detection run. When no listener is registered, the probes do not even read the clock.
+ * <br>
+ * Implementations must be thread safe, as detectors may run concurrently.
+ *
+ * @author Aurelien Broszniowski
+ */
+interface DetectionListener {
+
+  void detectionStarted(Path root);
+
+  /**
+   * @param detectorId the detector doing the probe, or "cache" for the {@link DetectionCache}
+   * @param path       the file or directory probed, or null for the outcome of a whole detector
+   * @param bytesRead  the number of bytes read, 0 if nothing was read
+   */
+  void probed(String detectorId, Path path, DetectionTrace.Outcome outcome, long bytesRead, long nanos);
+
+  /**
+   * @param detectorId the detector that gave the platform name, or null if it is the fallback on the OS name
+   */
+  void detectionEnded(String platformName, String detectorId, long nanos);
+
+  /**
+   * @return a listener forwarding to both listeners, either of which may be null, or null if both are
+   */
+  static DetectionListener both(final DetectionListener first, final DetectionListener second) {
+    if (first == null) {
+      return second;
+    }
+    if (second == null) {
+      return first;
+    }
+    return new DetectionListener() {
+      @Override
+      public void detectionStarted(final Path root) {
+        first.detectionStarted(root);
+        second.detectionStarted(root);
+      }
+
+      @Override
+      public void probed(final String detectorId, final Path path, final DetectionTrace.Outcome outcome, final long bytesRead, final long nanos) {
+        first.probed(detectorId, path, outcome, bytesRead, nanos);
+        second.probed(detectorId, path, outcome, bytesRead, nanos);
+      }
+
+      @Override
+      public void detectionEnded(final String platformName, final String detectorId, final long nanos) {
+        first.detectionEnded(platformName, detectorId, nanos);
+        second.detectionEnded(platformName, detectorId, nanos);
+      }
+    };
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Record of what a detection did : every file and directory probed, with its outcome, the bytes read and the time
+ * spent, the outcome of each detector, and which one gave the platform name.
+ * <br>
+ * Tracing is opt-in, see {@link OS#TRACE_PROPERTY} and {@link OS#detect(Path, DetectionTrace)}.
+ *
+ * @author Aurelien Broszniowski
+ */
+public final class DetectionTrace {
+
+  public enum Outcome {
+    /** the detector gave the platform name */
+    ANSWERED,
+    /** the detector ran but could not tell */
+    NO_ANSWER,
+    /** the file was read */
+    READ,
+    /** the file does not exist */
+    MISSING,
+    /** the file or detector failed with an I/O error */
+    FAILED,
+    /** the directory was listed */
+    LISTED,
+    /** the cached result was still valid */
+    CACHE_HIT,
+    /** there was no cached result, or it was stale */
+    CACHE_MISS
+  }
+
+  private final List<Probe> probes = new ArrayList<Probe>();
+  private final DetectionListener recorder = new Recorder();
+  private volatile Path root;
+  private volatile String platformName;
+  private volatile String detectorId;
+  private volatile long nanos;
+  private volatile boolean completed;
+
+  /**
+   * @return the probes, in the order they completed
+   */
+  public List<Probe> getProbes() {
+    synchronized (probes) {
+      return Collections.unmodifiableList(new ArrayList<Probe>(probes));
+    }
+  }
+
+  public Path getRoot() {
+    return root;
+  }
+
+  public String getPlatformName() {
+    return platformName;
+  }
+
+  /**
+   * @return the id of the detector that gave the platform name, also for a cached result,
+   * or null if it is the fallback on the OS name
+   */
+  public String getDetectorId() {
+    return detectorId;
+  }
+
+  /**
+   * @return the duration of the whole detection
+   */
+  public long getNanos() {
+    return nanos;
+  }
+
+  public boolean isCompleted() {
+    return completed;
+  }
+
+  DetectionListener recorder() {
+    return recorder;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("DetectionTrace{")
+        .append("Root = ").append(root).append(", ")
+        .append("Platform = ").append(platformName).append(", ")
+        .append("Detector = ").append(detectorId).append(", ")
+        .append("Time = ").append(nanos / 1000).append("us");
+    for (Probe probe : getProbes()) {
+      sb.append("\n  ").append(probe);
+    }
+    return sb.append('}').toString();
+  }
+
+  public static final class Probe {
+    private final String detectorId;
+    private final Path path;
+    private final Outcome outcome;
+    private final long bytesRead;
+    private final long nanos;
+
+    Probe(final String detectorId, final Path path, final Outcome outcome, final long bytesRead, final long nanos) {
+      this.detectorId = detectorId;
+      this.path = path;
+      this.outcome = outcome;
+      this.bytesRead = bytesRead;
+      this.nanos = nanos;
+    }
+
+    public String getDetectorId() {
+      return detectorId;
+    }
+
+    /**
+     * @return the file or directory probed, or null when the probe is the outcome of a whole detector
+     */
+    public Path getPath() {
+      return path;
+    }
+
+    public Outcome getOutcome() {
+      return outcome;
+    }
+
+    public long getBytesRead() {
+      return bytesRead;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    @Override
+    public String toString() {
+      return detectorId + " " + (path != null ? path + " " : "") + outcome + " " + bytesRead + "B " + (nanos / 1000) + "us";
+    }
+  }
+
+  private final class Recorder implements DetectionListener {
+    @Override
+    public void detectionStarted(final Path root) {
+      DetectionTrace.this.root = root;
+    }
+
+    @Override
+    public void probed(final String detectorId, final Path path, final Outcome outcome, final long bytesRead, final long nanos) {
+      synchronized (probes) {
+        probes.add(new Probe(detectorId, path, outcome, bytesRead, nanos));
+      }
+    }
+
+    @Override
+    public void detectionEnded(final String platformName, final String detectorId, final long nanos) {
+      DetectionTrace.this.platformName = platformName;
+      DetectionTrace.this.detectorId = detectorId;
+      DetectionTrace.this.nanos = nanos;
+      DetectionTrace.this.completed = true;
+    }
+  }
+}
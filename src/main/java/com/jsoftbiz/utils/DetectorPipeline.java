@@ -0,0 +1,219 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The ordered list of enabled {@link PlatformDetector}s, and the logic running them.
+ * <br>
+ * They can be run one after the other with {@link #detect(ProbeContext)}, or all at once on an
+ * {@link Executor} with {@link #detect(ProbeContext, Executor)}, which gives the same answer.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class DetectorPipeline {
+
+  static final String DISABLED_DETECTORS_PROPERTY = "os-platform-finder.detectors.disabled";
+
+  private static volatile DetectorPipeline defaultPipeline;
+
+  private final PlatformDetector[] detectors;
+
+  DetectorPipeline(final Collection<? extends PlatformDetector> detectors) {
+    List<PlatformDetector> sorted = new ArrayList<PlatformDetector>(detectors);
+    // stable sort : detectors of equal priority keep their discovery order
+    Collections.sort(sorted, new Comparator<PlatformDetector>() {
+      @Override
+      public int compare(final PlatformDetector first, final PlatformDetector second) {
+        return first.getPriority() < second.getPriority() ? -1 : (first.getPriority() == second.getPriority() ? 0 : 1);
+      }
+    });
+    this.detectors = sorted.toArray(new PlatformDetector[0]);
+  }
+
+  /**
+   * @return the pipeline made of the built-in detectors and of the ones found by the {@link ServiceLoader},
+   * minus the ones disabled by the system property, built on first use
+   */
+  static DetectorPipeline defaultPipeline() {
+    DetectorPipeline pipeline = defaultPipeline;
+    if (pipeline == null) {
+      pipeline = fromSystemProperties();
+      defaultPipeline = pipeline;
+    }
+    return pipeline;
+  }
+
+  static DetectorPipeline fromSystemProperties() {
+    Set<String> disabled = new HashSet<String>();
+    String disabledProperty = System.getProperty(DISABLED_DETECTORS_PROPERTY);
+    if (disabledProperty != null) {
+      for (String id : disabledProperty.split(",")) {
+        disabled.add(id.trim());
+      }
+    }
+
+    List<PlatformDetector> detectors = new ArrayList<PlatformDetector>();
+    List<PlatformDetector> candidates = new ArrayList<PlatformDetector>(Arrays.asList(BuiltinDetector.values()));
+    for (PlatformDetector detector : ServiceLoader.load(PlatformDetector.class, DetectorPipeline.class.getClassLoader())) {
+      candidates.add(detector);
+    }
+    for (PlatformDetector detector : candidates) {
+      if (!disabled.contains(detector.getId())) {
+        detectors.add(detector);
+      }
+    }
+    return new DetectorPipeline(detectors);
+  }
+
+  List<PlatformDetector> getDetectors() {
+    return Collections.unmodifiableList(Arrays.asList(detectors));
+  }
+
+  /**
+   * Runs the detectors sequentially, sharing one read buffer, until one of them answers.
+   *
+   * @return the platform name, or null if no detector gave any
+   */
+  String detect(final ProbeContext context) {
+    for (PlatformDetector detector : detectors) {
+      String platformName = detectQuietly(detector, context);
+      if (platformName != null) {
+        context.answeredBy(detector);
+        return platformName;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Runs a single detector, e.g. to refresh the answer it gave before.
+   *
+   * @return the platform name, or null if the detector gave none
+   */
+  static String detectWith(final ProbeContext context, final PlatformDetector detector) {
+    String platformName = detectQuietly(detector, context);
+    if (platformName != null) {
+      context.answeredBy(detector);
+    }
+    return platformName;
+  }
+
+  /**
+   * Starts all the detectors at once on the executor, then waits for their answers in priority order.
+   * As soon as a detector answers, the ones of lower priority are cancelled, so the result is
+   * the same as the one of {@link #detect(ProbeContext)}.
+   * <br>
+   * A detector rejected by the executor is run in the calling thread. If the calling thread is interrupted
+   * while waiting, the pending detectors are cancelled and the detection completes sequentially.
+   *
+   * @return the platform name, or null if no detector gave any
+   */
+  String detect(final ProbeContext context, final Executor executor) {
+    List<FutureTask<String>> tasks = new ArrayList<FutureTask<String>>(detectors.length);
+    for (final PlatformDetector detector : detectors) {
+      final ProbeContext taskContext = context.fork();
+      FutureTask<String> task = new FutureTask<String>(new Callable<String>() {
+        @Override
+        public String call() {
+          return detectQuietly(detector, taskContext);
+        }
+      });
+      tasks.add(task);
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException e) {
+        task.run();
+      }
+    }
+
+    try {
+      for (int i = 0; i < tasks.size(); i++) {
+        String platformName = tasks.get(i).get();
+        if (platformName != null) {
+          cancel(tasks, i + 1);
+          context.answeredBy(detectors[i]);
+          return platformName;
+        }
+      }
+      return null;
+    } catch (InterruptedException e) {
+      cancel(tasks, 0);
+      String platformName = detect(context);
+      Thread.currentThread().interrupt();
+      return platformName;
+    } catch (ExecutionException e) {
+      cancel(tasks, 0);
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error)cause;
+      }
+      throw new RuntimeException(cause);
+    }
+  }
+
+  private static String detectQuietly(final PlatformDetector detector, final ProbeContext context) {
+    context.probing(detector);
+    DetectionListener listener = context.getListener();
+    if (listener == null) {
+      try {
+        return detector.detect(context);
+      } catch (IOException e) {
+        return null;
+      }
+    }
+
+    long start = System.nanoTime();
+    String platformName = null;
+    DetectionTrace.Outcome outcome = DetectionTrace.Outcome.FAILED;
+    try {
+      platformName = detector.detect(context);
+      outcome = platformName != null ? DetectionTrace.Outcome.ANSWERED : DetectionTrace.Outcome.NO_ANSWER;
+    } catch (NoSuchFileException e) {
+      outcome = DetectionTrace.Outcome.NO_ANSWER;
+    } catch (IOException e) {
+      // reported as failed
+    }
+    listener.probed(detector.getId(), null, outcome, 0, System.nanoTime() - start);
+    return platformName;
+  }
+
+  private static void cancel(final List<FutureTask<String>> tasks, final int from) {
+    for (int i = from; i < tasks.size(); i++) {
+      tasks.get(i).cancel(true);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Result of a single scan of the /etc directory.
+ * <br>
+ * It remembers, for each of the release file suffixes ("-release", "_version"), the first matching file name
+ * in alphabetical order, and which of the well known release files are present, so that the detection chain
+ * never has to list the directory twice nor open files that are not there.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class EtcIndex {
+
+  static final String RELEASE_SUFFIX = "-release";
+  static final String VERSION_SUFFIX = "_version";
+
+  private static final String[] SUFFIXES = { RELEASE_SUFFIX, VERSION_SUFFIX };
+  private static final String[] KNOWN_FILES = { "lsb-release", "os-release", "system-release", "issue" };
+
+  private final Path dir;
+  private final boolean exists;
+  private final String[] firstBySuffix;
+  private final boolean[] knownFilesPresent;
+
+  private EtcIndex(final Path dir, final boolean exists, final String[] firstBySuffix, final boolean[] knownFilesPresent) {
+    this.dir = dir;
+    this.exists = exists;
+    this.firstBySuffix = firstBySuffix;
+    this.knownFilesPresent = knownFilesPresent;
+  }
+
+  static EtcIndex scan(final Path dir) {
+    String[] firstBySuffix = new String[SUFFIXES.length];
+    boolean[] knownFilesPresent = new boolean[KNOWN_FILES.length];
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+      for (Path entry : entries) {
+        String fileName = entry.getFileName().toString();
+        for (int i = 0; i < SUFFIXES.length; i++) {
+          if (fileName.endsWith(SUFFIXES[i]) && (firstBySuffix[i] == null || fileName.compareTo(firstBySuffix[i]) < 0)) {
+            firstBySuffix[i] = fileName;
+          }
+        }
+        for (int i = 0; i < KNOWN_FILES.length; i++) {
+          if (fileName.equals(KNOWN_FILES[i])) {
+            knownFilesPresent[i] = true;
+          }
+        }
+      }
+    } catch (IOException e) {
+      return new EtcIndex(dir, false, firstBySuffix, knownFilesPresent);
+    }
+    return new EtcIndex(dir, true, firstBySuffix, knownFilesPresent);
+  }
+
+  Path getDir() {
+    return dir;
+  }
+
+  boolean exists() {
+    return exists;
+  }
+
+  /**
+   * @return the first file, in alphabetical order, whose name ends with the given suffix, or null
+   */
+  Path firstEndingWith(final String suffix) {
+    for (int i = 0; i < SUFFIXES.length; i++) {
+      if (SUFFIXES[i].equals(suffix)) {
+        return firstBySuffix[i] == null ? null : dir.resolve(firstBySuffix[i]);
+      }
+    }
+    throw new IllegalArgumentException("Suffix " + suffix + " is not indexed");
+  }
+
+  /**
+   * @return whether one of the well known release files (lsb-release, os-release, system-release, issue) is present
+   */
+  boolean contains(final String knownFile) {
+    for (int i = 0; i < KNOWN_FILES.length; i++) {
+      if (KNOWN_FILES[i].equals(knownFile)) {
+        return knownFilesPresent[i];
+      }
+    }
+    throw new IllegalArgumentException("File " + knownFile + " is not indexed");
+  }
+}
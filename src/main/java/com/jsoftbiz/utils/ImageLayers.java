@@ -0,0 +1,284 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the platform name of a container image from the tar streams of its layers, without extracting them.
+ * <br>
+ * The layers are walked from the top one down, as the union file system sees them : the first layer holding a
+ * path wins, a ".wh.name" whiteout hides the path from the layers below and a ".wh..wh..opq" one hides the whole
+ * directory. Only the release files of /etc (and /usr/lib/os-release, the usual target of /etc/os-release) are
+ * kept, and they are given to the same parsers and in the same order as for a file system : lsb-release,
+ * os-release, system-release, the first *-release, the first *_version, then issue.
+ * <br>
+ * Reading stops as soon as the answer can not change any more, i.e. when every source before the one answering
+ * is known to be there or not. As a file missing from the upper layers may still come from a lower one, that is
+ * when a source answers in the layer being read, or at the end of the last layer.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class ImageLayers {
+
+  /**
+   * Compared by identity, as no parser can return this instance.
+   */
+  private static final String UNDECIDED = new String("undecided");
+  private static final String ETC = "etc/";
+  private static final String USR_LIB_OS_RELEASE = "usr/lib/os-release";
+  private static final String WHITEOUT_PREFIX = ".wh.";
+  private static final String OPAQUE_WHITEOUT = ".wh..wh..opq";
+  private static final String[] KNOWN_FILES = { "lsb-release", "os-release", "system-release" };
+  private static final String[] SUFFIXES = { EtcIndex.RELEASE_SUFFIX, EtcIndex.VERSION_SUFFIX };
+  private static final String ISSUE = "issue";
+  private static final int MAX_SYMLINKS = 8;
+
+  private final Map<String, Entry> files = new HashMap<String, Entry>();
+  private final Set<String> linkTargets = new HashSet<String>();
+  private final Set<String> hidden = new HashSet<String>();
+  private final Set<String> opaque = new HashSet<String>();
+
+  private ImageLayers() {
+  }
+
+  /**
+   * @param layers the tar or tar.gz layer streams, bottom layer first as in the image manifest, all of which
+   *               are closed by the time this method returns
+   * @return the platform name, or null if none of the release files is there
+   */
+  static String detectPlatformName(final List<? extends InputStream> layers) throws IOException {
+    try {
+      ImageLayers image = new ImageLayers();
+      for (int layer = layers.size() - 1; layer >= 0; layer--) {
+        String platformName = image.readLayer(layers.get(layer), layers.size() - 1 - layer);
+        if (platformName != UNDECIDED) {
+          return platformName;
+        }
+      }
+      return image.decide(true);
+    } finally {
+      for (InputStream layer : layers) {
+        layer.close();
+      }
+    }
+  }
+
+  /**
+   * @param depth 0 for the top layer
+   * @return the platform name, null if it is decided that there is none, or {@link #UNDECIDED}
+   */
+  private String readLayer(final InputStream layer, final int depth) throws IOException {
+    Set<String> layerHidden = new HashSet<String>();
+    Set<String> layerOpaque = new HashSet<String>();
+    try (TarReader tar = new TarReader(layer)) {
+      while (tar.next()) {
+        String path = normalize(tar.name());
+        int slash = path.lastIndexOf('/');
+        String fileName = path.substring(slash + 1);
+        String dir = slash < 0 ? "" : path.substring(0, slash + 1);
+        // whiteouts only hide the layers below
+        if (fileName.startsWith(WHITEOUT_PREFIX)) {
+          if (fileName.equals(OPAQUE_WHITEOUT)) {
+            layerOpaque.add(dir);
+          } else {
+            layerHidden.add(dir + fileName.substring(WHITEOUT_PREFIX.length()));
+          }
+          continue;
+        }
+        if (!isReleaseFile(path, dir, fileName) || isHidden(path)) {
+          continue;
+        }
+        Entry upper = files.get(path);
+        if (upper != null && upper.depth < depth) {
+          continue;
+        }
+
+        Entry entry;
+        if (tar.type() == TarReader.REGULAR) {
+          entry = new Entry(depth, tar.readContent(ReleaseFileReader.DEFAULT_MAX_SIZE), null);
+        } else if (tar.type() == TarReader.SYMBOLIC_LINK || tar.type() == TarReader.HARD_LINK) {
+          // hard links name a path of the archive, symbolic links are relative to their directory
+          String linkName = tar.linkName();
+          String target = normalize(tar.type() == TarReader.HARD_LINK || linkName.startsWith("/") ? linkName : dir + linkName);
+          linkTargets.add(target);
+          entry = new Entry(depth, null, target);
+        } else {
+          entry = new Entry(depth, null, null);
+        }
+        files.put(path, entry);
+
+        String platformName = decide(false);
+        if (platformName != UNDECIDED) {
+          return platformName;
+        }
+      }
+    }
+    hidden.addAll(layerHidden);
+    opaque.addAll(layerOpaque);
+    return decide(false);
+  }
+
+  /**
+   * @param complete whether all the layers were read, so that the files not found are known to be missing
+   */
+  private String decide(final boolean complete) {
+    for (String knownFile : KNOWN_FILES) {
+      String platformName = parse(ETC + knownFile, knownFile, complete);
+      if (platformName != null) {
+        return platformName;
+      }
+    }
+    if (!complete) {
+      // a lower layer may still add a file coming first in alphabetical order
+      return UNDECIDED;
+    }
+    for (String suffix : SUFFIXES) {
+      String first = null;
+      for (String path : files.keySet()) {
+        if (path.startsWith(ETC) && path.indexOf('/', ETC.length()) < 0 && path.endsWith(suffix) && (first == null || path.compareTo(first) < 0)) {
+          first = path;
+        }
+      }
+      String platformName = first != null ? parse(first, null, true) : null;
+      if (platformName != null) {
+        return platformName;
+      }
+    }
+    return parse(ETC + ISSUE, null, true);
+  }
+
+  /**
+   * @param knownFile "lsb-release" or "os-release" to parse the file as such, or null for a free form release file
+   * @return the platform name given by the file, null if it has none or is missing, or {@link #UNDECIDED}
+   * if it may still come from a lower layer
+   */
+  private String parse(final String path, final String knownFile, final boolean complete) {
+    String resolved = path;
+    for (int i = 0; i <= MAX_SYMLINKS; i++) {
+      Entry entry = files.get(resolved);
+      if (entry == null) {
+        return complete || isHidden(resolved) ? null : UNDECIDED;
+      }
+      if (entry.linkTarget == null) {
+        if (entry.content == null) {
+          return null;
+        }
+        CharSequence content = new String(entry.content, StandardCharsets.UTF_8);
+        if ("lsb-release".equals(knownFile)) {
+          return ReleaseFiles.parseLsbPlatformName(content);
+        }
+        if ("os-release".equals(knownFile)) {
+          return ReleaseFiles.parseOsReleasePlatformName(content);
+        }
+        return ReleaseFiles.parsePlatformName(content);
+      }
+      resolved = entry.linkTarget;
+    }
+    return null;
+  }
+
+  /**
+   * The release files are the known and suffixed files of /etc, /usr/lib/os-release and the link targets.
+   * The targets of links found in a layer are only kept from that layer down.
+   */
+  private boolean isReleaseFile(final String path, final String dir, final String fileName) {
+    if (dir.equals(ETC)) {
+      for (String knownFile : KNOWN_FILES) {
+        if (fileName.equals(knownFile)) {
+          return true;
+        }
+      }
+      for (String suffix : SUFFIXES) {
+        if (fileName.endsWith(suffix)) {
+          return true;
+        }
+      }
+      if (fileName.equals(ISSUE)) {
+        return true;
+      }
+    }
+    return path.equals(USR_LIB_OS_RELEASE) || linkTargets.contains(path);
+  }
+
+  /**
+   * @return whether the path, or one of its parents, was removed by an upper layer
+   */
+  private boolean isHidden(final String path) {
+    if (hidden.isEmpty() && opaque.isEmpty()) {
+      return false;
+    }
+    if (hidden.contains(path)) {
+      return true;
+    }
+    for (int slash = path.indexOf('/'); slash >= 0; slash = path.indexOf('/', slash + 1)) {
+      if (hidden.contains(path.substring(0, slash)) || opaque.contains(path.substring(0, slash + 1))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the path without its leading "./" or "/", its trailing "/" and its "." and ".." parts
+   */
+  static String normalize(final String path) {
+    StringBuilder normalized = new StringBuilder(path.length());
+    int start = 0;
+    while (start <= path.length()) {
+      int end = path.indexOf('/', start);
+      if (end < 0) {
+        end = path.length();
+      }
+      String part = path.substring(start, end);
+      if (part.equals("..")) {
+        int previous = normalized.lastIndexOf("/");
+        normalized.setLength(Math.max(previous, 0));
+      } else if (!part.isEmpty() && !part.equals(".")) {
+        if (normalized.length() > 0) {
+          normalized.append('/');
+        }
+        normalized.append(part);
+      }
+      start = end + 1;
+    }
+    return normalized.toString();
+  }
+
+  private static final class Entry {
+    private final int depth;
+    private final byte[] content;
+    private final String linkTarget;
+
+    /**
+     * @param content    the content of a regular file, null for a link or any other type of entry
+     * @param linkTarget the normalized target of a link
+     */
+    Entry(final int depth, final byte[] content, final String linkTarget) {
+      this.depth = depth;
+      this.content = content;
+      this.linkTarget = linkTarget;
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.nio.file.Path;
+
+/**
+ * Turns a detection run into JDK Flight Recorder events : one for the whole detection, carrying the platform name,
+ * one per probe, and one for the cache lookup. They show up in the "OS Platform Finder" category of the recordings.
+ * <br>
+ * This is the only class referencing jdk.jfr, it is never loaded when the JVM has no Flight Recorder,
+ * see {@link JfrSupport}.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class JfrDetectionListener implements DetectionListener {
+
+  private volatile DetectionEvent detectionEvent;
+
+  /**
+   * @return whether a recording may be running, events are not worth creating otherwise
+   */
+  static boolean isRecording() {
+    return FlightRecorder.isInitialized();
+  }
+
+  @Override
+  public void detectionStarted(final Path root) {
+    DetectionEvent event = new DetectionEvent();
+    if (event.isEnabled()) {
+      event.root = String.valueOf(root);
+      event.begin();
+      detectionEvent = event;
+    }
+  }
+
+  @Override
+  public void probed(final String detectorId, final Path path, final DetectionTrace.Outcome outcome, final long bytesRead, final long nanos) {
+    if (outcome == DetectionTrace.Outcome.CACHE_HIT || outcome == DetectionTrace.Outcome.CACHE_MISS) {
+      CacheEvent event = new CacheEvent();
+      if (event.isEnabled()) {
+        event.path = String.valueOf(path);
+        event.hit = outcome == DetectionTrace.Outcome.CACHE_HIT;
+        event.lookupDuration = nanos;
+        event.commit();
+      }
+    } else {
+      ProbeEvent event = new ProbeEvent();
+      if (event.isEnabled()) {
+        event.detectorId = detectorId;
+        event.path = path == null ? null : path.toString();
+        event.outcome = outcome.name();
+        event.bytesRead = bytesRead;
+        event.probeDuration = nanos;
+        event.commit();
+      }
+    }
+  }
+
+  @Override
+  public void detectionEnded(final String platformName, final String detectorId, final long nanos) {
+    DetectionEvent event = detectionEvent;
+    if (event != null) {
+      detectionEvent = null;
+      event.end();
+      event.platformName = platformName;
+      event.detectorId = detectorId;
+      event.commit();
+    }
+  }
+
+  @Name("com.jsoftbiz.utils.Detection")
+  @Label("OS Platform Detection")
+  @Description("Detection of the OS platform name of a root file system")
+  @Category("OS Platform Finder")
+  static final class DetectionEvent extends Event {
+    @Label("Root")
+    String root;
+
+    @Label("Platform Name")
+    String platformName;
+
+    @Label("Detector")
+    @Description("Id of the detector that gave the platform name, null if it is the fallback on the OS name")
+    String detectorId;
+  }
+
+  @Name("com.jsoftbiz.utils.Probe")
+  @Label("OS Platform Probe")
+  @Description("File read or directory scan of a detector, or the outcome of a detector when there is no path")
+  @Category("OS Platform Finder")
+  @StackTrace(false)
+  static final class ProbeEvent extends Event {
+    @Label("Detector")
+    String detectorId;
+
+    @Label("Path")
+    String path;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+
+    @Label("Probe Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long probeDuration;
+  }
+
+  @Name("com.jsoftbiz.utils.Cache")
+  @Label("OS Platform Cache Lookup")
+  @Category("OS Platform Finder")
+  @StackTrace(false)
+  static final class CacheEvent extends Event {
+    @Label("Path")
+    String path;
+
+    @Label("Hit")
+    boolean hit;
+
+    @Label("Lookup Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long lookupDuration;
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+/**
+ * Gate of the optional JDK Flight Recorder support. The library targets Java 8, where jdk.jfr only exists
+ * from 8u262, so the {@link JfrDetectionListener} is only touched once the Flight Recorder API is known to be there.
+ * <br>
+ * Nothing is recorded, and no event is allocated, unless a recording has been started in the JVM.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class JfrSupport {
+
+  private static final boolean AVAILABLE = isAvailable();
+
+  private JfrSupport() {
+  }
+
+  /**
+   * @return a listener emitting the JFR events of one detection run, or null if no recording can be running
+   */
+  static DetectionListener listener() {
+    if (!AVAILABLE) {
+      return null;
+    }
+    try {
+      return JfrDetectionListener.isRecording() ? new JfrDetectionListener() : null;
+    } catch (LinkageError e) {
+      return null;
+    }
+  }
+
+  private static boolean isAvailable() {
+    try {
+      Class.forName("jdk.jfr.FlightRecorder", false, JfrSupport.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    } catch (LinkageError e) {
+      return false;
+    }
+  }
+}
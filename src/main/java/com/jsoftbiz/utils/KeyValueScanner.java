@@ -0,0 +1,173 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+/**
+ * Single pass tokenizer for the shell-like KEY=value lines of os-release and lsb-release files.
+ * <br>
+ * A line is walked once by {@link #scan(CharSequence, int, int)}, which only records offsets. Keys are
+ * then compared in place with {@link #keyIs(String)}, and a String is only created by {@link #value()}
+ * for the values the caller decides to keep.
+ * <br>
+ * It follows the os-release format : lines starting with '#' are comments, a key is directly followed by '='
+ * (a line like "NAME = value" is not an assignment), values may be enclosed
+ * in single or double quotes, and backslash escapes are honoured outside of single quotes.
+ * A scanner instance is reusable but not thread safe.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class KeyValueScanner {
+
+  private CharSequence line;
+  private int keyStart;
+  private int keyEnd;
+  private int valueStart;
+  private int valueEnd;
+  private char quote;
+  private boolean escaped;
+
+  boolean scan(final CharSequence line) {
+    return scan(line, 0, line.length());
+  }
+
+  /**
+   * @return true if the line between start and end is a KEY=value assignment, false for blank lines,
+   * comments and anything else
+   */
+  boolean scan(final CharSequence line, final int start, final int end) {
+    this.line = line;
+    int i = skipWhitespace(line, start, end);
+    if (i == end || line.charAt(i) == '#') {
+      return false;
+    }
+    int equalsIndex = i;
+    while (equalsIndex < end && line.charAt(equalsIndex) != '=') {
+      equalsIndex++;
+    }
+    if (equalsIndex == end) {
+      return false;
+    }
+    keyStart = i;
+    keyEnd = equalsIndex;
+    // as in a shell assignment, nothing may separate the key from '='
+    if (keyEnd == keyStart || Character.isWhitespace(line.charAt(keyEnd - 1))) {
+      return false;
+    }
+
+    int rawStart = skipWhitespace(line, equalsIndex + 1, end);
+    int rawEnd = trimEnd(line, rawStart, end);
+    quote = 0;
+    escaped = false;
+    if (rawStart < rawEnd) {
+      char firstChar = line.charAt(rawStart);
+      if (firstChar == '"' || firstChar == '\'') {
+        int closingIndex = findClosingQuote(line, rawStart + 1, rawEnd, firstChar);
+        if (closingIndex >= 0) {
+          quote = firstChar;
+          valueStart = rawStart + 1;
+          valueEnd = closingIndex;
+          return true;
+        }
+      }
+    }
+    valueStart = rawStart;
+    valueEnd = rawEnd;
+    if (quote == 0) {
+      for (int j = valueStart; j < valueEnd; j++) {
+        if (line.charAt(j) == '\\') {
+          escaped = true;
+          break;
+        }
+      }
+    }
+    return true;
+  }
+
+  boolean keyIs(final String key) {
+    int length = keyEnd - keyStart;
+    if (key.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (line.charAt(keyStart + i) != key.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  boolean isValueEmpty() {
+    return valueEnd == valueStart;
+  }
+
+  String key() {
+    return line.subSequence(keyStart, keyEnd).toString();
+  }
+
+  String value() {
+    if (!escaped) {
+      return line.subSequence(valueStart, valueEnd).toString();
+    }
+    StringBuilder sb = new StringBuilder(valueEnd - valueStart);
+    for (int i = valueStart; i < valueEnd; i++) {
+      char c = line.charAt(i);
+      if (c == '\\' && i + 1 < valueEnd) {
+        char next = line.charAt(i + 1);
+        // inside double quotes the shell only unescapes its own special characters
+        if (quote == 0 || isDoubleQuoteEscapable(next)) {
+          sb.append(next);
+          i++;
+          continue;
+        }
+      }
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  private int findClosingQuote(final CharSequence line, final int start, final int end, final char quoteChar) {
+    for (int i = start; i < end; i++) {
+      char c = line.charAt(i);
+      if (c == '\\' && quoteChar == '"') {
+        escaped = true;
+        i++;
+      } else if (c == quoteChar) {
+        return i;
+      }
+    }
+    escaped = false;
+    return -1;
+  }
+
+  private static boolean isDoubleQuoteEscapable(final char c) {
+    return c == '"' || c == '\\' || c == '$' || c == '`';
+  }
+
+  private static int skipWhitespace(final CharSequence line, int start, final int end) {
+    while (start < end && Character.isWhitespace(line.charAt(start))) {
+      start++;
+    }
+    return start;
+  }
+
+  private static int trimEnd(final CharSequence line, final int start, int end) {
+    while (end > start && Character.isWhitespace(line.charAt(end - 1))) {
+      end--;
+    }
+    return end;
+  }
+}
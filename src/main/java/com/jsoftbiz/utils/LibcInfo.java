@@ -0,0 +1,439 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The C library of a Linux machine, glibc or musl, and its version, which decide the variant of a native library
+ * to load.
+ * <br>
+ * Nothing is run, not even ldd : forking a JVM with a large heap is expensive. The flavour comes from the program
+ * interpreter (PT_INTERP) in the ELF header of /proc/self/exe, i.e. of the java launcher, or else from the names of
+ * the dynamic loaders in /lib and /lib64 (ld-linux-*.so.2 or ld-musl-*.so.1). The glibc version is read from the
+ * name of libc-X.Y.so for glibc before 2.34, or else from the highest GLIBC_2.x symbol version defined by libc.so.6,
+ * read from its ELF version definitions in a few small reads. The musl version comes from the apk database.
+ *
+ * @author Aurelien Broszniowski
+ */
+public final class LibcInfo {
+
+  public enum Flavor {
+    GLIBC,
+    MUSL
+  }
+
+  private static final int PT_INTERP = 3;
+  private static final int SHT_GNU_VERDEF = 0x6FFFFFFD;
+  private static final int MAX_INTERPRETER_LENGTH = 4096;
+  private static final int MAX_SECTIONS = 1024;
+  private static final int MAX_VERSION_DEFINITIONS = 1024;
+  private static final int MAX_SYMLINKS = 8;
+  private static final int MAX_STRINGS_SIZE = 1024 * 1024;
+  private static final String GLIBC_SYMBOL_VERSION = "GLIBC_";
+  private static final String[] LIBRARY_DIRECTORIES = { "lib64", "lib", "usr/lib64", "usr/lib" };
+
+  private final Flavor flavor;
+  private final String version;
+  private final String interpreter;
+
+  LibcInfo(final Flavor flavor, final String version, final String interpreter) {
+    this.flavor = flavor;
+    this.version = version;
+    this.interpreter = interpreter;
+  }
+
+  /**
+   * Reads the C library information from the root file system.
+   * Missing or unreadable files only mean that the information is unknown.
+   *
+   * @param root "/" for the running host, or the root of another file system, which is then inspected through
+   *             its loaders only, unless it has a proc/self/exe
+   */
+  public static LibcInfo read(final Path root) {
+    String interpreter = interpreter(root.resolve("proc/self/exe"));
+    Path loader = null;
+    if (interpreter != null) {
+      loader = resolve(root, root.resolve(interpreter.substring(1)));
+    } else {
+      for (String directory : new String[] { "lib", "lib64" }) {
+        Path found = findLoader(root.resolve(directory));
+        if (found != null) {
+          loader = resolve(root, found);
+          interpreter = "/" + directory + "/" + found.getFileName();
+          break;
+        }
+      }
+    }
+    Flavor flavor = interpreter != null ? flavor(interpreter.substring(interpreter.lastIndexOf('/') + 1)) : null;
+
+    String version = null;
+    if (flavor == Flavor.GLIBC) {
+      version = glibcVersion(root, loader != null ? loader.getParent() : null);
+    } else if (flavor == Flavor.MUSL) {
+      version = apkVersion(root.resolve("lib/apk/db/installed"), "musl");
+    }
+    return new LibcInfo(flavor, version, interpreter);
+  }
+
+  /**
+   * @return the flavor of the C library, or null if unknown, e.g. outside of Linux or for a static binary
+   */
+  public Flavor getFlavor() {
+    return flavor;
+  }
+
+  public boolean isGlibc() {
+    return flavor == Flavor.GLIBC;
+  }
+
+  public boolean isMusl() {
+    return flavor == Flavor.MUSL;
+  }
+
+  /**
+   * @return the version of the C library, e.g. "2.36" or "1.2.4", or null if unknown
+   */
+  public String getVersion() {
+    return version;
+  }
+
+  /**
+   * @return the dynamic loader, e.g. "/lib64/ld-linux-x86-64.so.2", or null if unknown
+   */
+  public String getInterpreter() {
+    return interpreter;
+  }
+
+  @Override
+  public String toString() {
+    return "LibcInfo{" +
+           "Flavor = " + flavor + ", " +
+           "Version = " + version + ", " +
+           "Interpreter = " + interpreter +
+           '}';
+  }
+
+  /**
+   * @return the flavor of the loader of that name, or null if it is not a loader name
+   */
+  static Flavor flavor(final String loaderName) {
+    if (loaderName.startsWith("ld-musl-")) {
+      return Flavor.MUSL;
+    }
+    if (loaderName.startsWith("ld-linux") || loaderName.startsWith("ld64.so.") || loaderName.startsWith("ld.so.")) {
+      return Flavor.GLIBC;
+    }
+    return null;
+  }
+
+  /**
+   * Reads the program interpreter from the program headers of an ELF file, 32 or 64 bits, of either byte order.
+   *
+   * @return the interpreter, an absolute path, or null if the file is not a dynamically linked ELF file
+   */
+  static String interpreter(final Path elf) {
+    try (FileChannel channel = FileChannel.open(elf, StandardOpenOption.READ)) {
+      ByteBuffer header = elfHeader(channel);
+      if (header == null) {
+        return null;
+      }
+      boolean is64 = header.get(4) == 2;
+      long programHeaders = is64 ? header.getLong(32) : header.getInt(28) & 0xFFFFFFFFL;
+      int entrySize = header.getShort(is64 ? 54 : 42) & 0xFFFF;
+      int entryCount = header.getShort(is64 ? 56 : 44) & 0xFFFF;
+      if (entrySize < (is64 ? 56 : 32) || !within(channel, programHeaders, (long)entrySize * entryCount)) {
+        return null;
+      }
+
+      ByteBuffer entry = ByteBuffer.allocate(entrySize).order(header.order());
+      for (int i = 0; i < entryCount; i++) {
+        // through Buffer, the covariant override of Java 9+ does not exist on Java 8
+        ((Buffer)entry).clear();
+        if (readFully(channel, entry, programHeaders + (long)i * entrySize) < entrySize) {
+          return null;
+        }
+        if (entry.getInt(0) == PT_INTERP) {
+          long offset = is64 ? entry.getLong(8) : entry.getInt(4) & 0xFFFFFFFFL;
+          long size = is64 ? entry.getLong(32) : entry.getInt(16) & 0xFFFFFFFFL;
+          if (size < 2 || size > MAX_INTERPRETER_LENGTH || !within(channel, offset, size)) {
+            return null;
+          }
+          ByteBuffer path = ByteBuffer.allocate((int)size);
+          int read = readFully(channel, path, offset);
+          // the path is NUL terminated
+          int length = 0;
+          while (length < read && path.get(length) != 0) {
+            length++;
+          }
+          String interpreter = new String(path.array(), 0, length, StandardCharsets.UTF_8);
+          return interpreter.startsWith("/") ? interpreter : null;
+        }
+      }
+      return null;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return the first loader in the directory, or null
+   */
+  private static Path findLoader(final Path directory) {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "ld*.so*")) {
+      for (Path file : files) {
+        if (flavor(file.getFileName().toString()) != null) {
+          return file;
+        }
+      }
+    } catch (IOException e) {
+      // no such directory
+    }
+    return null;
+  }
+
+  private static String glibcVersion(final Path root, final Path loaderDirectory) {
+    List<Path> directories = new ArrayList<Path>();
+    if (loaderDirectory != null) {
+      directories.add(loaderDirectory);
+    }
+    for (String directory : LIBRARY_DIRECTORIES) {
+      directories.add(root.resolve(directory));
+    }
+
+    for (Path directory : directories) {
+      // before 2.34, libc.so.6 is a link to libc-X.Y.so
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "libc-*.so")) {
+        for (Path file : files) {
+          String name = file.getFileName().toString();
+          String version = name.substring("libc-".length(), name.length() - ".so".length());
+          if (isVersion(version)) {
+            return version;
+          }
+        }
+      } catch (IOException e) {
+        continue;
+      }
+      Path libc = resolve(root, directory.resolve("libc.so.6"));
+      if (libc != null) {
+        String version = symbolVersion(libc);
+        if (version != null) {
+          return version;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads the version definitions (SHT_GNU_verdef) of the library, i.e. the GLIBC_2.2.5 ... GLIBC_2.36 versions
+   * of its symbols. Each release adding symbols defines its own version, so the highest one is the release, or the
+   * latest release a native library built against it can require.
+   *
+   * @return the highest GLIBC_ version, e.g. "2.36", or null
+   */
+  static String symbolVersion(final Path libc) {
+    try (FileChannel channel = FileChannel.open(libc, StandardOpenOption.READ)) {
+      ByteBuffer header = elfHeader(channel);
+      if (header == null) {
+        return null;
+      }
+      boolean is64 = header.get(4) == 2;
+      long sectionHeaders = is64 ? header.getLong(40) : header.getInt(32) & 0xFFFFFFFFL;
+      int entrySize = header.getShort(is64 ? 58 : 46) & 0xFFFF;
+      int entryCount = header.getShort(is64 ? 60 : 48) & 0xFFFF;
+      if (entrySize < (is64 ? 64 : 40) || entryCount > MAX_SECTIONS || !within(channel, sectionHeaders, (long)entrySize * entryCount)) {
+        return null;
+      }
+      ByteBuffer sections = ByteBuffer.allocate(entrySize * entryCount).order(header.order());
+      if (readFully(channel, sections, sectionHeaders) < sections.capacity()) {
+        return null;
+      }
+
+      for (int i = 0; i < entryCount; i++) {
+        int section = i * entrySize;
+        if (sections.getInt(section + 4) != SHT_GNU_VERDEF) {
+          continue;
+        }
+        long offset = is64 ? sections.getLong(section + 24) : sections.getInt(section + 16) & 0xFFFFFFFFL;
+        long size = is64 ? sections.getLong(section + 32) : sections.getInt(section + 20) & 0xFFFFFFFFL;
+        int link = sections.getInt(section + (is64 ? 40 : 24));
+        if (link < 0 || link >= entryCount || size > MAX_VERSION_DEFINITIONS * 28L || !within(channel, offset, size)) {
+          return null;
+        }
+        int stringSection = link * entrySize;
+        long stringsOffset = is64 ? sections.getLong(stringSection + 24) : sections.getInt(stringSection + 16) & 0xFFFFFFFFL;
+        long stringsSize = is64 ? sections.getLong(stringSection + 32) : sections.getInt(stringSection + 20) & 0xFFFFFFFFL;
+        if (stringsSize > MAX_STRINGS_SIZE || !within(channel, stringsOffset, stringsSize)) {
+          return null;
+        }
+        ByteBuffer definitions = ByteBuffer.allocate((int)size).order(header.order());
+        readFully(channel, definitions, offset);
+        ByteBuffer strings = ByteBuffer.allocate((int)stringsSize);
+        readFully(channel, strings, stringsOffset);
+        return highestVersion(definitions, strings);
+      }
+      return null;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Walks the Elf_Verdef entries, whose first Elf_Verdaux gives the name of the version.
+   */
+  private static String highestVersion(final ByteBuffer definitions, final ByteBuffer strings) {
+    OsRelease.Version highest = null;
+    String highestText = null;
+    int definition = 0;
+    for (int i = 0; i < MAX_VERSION_DEFINITIONS && definition + 20 <= definitions.position(); i++) {
+      int aux = definition + definitions.getInt(definition + 12);
+      int name = aux >= 0 && aux + 8 <= definitions.position() ? definitions.getInt(aux) : -1;
+      if (name >= 0 && name < strings.position()) {
+        int length = 0;
+        while (name + length < strings.position() && strings.get(name + length) != 0) {
+          length++;
+        }
+        String version = new String(strings.array(), name, length, StandardCharsets.US_ASCII);
+        if (version.startsWith(GLIBC_SYMBOL_VERSION) && isVersion(version.substring(GLIBC_SYMBOL_VERSION.length()))) {
+          version = version.substring(GLIBC_SYMBOL_VERSION.length());
+          OsRelease.Version parsed = OsRelease.Version.parse(version);
+          if (parsed != null && (highest == null || parsed.compareTo(highest) > 0)) {
+            highest = parsed;
+            highestText = version;
+          }
+        }
+      }
+      int next = definitions.getInt(definition + 16);
+      if (next <= 0) {
+        break;
+      }
+      definition += next;
+    }
+    return highestText;
+  }
+
+  /**
+   * The apk database is made of stanzas of "K:value" lines, the package name being P and its version V.
+   *
+   * @return the version of the package without its "-rN" revision, or null
+   */
+  static String apkVersion(final Path installed, final String packageName) {
+    try (ProcLineReader lines = new ProcLineReader(installed)) {
+      boolean inPackage = false;
+      while (lines.next()) {
+        CharSequence line = lines.line();
+        int length = line.length();
+        if (length == 0) {
+          inPackage = false;
+        } else if (length > 2 && line.charAt(1) == ':') {
+          if (line.charAt(0) == 'P') {
+            inPackage = SysFiles.regionEquals(line, 2, length, packageName);
+          } else if (inPackage && line.charAt(0) == 'V') {
+            int end = length;
+            for (int i = length - 1; i > 2; i--) {
+              if (line.charAt(i) == '-') {
+                end = i;
+                break;
+              }
+            }
+            return line.subSequence(2, end).toString();
+          }
+        }
+      }
+    } catch (IOException e) {
+      // not an apk based distribution
+    }
+    return null;
+  }
+
+  /**
+   * Follows the symbolic links of the file inside the root, absolute links being relative to the root.
+   *
+   * @return the target, or null if it does not exist
+   */
+  private static Path resolve(final Path root, Path file) {
+    try {
+      for (int i = 0; i < MAX_SYMLINKS && Files.isSymbolicLink(file); i++) {
+        Path target = Files.readSymbolicLink(file);
+        file = target.isAbsolute() ? root.resolve(target.toString().substring(1)) : file.resolveSibling(target);
+      }
+    } catch (IOException e) {
+      return null;
+    }
+    return Files.isRegularFile(file) ? file : null;
+  }
+
+  /**
+   * @return the ELF header, in the byte order of the file, or null if it is not an ELF file
+   */
+  private static ByteBuffer elfHeader(final FileChannel channel) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(64);
+    if (readFully(channel, header, 0) < 52 || header.getInt(0) != 0x7F454C46) {
+      return null;
+    }
+    return header.order(header.get(5) == 2 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * The offsets and sizes of a corrupt or truncated file can be anything, including negative 64-bit values.
+   *
+   * @return whether the range lies within the file
+   */
+  private static boolean within(final FileChannel channel, final long offset, final long size) throws IOException {
+    return offset >= 0 && size >= 0 && offset <= channel.size() - size;
+  }
+
+  private static int readFully(final FileChannel channel, final ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        break;
+      }
+      position += read;
+    }
+    return buffer.position();
+  }
+
+  /**
+   * @return whether the text is made of at least two numbers separated by dots
+   */
+  private static boolean isVersion(final String text) {
+    int dot = text.indexOf('.');
+    if (dot <= 0 || dot == text.length() - 1) {
+      return false;
+    }
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if ((c < '0' || c > '9') && (c != '.' || text.charAt(i - 1) == '.')) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
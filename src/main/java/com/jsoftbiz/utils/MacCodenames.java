@@ -0,0 +1,154 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Codenames of the macOS and Darwin releases, loaded from the bundled mac-codenames.properties resource
+ * when the first Mac platform is resolved, and held in arrays indexed by version number.
+ * <br>
+ * Looking a codename up, and reading the numbers of a version string with {@link #versionNumber(String, int)},
+ * allocate nothing.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class MacCodenames {
+
+  static final String RESOURCE = "mac-codenames.properties";
+
+  private static final String MAC_OS_10_PREFIX = "macos.10.";
+  private static final String MAC_OS_PREFIX = "macos.";
+  private static final String DARWIN_PREFIX = "darwin.";
+
+  // indexed by minor version
+  private static final String[] MAC_OS_10;
+  // indexed by major version
+  private static final String[] MAC_OS;
+  private static final String[] DARWIN;
+
+  static {
+    Properties codenames = load();
+    MAC_OS_10 = table(codenames, MAC_OS_10_PREFIX, null);
+    MAC_OS = table(codenames, MAC_OS_PREFIX, MAC_OS_10_PREFIX);
+    DARWIN = table(codenames, DARWIN_PREFIX, null);
+  }
+
+  private MacCodenames() {
+  }
+
+  /**
+   * @return the codename of the macOS 10.minor release, or null if unknown
+   */
+  static String macOs10(final int minor) {
+    return lookup(MAC_OS_10, minor);
+  }
+
+  /**
+   * @return the codename of the macOS release from 11 on, or null if unknown
+   */
+  static String macOs(final int major) {
+    return lookup(MAC_OS, major);
+  }
+
+  /**
+   * @return the codename of the release with the Darwin kernel of that major version, or null if unknown
+   */
+  static String darwin(final int major) {
+    return lookup(DARWIN, major);
+  }
+
+  /**
+   * Reads a number of a dotted version in place, e.g. 1 for the minor version of "10.15.7".
+   *
+   * @param index the position of the number, 0 for the major version
+   * @return the number, or -1 if the version has no such number or if it is not made of digits only
+   */
+  static int versionNumber(final String version, final int index) {
+    if (version == null) {
+      return -1;
+    }
+    int length = version.length();
+    int start = 0;
+    for (int i = 0; i < index; i++) {
+      int dotIndex = version.indexOf('.', start);
+      if (dotIndex < 0) {
+        return -1;
+      }
+      start = dotIndex + 1;
+    }
+    int number = 0;
+    int i = start;
+    while (i < length && version.charAt(i) != '.') {
+      char c = version.charAt(i);
+      if (c < '0' || c > '9' || number > (Integer.MAX_VALUE - 9) / 10) {
+        return -1;
+      }
+      number = number * 10 + (c - '0');
+      i++;
+    }
+    return i == start ? -1 : number;
+  }
+
+  private static String lookup(final String[] table, final int index) {
+    return index >= 0 && index < table.length ? table[index] : null;
+  }
+
+  private static Properties load() {
+    Properties codenames = new Properties();
+    InputStream in = MacCodenames.class.getResourceAsStream(RESOURCE);
+    if (in == null) {
+      return codenames;
+    }
+    try {
+      try {
+        codenames.load(in);
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      // every codename is then unknown
+    }
+    return codenames;
+  }
+
+  /**
+   * @param excludedPrefix a more specific prefix whose keys belong to another table, or null
+   */
+  private static String[] table(final Properties codenames, final String prefix, final String excludedPrefix) {
+    String[] table = new String[0];
+    for (Map.Entry<Object, Object> entry : codenames.entrySet()) {
+      String key = (String)entry.getKey();
+      if (!key.startsWith(prefix) || (excludedPrefix != null && key.startsWith(excludedPrefix))) {
+        continue;
+      }
+      int index = versionNumber(key.substring(prefix.length()), 0);
+      if (index < 0 || key.indexOf('.', prefix.length()) >= 0) {
+        continue;
+      }
+      if (index >= table.length) {
+        table = Arrays.copyOf(table, index + 1);
+      }
+      table[index] = ((String)entry.getValue()).trim();
+    }
+    return table;
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The memory of a Linux machine : total, available and swap from /proc/meminfo, the transparent huge page mode,
+ * and the huge page pools of each page size under /sys/kernel/mm/hugepages.
+ * <br>
+ * Unlike the other facets, it is meant to be polled : {@link #refresh()} reads the files again into the same
+ * instance, with the same read buffer and the huge page pool paths listed once, so that polling allocates
+ * next to nothing. The values are only updated as a whole, under the instance lock.
+ *
+ * @author Aurelien Broszniowski
+ */
+public final class MemoryInfo {
+
+  /**
+   * Value of the sizes that could not be read.
+   */
+  public static final long UNKNOWN = -1;
+
+  private static final String[] MEMINFO_KEYS = { "MemTotal", "MemFree", "MemAvailable", "Cached", "SwapTotal", "SwapFree", "Hugepagesize" };
+  private static final int MEM_TOTAL = 0;
+  private static final int MEM_FREE = 1;
+  private static final int MEM_AVAILABLE = 2;
+  private static final int CACHED = 3;
+  private static final int SWAP_TOTAL = 4;
+  private static final int SWAP_FREE = 5;
+  private static final int HUGE_PAGE_SIZE = 6;
+  private static final String[] THP_MODES = { "always", "madvise", "never" };
+
+  private final Path meminfo;
+  private final Path thpEnabled;
+  private final ReleaseFileReader reader = new ReleaseFileReader();
+  private final long[] hugePageSizes;
+  private final Path[] hugePagesTotalFiles;
+  private final Path[] hugePagesFreeFiles;
+
+  private final long[] values = new long[MEMINFO_KEYS.length];
+  private final long[] hugePagesTotal;
+  private final long[] hugePagesFree;
+  private String transparentHugePageMode;
+
+  private MemoryInfo(final Path root) {
+    this.meminfo = root.resolve("proc/meminfo");
+    Path mm = root.resolve("sys/kernel/mm");
+    this.thpEnabled = mm.resolve("transparent_hugepage/enabled");
+
+    List<Long> sizes = new ArrayList<Long>();
+    try (DirectoryStream<Path> pools = Files.newDirectoryStream(mm.resolve("hugepages"), "hugepages-*kB")) {
+      for (Path pool : pools) {
+        String fileName = pool.getFileName().toString();
+        long sizeKb = SysFiles.parseLong(fileName, "hugepages-".length(), fileName.length() - "kB".length());
+        if (sizeKb > 0) {
+          sizes.add(sizeKb * 1024);
+        }
+      }
+    } catch (IOException e) {
+      // no huge page support
+    }
+    Collections.sort(sizes);
+    int poolCount = sizes.size();
+    this.hugePageSizes = new long[poolCount];
+    this.hugePagesTotalFiles = new Path[poolCount];
+    this.hugePagesFreeFiles = new Path[poolCount];
+    this.hugePagesTotal = new long[poolCount];
+    this.hugePagesFree = new long[poolCount];
+    for (int i = 0; i < poolCount; i++) {
+      hugePageSizes[i] = sizes.get(i);
+      Path pool = mm.resolve("hugepages").resolve("hugepages-" + (hugePageSizes[i] / 1024) + "kB");
+      hugePagesTotalFiles[i] = pool.resolve("nr_hugepages");
+      hugePagesFreeFiles[i] = pool.resolve("free_hugepages");
+    }
+  }
+
+  /**
+   * Reads the memory information from the /proc and /sys of the root file system.
+   * Missing or unreadable files only mean that the information is unknown.
+   *
+   * @param root "/" for the running host, or the root of a copy of its /proc and /sys
+   */
+  public static MemoryInfo read(final Path root) {
+    return new MemoryInfo(root).refresh();
+  }
+
+  /**
+   * Reads the files again, reusing the buffers of this instance.
+   *
+   * @return this instance
+   */
+  public synchronized MemoryInfo refresh() {
+    readMeminfo();
+    transparentHugePageMode = readTransparentHugePageMode();
+    for (int i = 0; i < hugePageSizes.length; i++) {
+      hugePagesTotal[i] = nonNegative(SysFiles.readLong(reader, hugePagesTotalFiles[i]));
+      hugePagesFree[i] = nonNegative(SysFiles.readLong(reader, hugePagesFreeFiles[i]));
+    }
+    return this;
+  }
+
+  /**
+   * @return the MemTotal in bytes, or {@link #UNKNOWN}
+   */
+  public synchronized long getTotal() {
+    return values[MEM_TOTAL];
+  }
+
+  /**
+   * @return the MemFree in bytes, or {@link #UNKNOWN}
+   */
+  public synchronized long getFree() {
+    return values[MEM_FREE];
+  }
+
+  /**
+   * @return the MemAvailable in bytes, i.e. what can be allocated without swapping, or {@link #UNKNOWN}
+   */
+  public synchronized long getAvailable() {
+    return values[MEM_AVAILABLE];
+  }
+
+  /**
+   * @return the page cache in bytes, or {@link #UNKNOWN}
+   */
+  public synchronized long getCached() {
+    return values[CACHED];
+  }
+
+  /**
+   * @return the SwapTotal in bytes, or {@link #UNKNOWN}
+   */
+  public synchronized long getSwapTotal() {
+    return values[SWAP_TOTAL];
+  }
+
+  /**
+   * @return the SwapFree in bytes, or {@link #UNKNOWN}
+   */
+  public synchronized long getSwapFree() {
+    return values[SWAP_FREE];
+  }
+
+  /**
+   * @return the default huge page size in bytes, or {@link #UNKNOWN}
+   */
+  public synchronized long getDefaultHugePageSize() {
+    return values[HUGE_PAGE_SIZE];
+  }
+
+  /**
+   * @return the transparent huge page mode, "always", "madvise" or "never", or null if unknown
+   */
+  public synchronized String getTransparentHugePageMode() {
+    return transparentHugePageMode;
+  }
+
+  /**
+   * @return the number of huge page pools, one per supported page size
+   */
+  public int getHugePagePoolCount() {
+    return hugePageSizes.length;
+  }
+
+  /**
+   * @param pool from 0 to {@link #getHugePagePoolCount()} excluded, the pools being sorted by page size
+   * @return the page size of the pool, in bytes
+   */
+  public long getHugePageSize(final int pool) {
+    return hugePageSizes[pool];
+  }
+
+  /**
+   * @return the number of pages reserved in the pool
+   */
+  public synchronized long getHugePagesTotal(final int pool) {
+    return hugePagesTotal[pool];
+  }
+
+  /**
+   * @return the number of free pages in the pool
+   */
+  public synchronized long getHugePagesFree(final int pool) {
+    return hugePagesFree[pool];
+  }
+
+  /**
+   * @return the number of free pages of the given size, 0 if there is no pool for that size
+   */
+  public synchronized long getHugePagesFreeOfSize(final long pageSize) {
+    for (int i = 0; i < hugePageSizes.length; i++) {
+      if (hugePageSizes[i] == pageSize) {
+        return hugePagesFree[i];
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder sb = new StringBuilder("MemoryInfo{")
+        .append("Total = ").append(values[MEM_TOTAL]).append(", ")
+        .append("Available = ").append(values[MEM_AVAILABLE]).append(", ")
+        .append("Swap total = ").append(values[SWAP_TOTAL]).append(", ")
+        .append("Swap free = ").append(values[SWAP_FREE]).append(", ")
+        .append("THP = ").append(transparentHugePageMode);
+    for (int i = 0; i < hugePageSizes.length; i++) {
+      sb.append(", ").append(hugePageSizes[i] / 1024).append("kB pages = ").append(hugePagesFree[i]).append('/').append(hugePagesTotal[i]);
+    }
+    return sb.append('}').toString();
+  }
+
+  /**
+   * Lines are "MemTotal:       16318496 kB", the sizes being in KiB.
+   */
+  private void readMeminfo() {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = UNKNOWN;
+    }
+    CharSequence content = SysFiles.read(reader, meminfo);
+    if (content == null) {
+      return;
+    }
+    int length = content.length();
+    int start = 0;
+    while (start < length) {
+      int end = ReleaseFiles.lineEnd(content, start, length);
+      int colon = SysFiles.indexOf(content, ':', start, end);
+      if (colon >= 0) {
+        for (int i = 0; i < MEMINFO_KEYS.length; i++) {
+          if (SysFiles.regionEquals(content, start, colon, MEMINFO_KEYS[i])) {
+            int valueStart = SysFiles.skipWhitespace(content, colon + 1, end);
+            int valueEnd = SysFiles.tokenEnd(content, valueStart, end);
+            long value = SysFiles.parseLong(content, valueStart, valueEnd);
+            boolean kilobytes = SysFiles.regionEquals(content, SysFiles.skipWhitespace(content, valueEnd, end), SysFiles.trimEnd(content, valueEnd, end), "kB");
+            values[i] = value < 0 ? UNKNOWN : (kilobytes ? value * 1024 : value);
+            break;
+          }
+        }
+      }
+      start = ReleaseFiles.nextLineStart(content, end, length);
+    }
+  }
+
+  /**
+   * The file lists the modes with the current one in brackets, e.g. "always [madvise] never".
+   */
+  private String readTransparentHugePageMode() {
+    CharSequence content = SysFiles.read(reader, thpEnabled);
+    if (content == null) {
+      return null;
+    }
+    int open = SysFiles.indexOf(content, '[', 0, content.length());
+    int close = open < 0 ? -1 : SysFiles.indexOf(content, ']', open, content.length());
+    if (close < 0) {
+      return null;
+    }
+    for (String mode : THP_MODES) {
+      if (SysFiles.regionEquals(content, open + 1, close, mode)) {
+        return mode;
+      }
+    }
+    return content.subSequence(open + 1, close).toString();
+  }
+
+  private static long nonNegative(final long value) {
+    return value < 0 ? UNKNOWN : value;
+  }
+}
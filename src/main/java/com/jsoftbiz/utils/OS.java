@@ -17,16 +17,20 @@
 package com.jsoftbiz.utils;
 
 import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.FilenameFilter;
+import java.io.Closeable;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  * This class is made to get the OS platform name, e.g.
@@ -51,59 +55,27 @@ public class OS {
 
   public static final OS OS;
 
-  private static final Map<String, String> MAC_OS = new HashMap<String, String>();
-  private static final Map<Integer, String> DARWIN = new HashMap<Integer, String>();
-  private static final List<String> UNIX = new ArrayList<String>();
+  /**
+   * System property giving another root file system to detect the platform of, instead of "/".
+   * It is meant for tests and benchmarks against fixture file systems.
+   */
+  public static final String ROOT_PROPERTY = "os-platform-finder.root";
 
-  static {
-    MAC_OS.put("10.0", "Puma");
-    MAC_OS.put("10.1", "Cheetah");
-    MAC_OS.put("10.2", "Jaguar");
-    MAC_OS.put("10.3", "Panther");
-    MAC_OS.put("10.4", "Tiger");
-    MAC_OS.put("10.5", "Leopard");
-    MAC_OS.put("10.6", "Snow Leopard");
-    MAC_OS.put("10.7", "Lion");
-    MAC_OS.put("10.8", "Mountain Lion");
-    MAC_OS.put("10.9", "Mavericks");
-    MAC_OS.put("10.10", "Yosemite");
-    MAC_OS.put("10.11", "El Captain");
-    MAC_OS.put("10.12", "Sierra");
-    MAC_OS.put("10.13", "High Sierra");
-    MAC_OS.put("10.14", "Mojave");
-    MAC_OS.put("10.15", "Catalina");
-    MAC_OS.put("10.16", "Big Sur"); // MacOS Big Sur referred to its version as "10.16" when upgrading from prior versions of macOS
-    MAC_OS.put("11", "Big Sur");
-    MAC_OS.put("12", "Monterey");
-    MAC_OS.put("13", "Ventura");
-    MAC_OS.put("14", "Sonoma");
-    MAC_OS.put("15", "Sequoia");
-    MAC_OS.put("26", "Tahoe");
-
-    DARWIN.put(5, "Puma");
-    DARWIN.put(6, "Jaguar");
-    DARWIN.put(7, "Panther");
-    DARWIN.put(8, "Tiger");
-    DARWIN.put(9, "Leopard");
-    DARWIN.put(10, "Snow Leopard");
-    DARWIN.put(11, "Lion");
-    DARWIN.put(12, "Mountain Lion");
-    DARWIN.put(13, "Mavericks");
-    DARWIN.put(14, "Yosemite");
-    DARWIN.put(15, "El Captain");
-    DARWIN.put(16, "Sierra");
-    DARWIN.put(17, "High Sierra");
-    DARWIN.put(18, "Mojave");
-    DARWIN.put(19, "Catalina");
-    DARWIN.put(20, "Big Sur");
-    DARWIN.put(21, "Monterey");
-    DARWIN.put(22, "Ventura");
-    DARWIN.put(23, "Sonoma");
-    DARWIN.put(24, "Sequoia");
-    DARWIN.put(25, "Tahoe");
-
-    UNIX.addAll(Arrays.asList("Linux", "SunOS", "FreeBSD", "AIX", "HP-UX", "z/OS", "OS/390"));
+  /**
+   * System property enabling the {@link DetectionTrace} of the running host detection, see {@link #getDetectionTrace()}.
+   * The trace is then also published over JMX by a {@link PlatformMXBean}.
+   */
+  public static final String TRACE_PROPERTY = "os-platform-finder.trace";
+
+  private static final Path ROOT = Paths.get("/");
+
+  /**
+   * The family and architecture of the running JVM never change, static finals let the JIT fold their checks.
+   */
+  private static final OsFamily FAMILY = OsFamily.of(System.getProperty("os.name"));
+  private static final CpuArch CPU_ARCH = CpuArch.of(System.getProperty("os.arch"));
 
+  static {
     OS = new OS();
   }
 
@@ -112,382 +84,529 @@ public class OS {
     return OS;
   }
 
-  private final OsInfo osInfo;
+  /**
+   * Detects the platform installed under a root file system other than the running one, e.g. an extracted
+   * container image, a chroot or a mounted VM snapshot, using the same sources as for the running host.
+   * <br>
+   * Only the platform name comes from the root file system, the name, version and architecture are those
+   * of the running JVM.
+   *
+   * @param root the root directory of the file system
+   * @return the platform information, whose platform name falls back to the OS name when nothing is found
+   */
+  public static OsInfo detect(final Path root) {
+    return detect(root, null);
+  }
 
-  private OS() {
+  /**
+   * Same as {@link #detect(Path)}, recording what the detection did in the trace.
+   *
+   * @param trace receives the probes, or null not to trace
+   */
+  public static OsInfo detect(final Path root, final DetectionTrace trace) {
     String name = System.getProperty("os.name");
     String version = System.getProperty("os.version");
     String arch = System.getProperty("os.arch");
-    OsInfo osInfo = null;
-    if (name != null) {
-      // Windows is quite easy to tackle with
-      if (name.startsWith("Windows")) {
-        osInfo = new OsInfo(name, version, arch, name);
-      }
-      // Mac requires a bit of work, but at least it's consistent
-      else if (name.startsWith("Mac")) {
-        osInfo = initMacOsInfo(name, version, arch);
-      } else if (name.startsWith("Darwin")) {
-        osInfo = initDarwinOsInfo(name, version, arch);
-      }
-      // Try to detect other POSIX compliant platforms, now the fun begins
-      else {
-        for (String unixName : UNIX) {
-          if (name.startsWith(unixName)) {
-            osInfo = initUnixOsInfo(name, version, arch);
+    DetectionListener listener = DetectionListener.both(trace == null ? null : trace.recorder(), JfrSupport.listener());
+    return detectOsInfo(new ProbeContext(root, name, version, arch, false, listener), null, null);
+  }
+
+  /**
+   * Same as {@link #detectAll(List, ForkJoinPool, BiConsumer)} on the common fork/join pool.
+   */
+  public static ForkJoinTask<Void> detectAll(final List<Path> roots, final BiConsumer<? super Path, ? super OsInfo> consumer) {
+    return detectAll(roots, ForkJoinPool.commonPool(), consumer);
+  }
+
+  /**
+   * Detects the platform of many root file systems, spread across a fork/join pool. Each result is handed
+   * to the consumer, from the pool threads, as soon as it is known.
+   *
+   * @param roots    the root directories of the file systems
+   * @param pool     the pool running the detections
+   * @param consumer receives each root with its platform information, it must be thread safe
+   * @return the task, which completes when all the roots have been handed to the consumer
+   */
+  public static ForkJoinTask<Void> detectAll(final List<Path> roots, final ForkJoinPool pool, final BiConsumer<? super Path, ? super OsInfo> consumer) {
+    return pool.submit(new RootDetectionTask(roots, 0, roots.size(), consumer));
+  }
+
+  /**
+   * Detects the platform of a container image from its layers, as tar or tar.gz streams, without extracting them.
+   * The layers are read from the top one down, honouring the whiteouts, and no further than needed.
+   * <br>
+   * Only the platform name comes from the image, the name, version and architecture are those of the running JVM.
+   *
+   * @param layers the layer streams, bottom layer first as in the image manifest, which are all closed on return
+   * @return the platform information, whose platform name falls back to the OS name when nothing is found
+   * @throws IOException if a layer can not be read, or is not a tar archive
+   */
+  public static OsInfo detectImage(final List<? extends InputStream> layers) throws IOException {
+    String name = System.getProperty("os.name");
+    String platformName = ImageLayers.detectPlatformName(layers);
+    return OsInfo.of(name, System.getProperty("os.version"), System.getProperty("os.arch"), platformName != null ? platformName : name);
+  }
+
+  private final String name;
+  private final String version;
+  private final String arch;
+  private volatile DetectionTrace trace;
+  private final ReentrantLock lock = new ReentrantLock();
+  private volatile OsInfo osInfo;
+  private volatile OsRelease osRelease;
+  private volatile boolean osReleaseRead;
+  private final List<PlatformChangeListener> listeners = new CopyOnWriteArrayList<PlatformChangeListener>();
+  private PlatformWatcher watcher;
+  // only set when tracing, so that the JMX classes are never loaded otherwise
+  private PlatformMBean platformMBean;
+
+  /**
+   * Only the cheap system properties are read here, the platform name is resolved on first use
+   * by {@link #getOsInfo()} so that loading this class never touches the file system.
+   */
+  private OS() {
+    this.name = System.getProperty("os.name");
+    this.version = System.getProperty("os.version");
+    this.arch = System.getProperty("os.arch");
+    this.trace = Boolean.getBoolean(TRACE_PROPERTY) ? new DetectionTrace() : null;
+  }
+
+  private OsInfo getOsInfo() {
+    return getOsInfo(null);
+  }
+
+  /**
+   * Resolves the platform information exactly once. The result is published through a volatile field
+   * guarded by a private lock, so that concurrent callers never wait on the class initialization lock.
+   * The lock is a {@link ReentrantLock} rather than a monitor, so that a virtual thread waiting for the
+   * file system does not pin its carrier thread.
+   *
+   * @param executor the executor running the detectors concurrently, or null to run them sequentially
+   */
+  private OsInfo getOsInfo(final Executor executor) {
+    OsInfo info = osInfo;
+    if (info == null) {
+      lock.lock();
+      try {
+        info = osInfo;
+        if (info == null) {
+          DetectionListener listener = DetectionListener.both(trace == null ? null : trace.recorder(), JfrSupport.listener());
+          info = detectOsInfo(name, version, arch, executor, listener);
+          osInfo = info;
+          if (trace != null) {
+            platformMBean = PlatformMBean.register(info, trace);
           }
         }
+      } finally {
+        lock.unlock();
+      }
+    }
+    return info;
+  }
+
+  private static OsInfo detectOsInfo(final String name, final String version, final String arch, final Executor executor,
+                                    final DetectionListener listener) {
+    String rootProperty = System.getProperty(ROOT_PROPERTY);
+    ProbeContext context = rootProperty == null
+        ? new ProbeContext(ROOT, name, version, arch, true, listener)
+        : new ProbeContext(Paths.get(rootProperty), name, version, arch, false, listener);
+    // only the Unix detection reads files, it is not worth caching the others
+    DetectionCache cache = context.isUnix() ? DetectionCache.fromSystemProperties() : null;
+    return detectOsInfo(context, cache, executor);
+  }
+
+  /**
+   * @param cache the cache to revalidate and to store the result in, or null
+   */
+  private static OsInfo detectOsInfo(final ProbeContext context, final DetectionCache cache, final Executor executor) {
+    DetectionListener listener = context.getListener();
+    long start = 0;
+    if (listener != null) {
+      listener.detectionStarted(context.getRoot());
+      start = System.nanoTime();
+    }
+
+    if (cache != null) {
+      DetectionCache.Entry entry = cache.load(context.getRoot(), context.getName(), context.getVersion(), context.getArch());
+      if (listener != null) {
+        long nanos = System.nanoTime() - start;
+        listener.probed("cache", cache.getCacheFile(), entry != null ? DetectionTrace.Outcome.CACHE_HIT : DetectionTrace.Outcome.CACHE_MISS, 0, nanos);
+        if (entry != null) {
+          listener.detectionEnded(entry.getOsInfo().getPlatformName(), entry.getDetectorId(), nanos);
+        }
+      }
+      if (entry != null) {
+        return entry.getOsInfo();
       }
     }
 
-    if (osInfo == null) {
-      osInfo = new OsInfo(name, version, arch, name);
+    DetectorPipeline pipeline = DetectorPipeline.defaultPipeline();
+    String platformName = executor == null ? pipeline.detect(context) : pipeline.detect(context, executor);
+    PlatformDetector detector = platformName == null ? null : context.getDetector();
+
+    // if nothing found, well...
+    if (platformName == null) {
+      platformName = context.getName();
+    }
+    OsInfo osInfo = OsInfo.of(context.getName(), context.getVersion(), context.getArch(), platformName);
+    if (cache != null) {
+      cache.store(context.getRoot(), osInfo, context.getDetector(), context.getConsulted());
     }
-    this.osInfo = osInfo;
+    if (listener != null) {
+      listener.detectionEnded(platformName, detector == null ? null : detector.getId(), System.nanoTime() - start);
+    }
+    return osInfo;
   }
 
   public String getName() {
-    return osInfo.getName();
+    return name;
   }
 
   public String getArch() {
-    return osInfo.getArch();
+    return arch;
   }
 
   public String getVersion() {
-    return osInfo.getVersion();
+    return version;
   }
 
   public String getPlatformName() {
-    return osInfo.getPlatformName();
+    return getOsInfo().getPlatformName();
   }
 
-  @Override
-  public String toString() {
-    return "OS{" +
-           "Name = " + osInfo.getName() + ", " +
-           "Architecture = " + osInfo.getArch() + ", " +
-           "Platform = " + osInfo.getPlatformName() + ", " +
-           "Version = " + osInfo.getVersion() +
-           '}';
+  /**
+   * Same as {@link #getPlatformName()}, but if the platform name is not resolved yet, all the {@link PlatformDetector}s
+   * (lsb-release, os-release, system-release, *-release, *_version, /etc/issue, /proc/version...) are run
+   * concurrently on the executor. The answer is still the one of the highest priority detector, and the detectors
+   * of lower priority are cancelled as soon as it is known.
+   * <br>
+   * This pays off when every file access is a slow round trip, e.g. on network backed or overlay file systems.
+   *
+   * @param executor the executor running the probes, or null to use virtual threads when the JVM supports them
+   *                 and to probe sequentially otherwise
+   */
+  public String getPlatformName(final Executor executor) {
+    return getOsInfo(executor != null ? executor : VirtualThreads.executor()).getPlatformName();
   }
 
-  private OsInfo initMacOsInfo(final String name, final String version, final String arch) {
-    int numericVersion = parseMajorVersion(version);
-    if (numericVersion < 0) {
-      return new OsInfo(name, version, arch, "OS X unknown (" + version + ")");
+  /**
+   * Resolves the platform information without blocking the caller, so that startup code can start the detection
+   * early and join it when the answer is needed. The future is already completed if the information is resolved.
+   * <br>
+   * The detectors run sequentially in a single task of the executor, so that a small or single threaded executor
+   * never waits on itself.
+   *
+   * @param executor the executor running the detection, or null to use a virtual thread when the JVM supports them
+   *                 (Java 21+), and a daemon thread otherwise
+   * @return the future platform information
+   */
+  public CompletableFuture<OsInfo> detectAsync(final Executor executor) {
+    OsInfo info = osInfo;
+    if (info != null) {
+      return CompletableFuture.completedFuture(info);
+    }
+    Executor detectionExecutor = executor != null ? executor : VirtualThreads.executor();
+    if (detectionExecutor == null) {
+      detectionExecutor = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+          Thread thread = new Thread(command, "os-platform-finder-detection");
+          thread.setDaemon(true);
+          thread.start();
+        }
+      };
     }
+    return CompletableFuture.supplyAsync(new Supplier<OsInfo>() {
+      @Override
+      public OsInfo get() {
+        return getOsInfo();
+      }
+    }, detectionExecutor);
+  }
 
-    String versionKey = getMajorMinorVersion(version);
-
-    if (numericVersion < 10) {
-      return new OsInfo(name, version, arch, "Mac OS " + version);
-    } else if (numericVersion == 10) {
-      String versionName = MAC_OS.containsKey(versionKey) ? MAC_OS.get(versionKey) : "unknown";
-      return new OsInfo(name, version, arch, "OS X " + versionName + " (" + version + ")");
-    } else {
-      String versionName = MAC_OS.containsKey(String.valueOf(numericVersion)) ? MAC_OS.get(String.valueOf(numericVersion)) : "unknown";
-      return new OsInfo(name, version, arch, "OS X " + versionName + " (" + version + ")");
+  /**
+   * Starts watching the files the platform name was detected from, so that the platform information is refreshed
+   * when they change, e.g. after an in-place upgrade of the distribution. The watcher relies on the file system
+   * notifications of the {@link java.nio.file.WatchService}, it never polls.
+   * <br>
+   * The refreshed information replaces the previous one at once, and the {@link PlatformChangeListener}s are
+   * notified if the platform name changed. Calling this method again while the watcher runs returns the same watcher.
+   *
+   * @return the watcher, to close to stop watching
+   * @throws IOException if the file system can not be watched
+   */
+  public Closeable watch() throws IOException {
+    lock.lock();
+    try {
+      if (watcher == null || watcher.isClosed()) {
+        String rootProperty = System.getProperty(ROOT_PROPERTY);
+        Path root = rootProperty == null ? ROOT : Paths.get(rootProperty);
+        watcher = new PlatformWatcher(root, name, version, arch, rootProperty == null, trace != null, new BiConsumer<OsInfo, DetectionTrace>() {
+          @Override
+          public void accept(final OsInfo current, final DetectionTrace currentTrace) {
+            refresh(current, currentTrace);
+          }
+        });
+        refresh(watcher.getOsInfo(), watcher.getTrace());
+      }
+      return watcher;
+    } finally {
+      lock.unlock();
     }
   }
 
-  private OsInfo initDarwinOsInfo(final String name, final String version, final String arch) {
-    int numericVersion = parseMajorVersion(version);
-    String versionName = DARWIN.containsKey(numericVersion) ? DARWIN.get(numericVersion) : "unknown";
-    return new OsInfo(name, version, arch, "OS X " + versionName + " (" + version + ")");
+  public void addPlatformChangeListener(final PlatformChangeListener listener) {
+    listeners.add(listener);
   }
 
-  private int parseMajorVersion(final String version) {
-    if (version == null || version.length() == 0) {
-      return -1;
-    }
-    int dotIndex = version.indexOf('.');
-    String majorVersion = dotIndex < 0 ? version : version.substring(0, dotIndex);
+  public void removePlatformChangeListener(final PlatformChangeListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * @param currentTrace the trace of the detection that gave the current information, or null if not traced
+   */
+  private void refresh(final OsInfo current, final DetectionTrace currentTrace) {
+    OsInfo previous;
+    lock.lock();
     try {
-      return Integer.parseInt(majorVersion);
-    } catch (NumberFormatException e) {
-      return -1;
+      previous = osInfo;
+      osInfo = current;
+      osReleaseRead = false;
+      if (currentTrace != null) {
+        trace = currentTrace;
+        if (platformMBean != null) {
+          platformMBean.update(current, currentTrace);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (previous != null && !current.getPlatformName().equals(previous.getPlatformName())) {
+      for (PlatformChangeListener listener : listeners) {
+        try {
+          listener.platformChanged(previous, current);
+        } catch (RuntimeException e) {
+          // the other listeners, and the watcher thread calling them, carry on
+          Thread thread = Thread.currentThread();
+          thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+      }
     }
   }
 
-  private String getMajorMinorVersion(final String version) {
-    if (version == null) {
-      return null;
-    }
-    int firstDotIndex = version.indexOf('.');
-    if (firstDotIndex < 0) {
-      return version;
+  /**
+   * Reads the os-release file of the running host on first use, from the root given by {@link #ROOT_PROPERTY} if set.
+   *
+   * @return all the fields of the os-release file, or null if the platform has none, e.g. on Windows and macOS
+   */
+  public OsRelease getOsRelease() {
+    if (!osReleaseRead) {
+      lock.lock();
+      try {
+        if (!osReleaseRead) {
+          osRelease = readOsRelease(name);
+          osReleaseRead = true;
+        }
+      } finally {
+        lock.unlock();
+      }
     }
-    int secondDotIndex = version.indexOf('.', firstDotIndex + 1);
-    return secondDotIndex < 0 ? version : version.substring(0, secondDotIndex);
+    return osRelease;
   }
 
-  private OsInfo initUnixOsInfo(final String name, final String version, final String arch) {
-    OsInfo osInfo;
-    // The most likely is to have a LSB compliant distro
-    osInfo = getPlatformNameFromLsbRelease(name, version, arch);
-
-    // Try new /etc/os-release file from systemd
-    if (osInfo == null) {
-      osInfo = getPlatformNameFromOsRelease(name, version, arch);
+  private static OsRelease readOsRelease(final String name) {
+    if (System.getProperty(ROOT_PROPERTY) == null && OsFamily.of(name) != OsFamily.UNIX) {
+      return null;
     }
-
-    // Generic Linux platform name
-    if (osInfo == null) {
-      osInfo = getPlatformNameFromFile(name, version, arch, "/etc/system-release");
+    try {
+      return OsRelease.read(hostRoot());
+    } catch (IOException e) {
+      return null;
     }
+  }
 
-    File dir = new File("/etc/");
-    if (dir.exists()) {
-      // if generic 'system-release' file is not present, then try to find another one
-      if (osInfo == null) {
-        osInfo = getPlatformNameFromFile(name, version, arch, getFileEndingWith(dir, "-release"));
-      }
+  /**
+   * Reads the container and cgroup information of the process, from the root given by {@link #ROOT_PROPERTY} if set.
+   * It is read again on each call, as the limits of a cgroup can change while the JVM runs.
+   *
+   * @return the effective CPU count, memory limit and container runtime, which are unknown outside of Linux
+   */
+  public ContainerInfo getContainerInfo() {
+    return ContainerInfo.read(hostRoot());
+  }
 
-      // if generic 'system-release' file is not present, then try to find '_version'
-      if (osInfo == null) {
-        osInfo = getPlatformNameFromFile(name, version, arch, getFileEndingWith(dir, "_version"));
-      }
+  /**
+   * Reads the CPU topology and flags of the host, from the root given by {@link #ROOT_PROPERTY} if set.
+   * It is read again on each call, so keep the result rather than calling this method on a hot path.
+   *
+   * @return the sockets, cores, NUMA nodes, caches, affinity and flags, which are unknown outside of Linux
+   */
+  public CpuInfo getCpuInfo() {
+    return CpuInfo.read(hostRoot());
+  }
 
-      // try with /etc/issue file
-      if (osInfo == null) {
-        osInfo = getPlatformNameFromFile(name, version, arch, "/etc/issue");
-      }
-    }
+  /**
+   * Reads the memory information of the host, from the root given by {@link #ROOT_PROPERTY} if set.
+   * To poll it, keep the result and call its {@link MemoryInfo#refresh()} method.
+   *
+   * @return the memory, swap and huge page information, which are unknown outside of Linux
+   */
+  public MemoryInfo getMemoryInfo() {
+    return MemoryInfo.read(hostRoot());
+  }
 
-    // if nothing found yet, looks for the version info
-    File fileVersion = new File("/proc/version");
-    if (fileVersion.exists()) {
-      if (osInfo == null) {
-        osInfo = getPlatformNameFromFile(name, version, arch, fileVersion.getAbsolutePath());
-      }
-    }
+  /**
+   * Reads the process limits and the kernel tunables of the host, from the root given by {@link #ROOT_PROPERTY} if set.
+   *
+   * @return the limits and sysctls, which are unknown outside of Linux
+   */
+  public TuningInfo getTuningInfo() {
+    return TuningInfo.read(hostRoot());
+  }
 
-    // if nothing found, well...
-    if (osInfo == null) {
-      osInfo = new OsInfo(name, version, arch, name);
-    }
+  /**
+   * Finds the C library of the host, from the root given by {@link #ROOT_PROPERTY} if set, without running any process.
+   *
+   * @return the flavor, glibc or musl, and version of the C library, which are unknown outside of Linux
+   */
+  public LibcInfo getLibcInfo() {
+    return LibcInfo.read(hostRoot());
+  }
 
-    return osInfo;
+  /**
+   * @return the root given by {@link #ROOT_PROPERTY}, or "/"
+   */
+  private static Path hostRoot() {
+    String rootProperty = System.getProperty(ROOT_PROPERTY);
+    return rootProperty == null ? ROOT : Paths.get(rootProperty);
   }
 
-  private String getFileEndingWith(final File dir, final String fileEndingWith) {
-    File[] fileList = dir.listFiles(new FilenameFilter() {
-      public boolean accept(File dir, String filename) {
-        return filename.endsWith(fileEndingWith);
-      }
-    });
-    if (fileList == null) {
-      return null;
-    }
-    Arrays.sort(fileList, new Comparator<File>() {
-      public int compare(File first, File second) {
-        return first.getName().compareTo(second.getName());
-      }
-    });
-    if (fileList.length > 0) {
-      return fileList[0].getAbsolutePath();
-    } else {
-      return null;
-    }
+  /**
+   * @return the trace of the detection of the running host when {@link #TRACE_PROPERTY} is set to true, or null.
+   * It is only complete once the platform name has been resolved. Once {@link #watch()} refreshed the platform
+   * information, it is the trace of the detection that gave the current information.
+   */
+  public DetectionTrace getDetectionTrace() {
+    return trace;
   }
 
-  private OsInfo getPlatformNameFromFile(final String name, final String version, final String arch, final String filename) {
-    if (filename == null) {
-      return null;
-    }
-    File f = new File(filename);
-    if (f.exists()) {
-      try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-        return readPlatformName(name, version, arch, br);
-      } catch (IOException e) {
-        return null;
-      }
-    }
-    return null;
+  @Override
+  public String toString() {
+    return "OS{" +
+           "Name = " + name + ", " +
+           "Architecture = " + arch + ", " +
+           "Platform = " + getPlatformName() + ", " +
+           "Version = " + version +
+           '}';
   }
 
-  OsInfo readPlatformName(final String name, final String version, final String arch, final BufferedReader br) throws IOException {
-    String line;
-    String lineToReturn = null;
-    int lineNb = 0;
-    while ((line = br.readLine()) != null) {
-      if (lineNb++ == 0) {
-        lineToReturn = line;
-      }
-      String prettyName = parseKeyValue(line, "PRETTY_NAME");
-      if (prettyName != null) {
-        return new OsInfo(name, version, arch, prettyName);
-      }
-    }
-    if (lineToReturn == null) {
-      return null;
+  static OsInfo initMacOsInfo(final String name, final String version, final String arch) {
+    int major = MacCodenames.versionNumber(version, 0);
+    if (major < 0) {
+      return new OsInfo(name, version, arch, "OS X unknown (" + version + ")");
     }
-    return new OsInfo(name, version, arch, lineToReturn);
-  }
 
-  private OsInfo getPlatformNameFromOsRelease(final String name, final String version, final String arch) {
-    String fileName = "/etc/os-release";
-    File f = new File(fileName);
-    if (f.exists()) {
-      try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
-        return readPlatformNameFromOsRelease(name, version, arch, br);
-      } catch (IOException e) {
-        return null;
-      }
+    if (major < 10) {
+      return new OsInfo(name, version, arch, "Mac OS " + version);
     }
-    return null;
+    String versionName = major == 10 ? MacCodenames.macOs10(MacCodenames.versionNumber(version, 1)) : MacCodenames.macOs(major);
+    return new OsInfo(name, version, arch, "OS X " + (versionName != null ? versionName : "unknown") + " (" + version + ")");
   }
 
-  private OsInfo readPlatformNameFromOsRelease(final String name, final String version, final String arch, final BufferedReader br) throws IOException {
-    String distribName = "Linux";
-    String distribVersion = null;
-    String distribVersionId = null;
-    String distribVersionCodename = null;
-    String distribId = null;
-    boolean hasPlatformData = false;
-
-    String line;
-    while ((line = br.readLine()) != null) {
-      String parsedName = parseKeyValue(line, "NAME");
-      if (parsedName != null) {
-        distribName = parsedName;
-        hasPlatformData = true;
-      }
-      String parsedVersion = parseKeyValue(line, "VERSION");
-      if (parsedVersion != null) {
-        distribVersion = parsedVersion;
-        hasPlatformData = true;
-      }
-      String parsedVersionId = parseKeyValue(line, "VERSION_ID");
-      if (parsedVersionId != null) {
-        distribVersionId = parsedVersionId;
-        hasPlatformData = true;
-      }
-      String parsedVersionCodename = parseKeyValue(line, "VERSION_CODENAME");
-      if (parsedVersionCodename != null && parsedVersionCodename.length() > 0) {
-        distribVersionCodename = parsedVersionCodename;
-        hasPlatformData = true;
-      }
-      String parsedId = parseKeyValue(line, "ID");
-      if (parsedId != null) {
-        distribId = parsedId;
-      }
-    }
-    String platformName = buildOsReleasePlatformName(distribName, distribVersion, distribVersionId, distribVersionCodename);
-    if (distribId != null) {
-      return new OsInfo(name, version, arch, platformName + " (" + distribId + ")");
-    }
-    if (hasPlatformData) {
-      return new OsInfo(name, version, arch, platformName);
-    }
-    return null;
+  static OsInfo initDarwinOsInfo(final String name, final String version, final String arch) {
+    String versionName = MacCodenames.darwin(MacCodenames.versionNumber(version, 0));
+    return new OsInfo(name, version, arch, "OS X " + (versionName != null ? versionName : "unknown") + " (" + version + ")");
   }
 
-  private String buildOsReleasePlatformName(final String distribName, final String distribVersion, final String distribVersionId, final String distribVersionCodename) {
-    StringBuilder platformName = new StringBuilder(distribName);
-    String version = distribVersion != null ? distribVersion : distribVersionId;
-    if (version != null && version.length() > 0) {
-      platformName.append(" ").append(version);
-    }
-    if (distribVersion == null && distribVersionCodename != null) {
-      platformName.append(" (").append(distribVersionCodename).append(")");
-    }
-    return platformName.toString();
+  OsInfo readPlatformName(final String name, final String version, final String arch, final BufferedReader br) throws IOException {
+    return toOsInfo(name, version, arch, ReleaseFiles.parsePlatformName(readFully(br)));
   }
 
-  private OsInfo getPlatformNameFromLsbRelease(final String name, final String version, final String arch) {
-    String fileName = "/etc/lsb-release";
-    File f = new File(fileName);
-    if (f.exists()) {
-      try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
-        return readPlatformNameFromLsb(name, version, arch, br);
-      } catch (IOException e) {
-        return null;
-      }
-    }
-    return null;
+  private OsInfo readPlatformNameFromOsRelease(final String name, final String version, final String arch, final BufferedReader br) throws IOException {
+    return toOsInfo(name, version, arch, ReleaseFiles.parseOsReleasePlatformName(readFully(br)));
   }
 
   OsInfo readPlatformNameFromLsb(final String name, final String version, final String arch, final BufferedReader br) throws IOException {
-    String distribDescription = null;
-    String distribCodename = null;
-
-    String line;
-    while ((line = br.readLine()) != null) {
-      String parsedDescription = parseKeyValue(line, "DISTRIB_DESCRIPTION");
-      if (parsedDescription != null) {
-        distribDescription = parsedDescription;
-      }
-      String parsedCodename = parseKeyValue(line, "DISTRIB_CODENAME");
-      if (parsedCodename != null) {
-        distribCodename = parsedCodename;
-      }
-    }
-    if (distribDescription != null && distribCodename != null) {
-      return new OsInfo(name, version, arch, distribDescription + " (" + distribCodename + ")");
-    }
-    return null;
+    return toOsInfo(name, version, arch, ReleaseFiles.parseLsbPlatformName(readFully(br)));
   }
 
-  private String parseKeyValue(final String line, final String key) {
-    String trimmedLine = line.trim();
-    String keyPrefix = key + "=";
-    if (!trimmedLine.startsWith(keyPrefix)) {
-      return null;
-    }
-    return stripOptionalQuotes(trimmedLine.substring(keyPrefix.length()).trim());
+  private static OsInfo toOsInfo(final String name, final String version, final String arch, final String platformName) {
+    return platformName == null ? null : new OsInfo(name, version, arch, platformName);
   }
 
-  private String stripOptionalQuotes(final String value) {
-    if (value.length() < 2) {
-      return value;
-    }
-    char firstChar = value.charAt(0);
-    char lastChar = value.charAt(value.length() - 1);
-    if ((firstChar == '"' && lastChar == '"') || (firstChar == '\'' && lastChar == '\'')) {
-      return value.substring(1, value.length() - 1);
+  private static CharSequence readFully(final BufferedReader br) throws IOException {
+    StringBuilder content = new StringBuilder();
+    char[] buffer = new char[1024];
+    int read;
+    while ((read = br.read(buffer)) >= 0) {
+      content.append(buffer, 0, read);
     }
-    return value;
+    return content;
   }
 
   public String getShellExtension() {
-    if (isWindows()) {
+    if (FAMILY == OsFamily.WINDOWS) {
       return ".bat";
-    } else if (isPosix()) {
+    } else if (FAMILY.isPosix()) {
       return ".sh";
     } else {
       throw new RuntimeException("Can not detect OS");
     }
   }
 
+  public OsFamily getFamily() {
+    return FAMILY;
+  }
+
+  public CpuArch getCpuArch() {
+    return CPU_ARCH;
+  }
+
   public boolean isWindows() {
-    return osInfo.isWindows();
+    return FAMILY == OsFamily.WINDOWS;
   }
 
   public boolean isMac() {
-    return osInfo.isMac();
+    return FAMILY == OsFamily.MAC;
   }
 
   public boolean isUnix() {
-    return osInfo.isUnix();
+    return FAMILY == OsFamily.UNIX;
   }
 
   public boolean isPosix() {
-    return osInfo.isMac() || osInfo.isUnix();
+    return FAMILY.isPosix();
   }
 
-  static class OsInfo {
+  public static class OsInfo {
     private final String name;
     private final String arch;
     private final String version;
     private final String platformName;
+    private final OsFamily family;
+    private final CpuArch cpuArch;
+    private final int hash;
 
     OsInfo(final String name, final String version, final String arch, final String platformName) {
       this.name = name;
       this.arch = arch;
       this.version = version;
       this.platformName = platformName;
+      this.family = OsFamily.of(name);
+      this.cpuArch = CpuArch.of(arch);
+      int h = platformName != null ? platformName.hashCode() : 0;
+      h = 31 * h + (name != null ? name.hashCode() : 0);
+      h = 31 * h + (version != null ? version.hashCode() : 0);
+      this.hash = 31 * h + (arch != null ? arch.hashCode() : 0);
+    }
+
+    /**
+     * @return the canonical instance with these values, from a shared {@link OsInfoPool#weak()} pool, so that
+     * equal platforms can be compared by reference
+     */
+    public static OsInfo of(final String name, final String version, final String arch, final String platformName) {
+      return OsInfoPool.DEFAULT.get(name, version, arch, platformName);
     }
 
     public String getName() {
@@ -506,32 +625,61 @@ public class OS {
       return platformName;
     }
 
+    public OsFamily getFamily() {
+      return family;
+    }
+
+    public CpuArch getCpuArch() {
+      return cpuArch;
+    }
+
     public boolean isWindows() {
-      return (name != null) && name.startsWith("Windows");
+      return family == OsFamily.WINDOWS;
     }
 
     public boolean isMac() {
-      return (name != null) && (name.startsWith("Mac") || name.startsWith("Darwin"));
+      return family == OsFamily.MAC;
     }
 
     public boolean isUnix() {
-      return isUnixName(name);
+      return family == OsFamily.UNIX;
     }
-  }
 
-  private static boolean isUnixName(final String name) {
-    if (name == null) {
-      return false;
-    }
-    if (name.contains("nix") || name.contains("nux")) {
-      return true;
-    }
-    for (String unixName : UNIX) {
-      if (name.startsWith(unixName)) {
+    /**
+     * Two instances are equal when their name, version, architecture and platform name are. The hash code is
+     * computed once, and compared first.
+     */
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
         return true;
       }
+      if (!(o instanceof OsInfo)) {
+        return false;
+      }
+      OsInfo other = (OsInfo)o;
+      return hash == other.hash && equal(platformName, other.platformName) && equal(name, other.name)
+             && equal(version, other.version) && equal(arch, other.arch);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    static boolean equal(final String first, final String second) {
+      return first == null ? second == null : first.equals(second);
+    }
+
+    @Override
+    public String toString() {
+      return "OsInfo{" +
+             "Name = " + name + ", " +
+             "Architecture = " + arch + ", " +
+             "Platform = " + platformName + ", " +
+             "Version = " + version +
+             '}';
     }
-    return false;
   }
 
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+/**
+ * Family of the operating system, resolved once from its os.name.
+ * <br>
+ * The family of the running JVM is held in a static final of {@link OS}, so that the JIT folds the isWindows(),
+ * isMac(), isUnix() and isPosix() checks into constants.
+ *
+ * @author Aurelien Broszniowski
+ */
+public enum OsFamily {
+  WINDOWS,
+  /** Mac OS, OS X, macOS and Darwin */
+  MAC,
+  /** Linux, Solaris, the BSDs, AIX, HP-UX and z/OS */
+  UNIX,
+  UNKNOWN;
+
+  private static final String[] UNIX_NAMES = { "Linux", "SunOS", "FreeBSD", "AIX", "HP-UX", "z/OS", "OS/390" };
+
+  /**
+   * @param osName the os.name system property, which may be null
+   */
+  public static OsFamily of(final String osName) {
+    if (osName == null) {
+      return UNKNOWN;
+    }
+    if (osName.startsWith("Windows")) {
+      return WINDOWS;
+    }
+    if (osName.startsWith("Mac") || osName.startsWith("Darwin")) {
+      return MAC;
+    }
+    if (osName.contains("nix") || osName.contains("nux")) {
+      return UNIX;
+    }
+    for (String unixName : UNIX_NAMES) {
+      if (osName.startsWith(unixName)) {
+        return UNIX;
+      }
+    }
+    return UNKNOWN;
+  }
+
+  public boolean isPosix() {
+    return this == MAC || this == UNIX;
+  }
+}
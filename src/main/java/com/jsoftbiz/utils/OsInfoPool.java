@@ -0,0 +1,188 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interning pool of {@link OS.OsInfo}, so that equal platforms share one instance : an inventory of millions of
+ * hosts or images then holds one OsInfo per distinct platform, and grouping by platform compares references.
+ * <br>
+ * A {@link #weak()} pool lets the instances no longer used anywhere else be collected, a {@link #bounded(int)} pool
+ * keeps them, up to a maximum number beyond which new platforms are returned as is. Both are thread safe.
+ * {@link OS.OsInfo#of(String, String, String, String)} uses a shared weak pool.
+ *
+ * @author Aurelien Broszniowski
+ */
+public abstract class OsInfoPool {
+
+  static final OsInfoPool DEFAULT = weak();
+
+  OsInfoPool() {
+  }
+
+  /**
+   * @return a pool holding its instances through weak references
+   */
+  public static OsInfoPool weak() {
+    return new WeakPool();
+  }
+
+  /**
+   * @param maxSize the number of instances, above which the pool stops growing
+   * @return a pool holding its instances strongly
+   */
+  public static OsInfoPool bounded(final int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Negative pool size : " + maxSize);
+    }
+    return new BoundedPool(maxSize);
+  }
+
+  /**
+   * @return the pooled instance equal to the given one, which is added to the pool if there is none
+   * (unless a bounded pool is full, in which case the given instance is returned)
+   */
+  public abstract OS.OsInfo intern(OS.OsInfo osInfo);
+
+  /**
+   * @return the pooled instance with these values
+   */
+  public OS.OsInfo get(final String name, final String version, final String arch, final String platformName) {
+    return intern(new OS.OsInfo(name, version, arch, platformName));
+  }
+
+  /**
+   * @return the number of instances in the pool, including, for a weak pool, those not collected yet
+   */
+  public abstract int size();
+
+  private static final class BoundedPool extends OsInfoPool {
+    private final ConcurrentHashMap<OS.OsInfo, OS.OsInfo> instances = new ConcurrentHashMap<OS.OsInfo, OS.OsInfo>();
+    private final int maxSize;
+
+    private BoundedPool(final int maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    public OS.OsInfo intern(final OS.OsInfo osInfo) {
+      OS.OsInfo pooled = instances.get(osInfo);
+      if (pooled != null) {
+        return pooled;
+      }
+      // concurrent additions may overshoot the maximum by a few instances
+      if (instances.size() >= maxSize) {
+        return osInfo;
+      }
+      pooled = instances.putIfAbsent(osInfo, osInfo);
+      return pooled != null ? pooled : osInfo;
+    }
+
+    @Override
+    public int size() {
+      return instances.size();
+    }
+  }
+
+  /**
+   * The keys hold the strings of the instances, which are themselves weakly referenced. The entries of the
+   * collected instances are removed on the next calls.
+   */
+  private static final class WeakPool extends OsInfoPool {
+    private final ConcurrentHashMap<Key, Reference> instances = new ConcurrentHashMap<Key, Reference>();
+    private final ReferenceQueue<OS.OsInfo> collected = new ReferenceQueue<OS.OsInfo>();
+
+    @Override
+    public OS.OsInfo intern(final OS.OsInfo osInfo) {
+      expunge();
+      Key key = new Key(osInfo);
+      while (true) {
+        Reference reference = instances.get(key);
+        if (reference == null) {
+          reference = instances.putIfAbsent(key, new Reference(osInfo, key, collected));
+          if (reference == null) {
+            return osInfo;
+          }
+        }
+        OS.OsInfo pooled = reference.get();
+        if (pooled != null) {
+          return pooled;
+        }
+        instances.remove(key, reference);
+      }
+    }
+
+    @Override
+    public int size() {
+      expunge();
+      return instances.size();
+    }
+
+    private void expunge() {
+      java.lang.ref.Reference<? extends OS.OsInfo> reference;
+      while ((reference = collected.poll()) != null) {
+        instances.remove(((Reference)reference).key, reference);
+      }
+    }
+  }
+
+  private static final class Reference extends WeakReference<OS.OsInfo> {
+    private final Key key;
+
+    private Reference(final OS.OsInfo osInfo, final Key key, final ReferenceQueue<OS.OsInfo> queue) {
+      super(osInfo, queue);
+      this.key = key;
+    }
+  }
+
+  private static final class Key {
+    private final String name;
+    private final String version;
+    private final String arch;
+    private final String platformName;
+    private final int hash;
+
+    private Key(final OS.OsInfo osInfo) {
+      this.name = osInfo.getName();
+      this.version = osInfo.getVersion();
+      this.arch = osInfo.getArch();
+      this.platformName = osInfo.getPlatformName();
+      this.hash = osInfo.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key)o;
+      return hash == other.hash && OS.OsInfo.equal(platformName, other.platformName) && OS.OsInfo.equal(name, other.name)
+             && OS.OsInfo.equal(version, other.version) && OS.OsInfo.equal(arch, other.arch);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
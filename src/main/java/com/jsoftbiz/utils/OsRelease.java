@@ -0,0 +1,423 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable model of a systemd os-release file, with all its fields, e.g.
+ * <br>
+ * ID=rhel, ID_LIKE="fedora", VERSION_ID="9.3"
+ * <br>
+ * <br>
+ * The keys and values are kept side by side in a single array. The keys defined by the os-release specification
+ * are the constants of this class, and the keys of any parsed file are interned, so that a lookup by a constant
+ * is an identity comparison.
+ * <br>
+ * The ID, ID_LIKE and VERSION_ID fields are also parsed once, so that questions like "is this debian-like" or
+ * "is this RHEL 9 or later" are answered by {@link #isLike(String)} and {@link #getMajorVersion()} without any parsing.
+ *
+ * @author Aurelien Broszniowski
+ * @see <a href="https://www.freedesktop.org/software/systemd/man/os-release.html">os-release</a>
+ */
+public final class OsRelease {
+
+  public static final String NAME = "NAME";
+  public static final String ID = "ID";
+  public static final String ID_LIKE = "ID_LIKE";
+  public static final String PRETTY_NAME = "PRETTY_NAME";
+  public static final String CPE_NAME = "CPE_NAME";
+  public static final String VARIANT = "VARIANT";
+  public static final String VARIANT_ID = "VARIANT_ID";
+  public static final String VERSION = "VERSION";
+  public static final String VERSION_ID = "VERSION_ID";
+  public static final String VERSION_CODENAME = "VERSION_CODENAME";
+  public static final String BUILD_ID = "BUILD_ID";
+  public static final String IMAGE_ID = "IMAGE_ID";
+  public static final String IMAGE_VERSION = "IMAGE_VERSION";
+  public static final String PLATFORM_ID = "PLATFORM_ID";
+  public static final String HOME_URL = "HOME_URL";
+  public static final String DOCUMENTATION_URL = "DOCUMENTATION_URL";
+  public static final String SUPPORT_URL = "SUPPORT_URL";
+  public static final String BUG_REPORT_URL = "BUG_REPORT_URL";
+  public static final String PRIVACY_POLICY_URL = "PRIVACY_POLICY_URL";
+  public static final String SUPPORT_END = "SUPPORT_END";
+  public static final String LOGO = "LOGO";
+  public static final String ANSI_COLOR = "ANSI_COLOR";
+  public static final String DEFAULT_HOSTNAME = "DEFAULT_HOSTNAME";
+
+  private static final String[] KNOWN_KEYS = {
+      NAME, ID, ID_LIKE, PRETTY_NAME, CPE_NAME, VARIANT, VARIANT_ID, VERSION, VERSION_ID, VERSION_CODENAME,
+      BUILD_ID, IMAGE_ID, IMAGE_VERSION, PLATFORM_ID, HOME_URL, DOCUMENTATION_URL, SUPPORT_URL, BUG_REPORT_URL,
+      PRIVACY_POLICY_URL, SUPPORT_END, LOGO, ANSI_COLOR, DEFAULT_HOSTNAME
+  };
+  private static final String[] NO_IDS = new String[0];
+
+  // key0, value0, key1, value1...
+  private final String[] entries;
+  private final String id;
+  private final String[] idLike;
+  private final Version version;
+  private final int majorVersion;
+
+  private OsRelease(final String[] entries) {
+    this.entries = entries;
+    String idValue = lookup(entries, ID);
+    this.id = idValue != null ? idValue : "linux";
+    String idLikeValue = lookup(entries, ID_LIKE);
+    this.idLike = idLikeValue == null || idLikeValue.trim().length() == 0 ? NO_IDS : idLikeValue.trim().split("\\s+");
+    this.version = Version.parse(lookup(entries, VERSION_ID));
+    this.majorVersion = version != null ? version.getMajor() : -1;
+  }
+
+  /**
+   * Parses the content of an os-release file. When a key is assigned more than once, the last value wins.
+   */
+  public static OsRelease parse(final CharSequence content) {
+    String[] entries = new String[2 * 16];
+    int size = 0;
+    KeyValueScanner scanner = new KeyValueScanner();
+    int length = content.length();
+    int start = 0;
+    while (start < length) {
+      int end = ReleaseFiles.lineEnd(content, start, length);
+      if (scanner.scan(content, start, end)) {
+        String key = internKey(scanner);
+        int index = indexOf(entries, size, key);
+        if (index < 0) {
+          if (size == entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+          }
+          index = size;
+          entries[index] = key;
+          size += 2;
+        }
+        entries[index + 1] = scanner.value();
+      }
+      start = ReleaseFiles.nextLineStart(content, end, length);
+    }
+    return new OsRelease(Arrays.copyOf(entries, size));
+  }
+
+  /**
+   * Reads the os-release file of a root file system, /etc/os-release or else /usr/lib/os-release.
+   *
+   * @return the os-release model, or null if the root file system has none
+   * @throws IOException if the file exists but can not be read
+   */
+  public static OsRelease read(final Path root) throws IOException {
+    ReleaseFileReader reader = new ReleaseFileReader();
+    try {
+      return parse(reader.read(root.resolve("etc").resolve("os-release")));
+    } catch (NoSuchFileException e) {
+      // the fallback location of the specification
+    }
+    try {
+      return parse(reader.read(root.resolve("usr").resolve("lib").resolve("os-release")));
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @param key a key, ideally one of the constants of this class
+   * @return the value of the key, or null if the file does not set it
+   */
+  public String get(final String key) {
+    return lookup(entries, key);
+  }
+
+  /**
+   * @return the keys set by the file, in their order of appearance
+   */
+  public List<String> getKeys() {
+    List<String> keys = new ArrayList<String>(entries.length / 2);
+    for (int i = 0; i < entries.length; i += 2) {
+      keys.add(entries[i]);
+    }
+    return Collections.unmodifiableList(keys);
+  }
+
+  /**
+   * @return the NAME, "Linux" by default
+   */
+  public String getName() {
+    String name = get(NAME);
+    return name != null ? name : "Linux";
+  }
+
+  /**
+   * @return the ID, "linux" by default
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * @return the ID_LIKE identifiers, closest first, empty if the file does not set any
+   */
+  public List<String> getIdLike() {
+    return Collections.unmodifiableList(Arrays.asList(idLike));
+  }
+
+  /**
+   * @return the PRETTY_NAME, "Linux" by default
+   */
+  public String getPrettyName() {
+    String prettyName = get(PRETTY_NAME);
+    return prettyName != null ? prettyName : "Linux";
+  }
+
+  public String getVersion() {
+    return get(VERSION);
+  }
+
+  public String getVersionId() {
+    return get(VERSION_ID);
+  }
+
+  public String getVersionCodename() {
+    return get(VERSION_CODENAME);
+  }
+
+  public String getVariantId() {
+    return get(VARIANT_ID);
+  }
+
+  /**
+   * @return the numeric VERSION_ID, or null if it is not set, does not start with a number (e.g. rolling releases)
+   * or has a number too large to compare
+   */
+  public Version getParsedVersion() {
+    return version;
+  }
+
+  /**
+   * @return the major number of the VERSION_ID, or -1 if there is none
+   */
+  public int getMajorVersion() {
+    return majorVersion;
+  }
+
+  /**
+   * @return whether the ID is the given one
+   */
+  public boolean isId(final String otherId) {
+    return id.equals(otherId);
+  }
+
+  /**
+   * @return whether the ID is the given one, or the distribution derives from it according to ID_LIKE,
+   * e.g. isLike("debian") is true for Ubuntu and Linux Mint
+   */
+  public boolean isLike(final String otherId) {
+    if (id.equals(otherId)) {
+      return true;
+    }
+    for (String like : idLike) {
+      if (like.equals(otherId)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof OsRelease)) {
+      return false;
+    }
+    return Arrays.equals(entries, ((OsRelease)o).entries);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(entries);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("OsRelease{");
+    for (int i = 0; i < entries.length; i += 2) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(entries[i]).append(" = ").append(entries[i + 1]);
+    }
+    return sb.append('}').toString();
+  }
+
+  private static String internKey(final KeyValueScanner scanner) {
+    for (String knownKey : KNOWN_KEYS) {
+      if (scanner.keyIs(knownKey)) {
+        return knownKey;
+      }
+    }
+    return scanner.key().intern();
+  }
+
+  private static int indexOf(final String[] entries, final int size, final String key) {
+    // the keys are interned, but the callers may not be
+    for (int i = 0; i < size; i += 2) {
+      if (entries[i] == key) {
+        return i;
+      }
+    }
+    for (int i = 0; i < size; i += 2) {
+      if (entries[i].equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static String lookup(final String[] entries, final String key) {
+    int index = indexOf(entries, entries.length, key);
+    return index < 0 ? null : entries[index + 1];
+  }
+
+  /**
+   * A dotted numeric version, e.g. 9.3 or 22.04, compared number by number : 9.10 is after 9.9,
+   * and missing numbers count as 0, so 9 equals 9.0.
+   */
+  public static final class Version implements Comparable<Version> {
+    private final String value;
+    private final int[] numbers;
+
+    private Version(final String value, final int[] numbers) {
+      this.value = value;
+      this.numbers = numbers;
+    }
+
+    /**
+     * Parses the leading dotted numbers of a version, anything after them is ignored, e.g. "7.9.2009" or "40-beta".
+     *
+     * @return the version, or null if the value does not start with a number, or if a number overflows an int
+     */
+    public static Version parse(final String value) {
+      if (value == null) {
+        return null;
+      }
+      int[] numbers = new int[4];
+      int count = 0;
+      int i = 0;
+      int length = value.length();
+      while (i < length) {
+        int start = i;
+        int number = 0;
+        while (i < length && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+          int digit = value.charAt(i) - '0';
+          if (number > (Integer.MAX_VALUE - digit) / 10) {
+            return null;
+          }
+          number = number * 10 + digit;
+          i++;
+        }
+        if (i == start) {
+          break;
+        }
+        if (count == numbers.length) {
+          numbers = Arrays.copyOf(numbers, count * 2);
+        }
+        numbers[count++] = number;
+        if (i + 1 < length && value.charAt(i) == '.' && value.charAt(i + 1) >= '0' && value.charAt(i + 1) <= '9') {
+          i++;
+        } else {
+          break;
+        }
+      }
+      return count == 0 ? null : new Version(value, Arrays.copyOf(numbers, count));
+    }
+
+    public int getMajor() {
+      return numbers[0];
+    }
+
+    /**
+     * @return the minor number, 0 if there is none
+     */
+    public int getMinor() {
+      return get(1);
+    }
+
+    /**
+     * @return the number at the index, 0 if there is none
+     */
+    public int get(final int index) {
+      return index < numbers.length ? numbers[index] : 0;
+    }
+
+    /**
+     * @return how many numbers the version has
+     */
+    public int size() {
+      return numbers.length;
+    }
+
+    public boolean isAtLeast(final int major, final int minor) {
+      return getMajor() > major || (getMajor() == major && getMinor() >= minor);
+    }
+
+    @Override
+    public int compareTo(final Version other) {
+      int size = Math.max(numbers.length, other.numbers.length);
+      for (int i = 0; i < size; i++) {
+        int first = get(i);
+        int second = other.get(i);
+        if (first != second) {
+          return first < second ? -1 : 1;
+        }
+      }
+      return 0;
+    }
+
+    /**
+     * Consistent with {@link #compareTo(Version)} : 9 equals 9.0.
+     */
+    @Override
+    public boolean equals(final Object o) {
+      return this == o || (o instanceof Version && compareTo((Version)o) == 0);
+    }
+
+    @Override
+    public int hashCode() {
+      int length = numbers.length;
+      while (length > 1 && numbers[length - 1] == 0) {
+        length--;
+      }
+      int hash = 1;
+      for (int i = 0; i < length; i++) {
+        hash = 31 * hash + numbers[i];
+      }
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return value;
+    }
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+/**
+ * Notified when the platform of the running host changes while the JVM runs, e.g. after an in-place upgrade
+ * of the distribution, see {@link OS#watch()}.
+ *
+ * @author Aurelien Broszniowski
+ */
+public interface PlatformChangeListener {
+
+  /**
+   * Called from the watcher thread once the new platform information is published.
+   *
+   * @param previous the platform information before the change
+   * @param current  the platform information now returned by {@link OS}
+   */
+  void platformChanged(OS.OsInfo previous, OS.OsInfo current);
+}
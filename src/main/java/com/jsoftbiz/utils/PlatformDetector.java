@@ -0,0 +1,65 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+
+/**
+ * A stage of the platform detection pipeline.
+ * <br>
+ * The detectors run by increasing priority, and the first one returning a platform name wins. Besides the built-in
+ * detectors, implementations are discovered with {@link java.util.ServiceLoader}, by listing them in
+ * META-INF/services/com.jsoftbiz.utils.PlatformDetector.
+ * <br>
+ * The built-in detectors, and their priority, are :
+ * <ul>
+ * <li>mac (100) : Mac OS and OS X codenames from the os.version property</li>
+ * <li>darwin (110) : OS X codenames from the Darwin kernel version</li>
+ * <li>lsb-release (200) : /etc/lsb-release</li>
+ * <li>os-release (300) : /etc/os-release</li>
+ * <li>system-release (400) : /etc/system-release</li>
+ * <li>release-glob (500) : the first /etc/*-release file</li>
+ * <li>version-glob (600) : the first /etc/*_version file</li>
+ * <li>issue (700) : /etc/issue</li>
+ * <li>proc-version (800) : /proc/version</li>
+ * </ul>
+ * Any detector can be disabled by listing its id, comma separated, in the
+ * {@value DetectorPipeline#DISABLED_DETECTORS_PROPERTY} system property.
+ *
+ * @author Aurelien Broszniowski
+ */
+public interface PlatformDetector {
+
+  /**
+   * @return the unique id of the detector, used to disable it
+   */
+  String getId();
+
+  /**
+   * @return the priority of the detector, the lowest runs first
+   */
+  int getPriority();
+
+  /**
+   * Detects the platform name. Detectors may run concurrently, so an implementation must be thread safe.
+   *
+   * @param context gives access to the OS properties and to the files of the probed file system
+   * @return the platform name, or null if this detector does not apply or can not tell
+   * @throws IOException if a file could not be read, which is the same as returning null
+   */
+  String detect(DetectionContext context) throws IOException;
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The {@link PlatformMXBean} published for the running host. It is only loaded when tracing is on,
+ * so that the JMX classes are never touched otherwise.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class PlatformMBean implements PlatformMXBean {
+
+  private volatile OS.OsInfo osInfo;
+  private volatile DetectionTrace trace;
+
+  PlatformMBean(final OS.OsInfo osInfo, final DetectionTrace trace) {
+    this.osInfo = osInfo;
+    this.trace = trace;
+  }
+
+  /**
+   * Registers the bean in the platform MBean server. A failure, e.g. because another class loader
+   * already registered one, is ignored : it must not break the detection.
+   *
+   * @return the bean, to {@link #update(OS.OsInfo, DetectionTrace)} when the platform information is refreshed
+   */
+  static PlatformMBean register(final OS.OsInfo osInfo, final DetectionTrace trace) {
+    PlatformMBean bean = new PlatformMBean(osInfo, trace);
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(bean, new ObjectName(OBJECT_NAME));
+    } catch (JMException e) {
+      // already registered, or not compliant in this environment
+    } catch (SecurityException e) {
+      // not allowed to register
+    }
+    return bean;
+  }
+
+  /**
+   * @param current      the platform information detected again, e.g. by the watcher after an in-place upgrade
+   * @param currentTrace the trace of that detection
+   */
+  void update(final OS.OsInfo current, final DetectionTrace currentTrace) {
+    this.trace = currentTrace;
+    this.osInfo = current;
+  }
+
+  @Override
+  public String getName() {
+    return osInfo.getName();
+  }
+
+  @Override
+  public String getVersion() {
+    return osInfo.getVersion();
+  }
+
+  @Override
+  public String getArch() {
+    return osInfo.getArch();
+  }
+
+  @Override
+  public String getPlatformName() {
+    return osInfo.getPlatformName();
+  }
+
+  @Override
+  public String getDetectorId() {
+    return trace.getDetectorId();
+  }
+
+  @Override
+  public long getDetectionNanos() {
+    return trace.getNanos();
+  }
+
+  @Override
+  public String[] getProbes() {
+    List<DetectionTrace.Probe> probes = trace.getProbes();
+    String[] lines = new String[probes.size()];
+    for (int i = 0; i < lines.length; i++) {
+      lines[i] = probes.get(i).toString();
+    }
+    return lines;
+  }
+}
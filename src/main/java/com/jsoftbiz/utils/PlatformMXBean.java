@@ -0,0 +1,48 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+/**
+ * JMX view of the platform detection of the running host, registered under {@link #OBJECT_NAME}
+ * once the platform name is resolved, when {@link OS#TRACE_PROPERTY} is set to true.
+ *
+ * @author Aurelien Broszniowski
+ */
+public interface PlatformMXBean {
+
+  String OBJECT_NAME = "com.jsoftbiz.utils:type=Platform";
+
+  String getName();
+
+  String getVersion();
+
+  String getArch();
+
+  String getPlatformName();
+
+  /**
+   * @return the id of the detector that gave the platform name, or null if it is the fallback on the OS name
+   */
+  String getDetectorId();
+
+  long getDetectionNanos();
+
+  /**
+   * @return one line per probe of the {@link DetectionTrace}, in the order they completed
+   */
+  String[] getProbes();
+}
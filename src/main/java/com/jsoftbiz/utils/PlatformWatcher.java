@@ -0,0 +1,267 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Watches the files the platform name was detected from, with a {@link WatchService} rather than by polling,
+ * and detects it again when they change.
+ * <br>
+ * A change of a file read by the detector that gave the answer only re-runs that detector. A change of any other
+ * consulted file, e.g. a release file of a higher priority detector that appears, re-runs the whole pipeline,
+ * as does a detector that stops answering. Symbolic links, like /etc/os-release, are followed and their target
+ * directory is watched too.
+ * <br>
+ * Upgrades rewrite files in bursts, so the detection only runs once the events have settled.
+ * <br>
+ * When traced, each detection is recorded in a new {@link DetectionTrace}, handed over with its result.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class PlatformWatcher implements Closeable {
+
+  static final long SETTLE_MILLIS = 200;
+
+  private final Path root;
+  private final String name;
+  private final String version;
+  private final String arch;
+  private final boolean host;
+  private final boolean traced;
+  private final BiConsumer<OS.OsInfo, DetectionTrace> consumer;
+  private final WatchService watchService;
+  private final Thread thread;
+  private final Set<Path> watchedDirs = new HashSet<Path>();
+  // watched file -> consulted path it stands for, e.g. /usr/lib/os-release -> /etc/os-release
+  private final Map<Path, Path> watchedFiles = new HashMap<Path, Path>();
+  private volatile OS.OsInfo osInfo;
+  private volatile DetectionTrace trace;
+  private volatile boolean closed;
+
+  // only touched by the constructor, then by the watcher thread
+  private PlatformDetector detector;
+  private Set<Path> detectorFiles = new HashSet<Path>();
+  private Set<Path> consultedDirs = new HashSet<Path>();
+
+  /**
+   * Detects the platform, then starts watching its sources in a daemon thread.
+   *
+   * @param traced   true to record each detection in a {@link DetectionTrace}
+   * @param consumer receives the platform information from the watcher thread, each time it is detected again,
+   *                 with the trace of that detection, or null if not traced
+   */
+  PlatformWatcher(final Path root, final String name, final String version, final String arch, final boolean host,
+                  final boolean traced, final BiConsumer<OS.OsInfo, DetectionTrace> consumer) throws IOException {
+    this.root = root;
+    this.name = name;
+    this.version = version;
+    this.arch = arch;
+    this.host = host;
+    this.traced = traced;
+    this.consumer = consumer;
+    this.watchService = root.getFileSystem().newWatchService();
+    this.osInfo = detect(true);
+    this.thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        watch();
+      }
+    }, "os-platform-finder-watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * @return the last detected platform information
+   */
+  OS.OsInfo getOsInfo() {
+    return osInfo;
+  }
+
+  /**
+   * @return the trace of the last detection, or null if not traced
+   */
+  DetectionTrace getTrace() {
+    return trace;
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    watchService.close();
+  }
+
+  private void watch() {
+    try {
+      while (!closed) {
+        WatchKey key = watchService.take();
+        boolean[] changes = new boolean[2];
+        collect(key, changes);
+        // let the burst of events settle
+        while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+          collect(key, changes);
+        }
+        if (changes[1]) {
+          publish(detect(true));
+        } else if (changes[0]) {
+          publish(detect(false));
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ClosedWatchServiceException e) {
+      // closed
+    }
+  }
+
+  /**
+   * @param changes set to true at index 0 if a file of the answering detector changed, at index 1 if another one did
+   */
+  private void collect(final WatchKey key, final boolean[] changes) {
+    Path dir = (Path)key.watchable();
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        changes[1] = true;
+        continue;
+      }
+      Path consulted = watchedFiles.get(dir.resolve((Path)event.context()));
+      if (consulted != null && detectorFiles.contains(consulted)) {
+        changes[0] = true;
+      } else if (consulted != null || consultedDirs.contains(dir)) {
+        changes[1] = true;
+      }
+    }
+    key.reset();
+  }
+
+  private void publish(final OS.OsInfo detected) {
+    osInfo = detected;
+    try {
+      consumer.accept(detected, trace);
+    } catch (RuntimeException e) {
+      // keep watching, a failing consumer must not stop the following changes from being seen
+      Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+  }
+
+  /**
+   * @param all true to run the whole pipeline, false to first re-run the detector that gave the answer
+   */
+  private OS.OsInfo detect(final boolean all) {
+    DetectionTrace next = traced ? new DetectionTrace() : null;
+    DetectionListener listener = next == null ? null : next.recorder();
+    long start = 0;
+    if (listener != null) {
+      listener.detectionStarted(root);
+      start = System.nanoTime();
+    }
+    OS.OsInfo detected = all ? detectAll(listener) : detectAgain(listener);
+    if (listener != null) {
+      listener.detectionEnded(detected.getPlatformName(), detector == null ? null : detector.getId(), System.nanoTime() - start);
+    }
+    trace = next;
+    return detected;
+  }
+
+  private OS.OsInfo detectAll(final DetectionListener listener) {
+    ProbeContext context = new ProbeContext(root, name, version, arch, host, listener);
+    String platformName = DetectorPipeline.defaultPipeline().detect(context);
+    detector = platformName == null ? null : context.getDetector();
+    detectorFiles = detector == null ? new HashSet<Path>() : new HashSet<Path>(context.getConsulted(detector));
+    consultedDirs = new HashSet<Path>();
+    register(context.getConsulted());
+    return OS.OsInfo.of(name, version, arch, platformName != null ? platformName : name);
+  }
+
+  private OS.OsInfo detectAgain(final DetectionListener listener) {
+    if (detector == null) {
+      return detectAll(listener);
+    }
+    ProbeContext context = new ProbeContext(root, name, version, arch, host, listener);
+    String platformName = DetectorPipeline.detectWith(context, detector);
+    if (platformName == null) {
+      return detectAll(listener);
+    }
+    // a symbolic link may point somewhere else now
+    register(context.getConsulted(detector));
+    return OS.OsInfo.of(name, version, arch, platformName);
+  }
+
+  private void register(final List<Path> consulted) {
+    for (Path path : consulted) {
+      if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+        consultedDirs.add(path);
+        registerDir(path);
+        continue;
+      }
+      watchFile(path, path);
+      if (Files.isSymbolicLink(path)) {
+        try {
+          watchFile(path.toRealPath(), path);
+        } catch (IOException e) {
+          // dangling link, its own directory is watched
+        }
+      }
+    }
+  }
+
+  private void watchFile(final Path file, final Path consulted) {
+    Path dir = file.getParent();
+    if (dir != null && registerDir(dir)) {
+      watchedFiles.put(file, consulted);
+    }
+  }
+
+  private boolean registerDir(final Path dir) {
+    if (watchedDirs.contains(dir)) {
+      return true;
+    }
+    try {
+      dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+          StandardWatchEventKinds.ENTRY_DELETE);
+      watchedDirs.add(dir);
+      return true;
+    } catch (IOException e) {
+      // e.g. the directory does not exist
+      return false;
+    } catch (ClosedWatchServiceException e) {
+      return false;
+    }
+  }
+}
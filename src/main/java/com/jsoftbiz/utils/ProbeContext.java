@@ -0,0 +1,249 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * State shared by the {@link PlatformDetector}s of one detection run against a root file system,
+ * which is "/" for the running host, or e.g. an extracted container image or a mounted snapshot.
+ * <br>
+ * The /etc index is built on first demand only, and at most once even when the detectors run concurrently.
+ * The context also records the files the detectors consulted and the detector that gave the answer,
+ * which is what the {@link DetectionCache} needs to revalidate a result.
+ * <br>
+ * The read buffer is not shared : detectors running concurrently each get a {@link #fork()} of the context.
+ * <br>
+ * When a {@link DetectionListener} is set, every read and directory scan is reported to it with its timing.
+ * Without one, the probes take the exact same path as before and never read the clock.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class ProbeContext implements DetectionContext {
+
+  private final Path root;
+  private final String name;
+  private final String version;
+  private final String arch;
+  private final boolean host;
+  private final boolean unix;
+  private final Shared shared;
+  private final ReleaseFileReader reader = new ReleaseFileReader();
+  private String detectorId;
+
+  /**
+   * @param host true if the root is the file system of the running host, in which case the Unix sources are only
+   *             probed on Unix platforms, while any other root is considered to be a Unix file system
+   */
+  ProbeContext(final Path root, final String name, final String version, final String arch, final boolean host) {
+    this(root, name, version, arch, host, (DetectionListener)null);
+  }
+
+  /**
+   * @param listener receives the probes of the detection, or null
+   */
+  ProbeContext(final Path root, final String name, final String version, final String arch, final boolean host, final DetectionListener listener) {
+    this(root, name, version, arch, host, !host || OsFamily.of(name) == OsFamily.UNIX, new Shared(root.resolve("etc"), listener));
+  }
+
+  private ProbeContext(final Path root, final String name, final String version, final String arch, final boolean host, final boolean unix, final Shared shared) {
+    this.root = root;
+    this.name = name;
+    this.version = version;
+    this.arch = arch;
+    this.host = host;
+    this.unix = unix;
+    this.shared = shared;
+  }
+
+  /**
+   * @return a context sharing everything with this one but its read buffer
+   */
+  ProbeContext fork() {
+    return new ProbeContext(root, name, version, arch, host, unix, shared);
+  }
+
+  @Override
+  public Path getRoot() {
+    return root;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String getVersion() {
+    return version;
+  }
+
+  @Override
+  public String getArch() {
+    return arch;
+  }
+
+  @Override
+  public CharSequence read(final Path path) throws IOException {
+    DetectionListener listener = shared.listener;
+    if (listener == null) {
+      return reader.read(consult(path));
+    }
+    long start = System.nanoTime();
+    try {
+      CharSequence content = reader.read(consult(path));
+      listener.probed(detectorId, path, DetectionTrace.Outcome.READ, reader.bytesRead(), System.nanoTime() - start);
+      return content;
+    } catch (NoSuchFileException e) {
+      listener.probed(detectorId, path, DetectionTrace.Outcome.MISSING, 0, System.nanoTime() - start);
+      throw e;
+    } catch (IOException e) {
+      listener.probed(detectorId, path, DetectionTrace.Outcome.FAILED, 0, System.nanoTime() - start);
+      throw e;
+    }
+  }
+
+  /**
+   * @return whether the probed file system is the one of the running host, which the OS name describes
+   */
+  boolean isHost() {
+    return host;
+  }
+
+  /**
+   * @return whether the probed file system is expected to hold the Unix release files
+   */
+  boolean isUnix() {
+    return unix;
+  }
+
+  Path etcFile(final String fileName) {
+    return shared.etcDir.resolve(fileName);
+  }
+
+  Path procVersion() {
+    return root.resolve("proc").resolve("version");
+  }
+
+  /**
+   * Lists /etc on first use. The listing holds a {@link ReentrantLock} rather than a monitor, so that a virtual
+   * thread blocked on the file system does not pin its carrier thread.
+   */
+  EtcIndex etcIndex() {
+    shared.etcIndexLock.lock();
+    try {
+      if (shared.etcIndex == null) {
+        consult(shared.etcDir);
+        DetectionListener listener = shared.listener;
+        if (listener == null) {
+          shared.etcIndex = EtcIndex.scan(shared.etcDir);
+        } else {
+          long start = System.nanoTime();
+          shared.etcIndex = EtcIndex.scan(shared.etcDir);
+          listener.probed(detectorId, shared.etcDir, shared.etcIndex.exists() ? DetectionTrace.Outcome.LISTED : DetectionTrace.Outcome.MISSING,
+              0, System.nanoTime() - start);
+        }
+      }
+      return shared.etcIndex;
+    } finally {
+      shared.etcIndexLock.unlock();
+    }
+  }
+
+  /**
+   * Records that the answer depends on the given file, whether it exists or not.
+   */
+  Path consult(final Path path) {
+    synchronized (shared.consulted) {
+      shared.consulted.add(path);
+      if (detectorId != null) {
+        Set<Path> consultedByDetector = shared.consultedByDetector.get(detectorId);
+        if (consultedByDetector == null) {
+          consultedByDetector = new LinkedHashSet<Path>();
+          shared.consultedByDetector.put(detectorId, consultedByDetector);
+        }
+        consultedByDetector.add(path);
+      }
+    }
+    return path;
+  }
+
+  List<Path> getConsulted() {
+    synchronized (shared.consulted) {
+      return new ArrayList<Path>(shared.consulted);
+    }
+  }
+
+  /**
+   * @return the files consulted by one detector
+   */
+  List<Path> getConsulted(final PlatformDetector detector) {
+    synchronized (shared.consulted) {
+      Set<Path> consultedByDetector = shared.consultedByDetector.get(detector.getId());
+      return consultedByDetector == null ? new ArrayList<Path>() : new ArrayList<Path>(consultedByDetector);
+    }
+  }
+
+  /**
+   * @return the listener of the detection, or null
+   */
+  DetectionListener getListener() {
+    return shared.listener;
+  }
+
+  /**
+   * Sets the detector the next probes are reported for.
+   */
+  void probing(final PlatformDetector detector) {
+    this.detectorId = detector.getId();
+  }
+
+  void answeredBy(final PlatformDetector detector) {
+    shared.detector = detector;
+  }
+
+  /**
+   * @return the detector that gave the platform name, or null if none did
+   */
+  PlatformDetector getDetector() {
+    return shared.detector;
+  }
+
+  private static final class Shared {
+    private final Path etcDir;
+    private final DetectionListener listener;
+    private final Set<Path> consulted = new LinkedHashSet<Path>();
+    private final Map<String, Set<Path>> consultedByDetector = new HashMap<String, Set<Path>>();
+    private final ReentrantLock etcIndexLock = new ReentrantLock();
+    private EtcIndex etcIndex;
+    private volatile PlatformDetector detector;
+
+    private Shared(final Path etcDir, final DetectionListener listener) {
+      this.etcDir = etcDir;
+      this.listener = listener;
+    }
+  }
+}
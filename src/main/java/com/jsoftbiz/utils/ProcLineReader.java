@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streams the lines of a possibly large /proc file, like /proc/cpuinfo which is hundreds of KB on big machines,
+ * through a fixed size byte buffer.
+ * <br>
+ * Each line is copied into a reused char array, the kernel writing these files in ASCII, and exposed as a
+ * {@link CharSequence} that is only valid until the next line : reading a file allocates nothing per line.
+ * An instance is not thread safe.
+ * <br>
+ * The buffers are positioned through {@link Buffer}, as the covariant overrides of Java 9+ do not exist on a Java 8
+ * runtime.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class ProcLineReader implements Closeable {
+
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  private final FileChannel channel;
+  private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+  private char[] chars = new char[256];
+  private CharBuffer line = CharBuffer.wrap(chars);
+  private boolean endOfFile;
+
+  /**
+   * @throws IOException if the file does not exist or can not be opened
+   */
+  ProcLineReader(final Path file) throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    ((Buffer)bytes).flip();
+  }
+
+  /**
+   * Moves to the next line.
+   *
+   * @return false at the end of the file
+   */
+  boolean next() throws IOException {
+    int length = 0;
+    while (true) {
+      if (!bytes.hasRemaining()) {
+        if (endOfFile) {
+          break;
+        }
+        ((Buffer)bytes).clear();
+        endOfFile = channel.read(bytes) < 0;
+        ((Buffer)bytes).flip();
+        if (!bytes.hasRemaining()) {
+          if (endOfFile) {
+            break;
+          }
+          continue;
+        }
+      }
+      byte b = bytes.get();
+      if (b == '\n') {
+        setLine(length);
+        return true;
+      }
+      if (length == chars.length) {
+        chars = Arrays.copyOf(chars, length * 2);
+        line = CharBuffer.wrap(chars);
+      }
+      chars[length++] = (char)(b & 0xFF);
+    }
+    if (length == 0) {
+      return false;
+    }
+    setLine(length);
+    return true;
+  }
+
+  /**
+   * @return the current line, without its terminator, valid until the next call to {@link #next()}
+   */
+  CharSequence line() {
+    return line;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void setLine(final int length) {
+    ((Buffer)line).clear();
+    ((Buffer)line).limit(length);
+  }
+}
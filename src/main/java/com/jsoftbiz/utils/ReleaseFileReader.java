@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads small text files (release files, /etc/issue, /proc/version...) in one go into a reused byte buffer,
+ * and decodes them as UTF-8 into a reused char buffer.
+ * <br>
+ * The buffers start small and grow on demand, but never beyond the maximum size given at construction :
+ * anything past it is ignored, so an unexpectedly large file can not cost unbounded memory.
+ * The returned {@link CharBuffer} is only valid until the next read, and an instance is not thread safe.
+ * <br>
+ * The buffers are flipped and cleared through {@link Buffer}, as the covariant overrides of Java 9+ do not exist
+ * on a Java 8 runtime.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class ReleaseFileReader {
+
+  static final int DEFAULT_MAX_SIZE = 64 * 1024;
+  private static final int INITIAL_SIZE = 4 * 1024;
+
+  private final int maxSize;
+  private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private ByteBuffer bytes;
+  private CharBuffer chars;
+
+  ReleaseFileReader() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  ReleaseFileReader(final int maxSize) {
+    this.maxSize = maxSize;
+    int initialSize = Math.min(INITIAL_SIZE, maxSize);
+    this.bytes = ByteBuffer.allocate(initialSize);
+    this.chars = CharBuffer.allocate(initialSize);
+  }
+
+  /**
+   * @return the decoded content of the file, truncated to the maximum size
+   * @throws IOException if the file does not exist or can not be read
+   */
+  CharBuffer read(final Path path) throws IOException {
+    ((Buffer)bytes).clear();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      while (true) {
+        if (!bytes.hasRemaining()) {
+          if (bytes.capacity() >= maxSize) {
+            break;
+          }
+          bytes = grow(bytes);
+        }
+        if (channel.read(bytes) < 0) {
+          break;
+        }
+      }
+    }
+    ((Buffer)bytes).flip();
+    return decode(bytes);
+  }
+
+  /**
+   * @return the number of bytes consumed by the last read
+   */
+  int bytesRead() {
+    return bytes.limit();
+  }
+
+  private CharBuffer decode(final ByteBuffer input) {
+    if (chars.capacity() < input.remaining()) {
+      chars = CharBuffer.allocate(bytes.capacity());
+    }
+    ((Buffer)chars).clear();
+    decoder.reset();
+    decoder.decode(input, chars, true);
+    decoder.flush(chars);
+    ((Buffer)chars).flip();
+    return chars;
+  }
+
+  private ByteBuffer grow(final ByteBuffer buffer) {
+    ByteBuffer larger = ByteBuffer.allocate(Math.min(buffer.capacity() * 2, maxSize));
+    ((Buffer)buffer).flip();
+    larger.put(buffer);
+    return larger;
+  }
+}
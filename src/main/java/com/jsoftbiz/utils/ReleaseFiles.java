@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+/**
+ * Parsers of the release files content. They work on the whole content of a file and walk its lines
+ * in place, so that no String is created for a line unless it is part of the result.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class ReleaseFiles {
+
+  private ReleaseFiles() {
+  }
+
+  /**
+   * @return the PRETTY_NAME value if there is one, else the first line, or null if the content is empty
+   */
+  static String parsePlatformName(final CharSequence content) {
+    KeyValueScanner scanner = new KeyValueScanner();
+    int length = content.length();
+    int firstLineEnd = -1;
+    String prettyName = null;
+    int start = 0;
+    while (start < length) {
+      int end = lineEnd(content, start, length);
+      if (firstLineEnd < 0) {
+        firstLineEnd = end;
+      }
+      if (scanner.scan(content, start, end) && scanner.keyIs("PRETTY_NAME")) {
+        prettyName = scanner.value();
+      }
+      start = nextLineStart(content, end, length);
+    }
+    if (prettyName != null) {
+      return prettyName;
+    }
+    if (firstLineEnd < 0) {
+      return null;
+    }
+    return content.subSequence(0, firstLineEnd).toString();
+  }
+
+  /**
+   * @return the platform name built from the systemd os-release keys, or null if none is present
+   */
+  static String parseOsReleasePlatformName(final CharSequence content) {
+    String distribName = "Linux";
+    String distribVersion = null;
+    String distribVersionId = null;
+    String distribVersionCodename = null;
+    String distribId = null;
+    boolean hasPlatformData = false;
+
+    KeyValueScanner scanner = new KeyValueScanner();
+    int length = content.length();
+    int start = 0;
+    while (start < length) {
+      int end = lineEnd(content, start, length);
+      if (scanner.scan(content, start, end)) {
+        if (scanner.keyIs("NAME")) {
+          distribName = scanner.value();
+          hasPlatformData = true;
+        } else if (scanner.keyIs("VERSION")) {
+          distribVersion = scanner.value();
+          hasPlatformData = true;
+        } else if (scanner.keyIs("VERSION_ID")) {
+          distribVersionId = scanner.value();
+          hasPlatformData = true;
+        } else if (scanner.keyIs("VERSION_CODENAME")) {
+          if (!scanner.isValueEmpty()) {
+            distribVersionCodename = scanner.value();
+            hasPlatformData = true;
+          }
+        } else if (scanner.keyIs("ID")) {
+          distribId = scanner.value();
+        }
+      }
+      start = nextLineStart(content, end, length);
+    }
+    String platformName = buildOsReleasePlatformName(distribName, distribVersion, distribVersionId, distribVersionCodename);
+    if (distribId != null) {
+      return platformName + " (" + distribId + ")";
+    }
+    if (hasPlatformData) {
+      return platformName;
+    }
+    return null;
+  }
+
+  /**
+   * @return the DISTRIB_DESCRIPTION and DISTRIB_CODENAME of a lsb-release file, or null if one of them is missing
+   */
+  static String parseLsbPlatformName(final CharSequence content) {
+    String distribDescription = null;
+    String distribCodename = null;
+
+    KeyValueScanner scanner = new KeyValueScanner();
+    int length = content.length();
+    int start = 0;
+    while (start < length) {
+      int end = lineEnd(content, start, length);
+      if (scanner.scan(content, start, end)) {
+        if (scanner.keyIs("DISTRIB_DESCRIPTION")) {
+          distribDescription = scanner.value();
+        } else if (scanner.keyIs("DISTRIB_CODENAME")) {
+          distribCodename = scanner.value();
+        }
+      }
+      start = nextLineStart(content, end, length);
+    }
+    if (distribDescription != null && distribCodename != null) {
+      return distribDescription + " (" + distribCodename + ")";
+    }
+    return null;
+  }
+
+  private static String buildOsReleasePlatformName(final String distribName, final String distribVersion, final String distribVersionId, final String distribVersionCodename) {
+    StringBuilder platformName = new StringBuilder(distribName);
+    String version = distribVersion != null ? distribVersion : distribVersionId;
+    if (version != null && version.length() > 0) {
+      platformName.append(" ").append(version);
+    }
+    if (distribVersion == null && distribVersionCodename != null) {
+      platformName.append(" (").append(distribVersionCodename).append(")");
+    }
+    return platformName.toString();
+  }
+
+  /**
+   * @return the index of the first line terminator ('\n' or '\r') at or after start, or length
+   */
+  static int lineEnd(final CharSequence content, final int start, final int length) {
+    int i = start;
+    while (i < length) {
+      char c = content.charAt(i);
+      if (c == '\n' || c == '\r') {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * @return the start of the line following the terminator at lineEnd, "\r\n" counting as one terminator
+   */
+  static int nextLineStart(final CharSequence content, final int lineEnd, final int length) {
+    if (lineEnd >= length) {
+      return length;
+    }
+    if (content.charAt(lineEnd) == '\r' && lineEnd + 1 < length && content.charAt(lineEnd + 1) == '\n') {
+      return lineEnd + 2;
+    }
+    return lineEnd + 1;
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+
+/**
+ * Fork/join task detecting the platform of a range of root file systems, and handing each result
+ * to the consumer as soon as it is known.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class RootDetectionTask extends RecursiveAction {
+
+  private static final long serialVersionUID = 1L;
+
+  private final List<Path> roots;
+  private final int from;
+  private final int to;
+  private final BiConsumer<? super Path, ? super OS.OsInfo> consumer;
+
+  RootDetectionTask(final List<Path> roots, final int from, final int to, final BiConsumer<? super Path, ? super OS.OsInfo> consumer) {
+    this.roots = roots;
+    this.from = from;
+    this.to = to;
+    this.consumer = consumer;
+  }
+
+  @Override
+  protected void compute() {
+    if (to - from <= 1) {
+      if (to > from) {
+        Path root = roots.get(from);
+        consumer.accept(root, OS.detect(root));
+      }
+      return;
+    }
+    int middle = (from + to) >>> 1;
+    invokeAll(new RootDetectionTask(roots, from, middle, consumer), new RootDetectionTask(roots, middle, to, consumer));
+  }
+}
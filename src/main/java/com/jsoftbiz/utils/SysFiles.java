@@ -0,0 +1,175 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+/**
+ * Helpers reading the small text files of /proc and /sys, and parsing their numbers in place.
+ * <br>
+ * Their content is read with a {@link ReleaseFileReader}, so that a facet reading many of them reuses one buffer.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class SysFiles {
+
+  /**
+   * Returned by the parsers when there is no number.
+   */
+  static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+  private SysFiles() {
+  }
+
+  /**
+   * @return the content of the file, valid until the next read of the reader, or null if it can not be read
+   */
+  static CharSequence read(final ReleaseFileReader reader, final Path file) {
+    try {
+      return reader.read(file);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return the first number of the file, e.g. of "536870912\n", or {@link #NOT_A_NUMBER}
+   */
+  static long readLong(final ReleaseFileReader reader, final Path file) {
+    CharSequence content = read(reader, file);
+    if (content == null) {
+      return NOT_A_NUMBER;
+    }
+    int start = skipWhitespace(content, 0, content.length());
+    return parseLong(content, start, tokenEnd(content, start, content.length()));
+  }
+
+  /**
+   * @return the decimal number between start and end, which may be negative, or {@link #NOT_A_NUMBER}
+   * if it is not made of digits only or overflows
+   */
+  static long parseLong(final CharSequence content, final int start, final int end) {
+    int i = start;
+    boolean negative = i < end && content.charAt(i) == '-';
+    if (negative) {
+      i++;
+    }
+    if (i == end) {
+      return NOT_A_NUMBER;
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      char c = content.charAt(i);
+      if (c < '0' || c > '9' || value > (Long.MAX_VALUE - (c - '0')) / 10) {
+        return NOT_A_NUMBER;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parses a CPU list like "0-3,8,10-11", as found in cpuset files, /sys/devices/system/cpu/online
+   * and the Cpus_allowed_list of /proc/self/status.
+   *
+   * @return the CPUs of the list, or null if the list is malformed
+   */
+  static BitSet parseCpuList(final CharSequence content, final int start, final int end) {
+    BitSet cpus = new BitSet();
+    int i = skipWhitespace(content, start, end);
+    int listEnd = tokenEnd(content, i, end);
+    while (i < listEnd) {
+      int rangeEnd = i;
+      while (rangeEnd < listEnd && content.charAt(rangeEnd) != ',') {
+        rangeEnd++;
+      }
+      int dash = i;
+      while (dash < rangeEnd && content.charAt(dash) != '-') {
+        dash++;
+      }
+      long first = parseLong(content, i, dash);
+      long last = dash < rangeEnd ? parseLong(content, dash + 1, rangeEnd) : first;
+      if (first < 0 || last < first || last >= Integer.MAX_VALUE) {
+        return null;
+      }
+      cpus.set((int)first, (int)last + 1);
+      i = rangeEnd + 1;
+    }
+    return cpus;
+  }
+
+  static BitSet readCpuList(final ReleaseFileReader reader, final Path file) {
+    CharSequence content = read(reader, file);
+    return content == null ? null : parseCpuList(content, 0, content.length());
+  }
+
+  static int skipWhitespace(final CharSequence content, int start, final int end) {
+    while (start < end && Character.isWhitespace(content.charAt(start))) {
+      start++;
+    }
+    return start;
+  }
+
+  /**
+   * @return the end of the token starting at start, i.e. the index of the next whitespace, or end
+   */
+  static int tokenEnd(final CharSequence content, int start, final int end) {
+    while (start < end && !Character.isWhitespace(content.charAt(start))) {
+      start++;
+    }
+    return start;
+  }
+
+  /**
+   * @return whether the region of the content between start and end is the text
+   */
+  static boolean regionEquals(final CharSequence content, final int start, final int end, final String text) {
+    if (end - start != text.length()) {
+      return false;
+    }
+    for (int i = 0; i < text.length(); i++) {
+      if (content.charAt(start + i) != text.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the index of the first occurrence of the char, or -1
+   */
+  static int indexOf(final CharSequence content, final char c, final int start, final int end) {
+    for (int i = start; i < end; i++) {
+      if (content.charAt(i) == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the end of the region once trailing whitespace is removed
+   */
+  static int trimEnd(final CharSequence content, final int start, int end) {
+    while (end > start && Character.isWhitespace(content.charAt(end - 1))) {
+      end--;
+    }
+    return end;
+  }
+}
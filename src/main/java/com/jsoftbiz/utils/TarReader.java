@@ -0,0 +1,298 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams the entries of a tar archive, plain or gzip compressed, without extracting it.
+ * <br>
+ * It understands the ustar prefix, the GNU long names and the pax path, linkpath and size records, which is what
+ * image layers are made of. The data of an entry is only read when asked for, and skipped otherwise.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class TarReader implements Closeable {
+
+  static final char REGULAR = '0';
+  static final char HARD_LINK = '1';
+  static final char SYMBOLIC_LINK = '2';
+  static final char DIRECTORY = '5';
+
+  private static final int BLOCK_SIZE = 512;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int MAX_EXTENDED_HEADER_SIZE = 1024 * 1024;
+
+  private final InputStream in;
+  private final boolean compressed;
+  private final byte[] header = new byte[BLOCK_SIZE];
+  private byte[] scratch;
+  private long remaining;
+  private long padding;
+  private String name;
+  private String linkName;
+  private char type;
+  private long size;
+
+  /**
+   * @param in the archive, gzip compressed or not, which is closed with the reader
+   */
+  TarReader(final InputStream in) throws IOException {
+    BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+    buffered.mark(2);
+    int magic = buffered.read() | (buffered.read() << 8);
+    buffered.reset();
+    this.compressed = magic == GZIPInputStream.GZIP_MAGIC;
+    this.in = compressed ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+  }
+
+  /**
+   * Moves to the next entry, skipping what is left of the data of the current one.
+   *
+   * @return false at the end of the archive
+   */
+  boolean next() throws IOException {
+    String longName = null;
+    String longLinkName = null;
+    long paxSize = -1;
+    while (true) {
+      skip(remaining + padding);
+      remaining = 0;
+      padding = 0;
+      if (!readBlock()) {
+        return false;
+      }
+      char entryType = (char)header[156];
+      long entrySize = parseNumber(124, 12);
+      remaining = entrySize;
+      padding = (BLOCK_SIZE - entrySize % BLOCK_SIZE) % BLOCK_SIZE;
+
+      if (entryType == 'L' || entryType == 'K') {
+        String value = trimNul(new String(readExtendedHeader(entrySize), StandardCharsets.UTF_8));
+        if (entryType == 'L') {
+          longName = value;
+        } else {
+          longLinkName = value;
+        }
+      } else if (entryType == 'x') {
+        byte[] records = readExtendedHeader(entrySize);
+        int position = 0;
+        // records are "<length> <key>=<value>\n", the length counting the whole record
+        while (position < records.length) {
+          int space = position;
+          long length = 0;
+          while (space < records.length && records[space] >= '0' && records[space] <= '9') {
+            length = length * 10 + (records[space++] - '0');
+          }
+          if (space == records.length || records[space] != ' ' || length <= space - position || position + length > records.length) {
+            break;
+          }
+          String record = new String(records, space + 1, (int)(position + length - space - 2), StandardCharsets.UTF_8);
+          int equals = record.indexOf('=');
+          if (equals > 0) {
+            String key = record.substring(0, equals);
+            String value = record.substring(equals + 1);
+            if ("path".equals(key)) {
+              longName = value;
+            } else if ("linkpath".equals(key)) {
+              longLinkName = value;
+            } else if ("size".equals(key)) {
+              paxSize = SysFiles.parseLong(value, 0, value.length());
+            }
+          }
+          position += length;
+        }
+      } else if (entryType != 'g') {
+        // the global pax headers only hold defaults, and are skipped
+        type = entryType == 0 ? REGULAR : entryType;
+        name = longName != null ? longName : headerName();
+        linkName = longLinkName != null ? longLinkName : field(157, 100);
+        if (paxSize >= 0) {
+          remaining = paxSize;
+          padding = (BLOCK_SIZE - paxSize % BLOCK_SIZE) % BLOCK_SIZE;
+        }
+        size = remaining;
+        return true;
+      }
+    }
+  }
+
+  /**
+   * @return the path of the entry, as found in the archive
+   */
+  String name() {
+    return name;
+  }
+
+  /**
+   * @return the target of a link entry
+   */
+  String linkName() {
+    return linkName;
+  }
+
+  char type() {
+    return type;
+  }
+
+  long size() {
+    return size;
+  }
+
+  /**
+   * @return up to maxSize bytes of the data of the entry
+   */
+  byte[] readContent(final int maxSize) throws IOException {
+    byte[] content = new byte[(int)Math.min(remaining, maxSize)];
+    readFully(content, content.length);
+    remaining -= content.length;
+    return content;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  /**
+   * @return false at the end of the archive, i.e. at an empty block or at the end of the stream
+   */
+  private boolean readBlock() throws IOException {
+    int read = 0;
+    while (read < BLOCK_SIZE) {
+      int count = in.read(header, read, BLOCK_SIZE - read);
+      if (count < 0) {
+        if (read == 0) {
+          return false;
+        }
+        throw new EOFException("Truncated tar header");
+      }
+      read += count;
+    }
+    long checksum = 0;
+    boolean empty = true;
+    for (int i = 0; i < BLOCK_SIZE; i++) {
+      empty &= header[i] == 0;
+      checksum += (i >= 148 && i < 156) ? ' ' : header[i] & 0xFF;
+    }
+    if (empty) {
+      return false;
+    }
+    if (checksum != parseNumber(148, 8)) {
+      throw new IOException("Not a tar archive");
+    }
+    return true;
+  }
+
+  private byte[] readExtendedHeader(final long entrySize) throws IOException {
+    if (entrySize > MAX_EXTENDED_HEADER_SIZE) {
+      throw new IOException("Extended tar header of " + entrySize + " bytes");
+    }
+    return readContent((int)entrySize);
+  }
+
+  private String headerName() {
+    String entryName = field(0, 100);
+    boolean ustar = header[257] == 'u' && header[258] == 's' && header[259] == 't' && header[260] == 'a' && header[261] == 'r';
+    if (ustar) {
+      String prefix = field(345, 155);
+      if (!prefix.isEmpty()) {
+        return prefix + "/" + entryName;
+      }
+    }
+    return entryName;
+  }
+
+  private String field(final int offset, final int length) {
+    int end = offset;
+    while (end < offset + length && header[end] != 0) {
+      end++;
+    }
+    return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Numbers are octal, NUL or space terminated, or base-256 when the high bit of the first byte is set.
+   */
+  private long parseNumber(final int offset, final int length) throws IOException {
+    if ((header[offset] & 0x80) != 0) {
+      long value = header[offset] & 0x7F;
+      for (int i = offset + 1; i < offset + length; i++) {
+        value = (value << 8) | (header[i] & 0xFF);
+      }
+      return value;
+    }
+    long value = 0;
+    int i = offset;
+    while (i < offset + length && (header[i] == ' ' || header[i] == 0)) {
+      i++;
+    }
+    for (; i < offset + length && header[i] != ' ' && header[i] != 0; i++) {
+      if (header[i] < '0' || header[i] > '7') {
+        throw new IOException("Not a tar archive");
+      }
+      value = (value << 3) | (header[i] - '0');
+    }
+    return value;
+  }
+
+  private void readFully(final byte[] bytes, final int length) throws IOException {
+    int read = 0;
+    while (read < length) {
+      int count = in.read(bytes, read, length - read);
+      if (count < 0) {
+        throw new EOFException("Truncated tar entry");
+      }
+      read += count;
+    }
+  }
+
+  /**
+   * A compressed stream has to be inflated anyway, and its own skip() does it 512 bytes at a time.
+   */
+  private void skip(long count) throws IOException {
+    while (count > 0) {
+      long skipped;
+      if (compressed) {
+        if (scratch == null) {
+          scratch = new byte[BUFFER_SIZE];
+        }
+        skipped = in.read(scratch, 0, (int)Math.min(count, scratch.length));
+      } else {
+        skipped = in.skip(count);
+        if (skipped == 0) {
+          skipped = in.read() < 0 ? -1 : 1;
+        }
+      }
+      if (skipped < 0) {
+        throw new EOFException("Truncated tar entry");
+      }
+      count -= skipped;
+    }
+  }
+
+  private static String trimNul(final String value) {
+    int end = value.indexOf('\0');
+    return end < 0 ? value : value.substring(0, end);
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The kernel tunables and process limits that memory-mapped stores and servers with many connections depend on :
+ * the open files and locked memory limits of /proc/self/limits, and the vm.swappiness, vm.max_map_count,
+ * net.core.somaxconn, fs.file-max and kernel.pid_max sysctls.
+ * <br>
+ * {@link #check()} tells which of them are worse than a threshold, so that a low limit is reported at startup
+ * rather than found through an obscure failure under load.
+ *
+ * @author Aurelien Broszniowski
+ */
+public final class TuningInfo {
+
+  /**
+   * Value of the settings that could not be read.
+   */
+  public static final long UNKNOWN = -1;
+
+  /**
+   * Value of the limits that are "unlimited", greater than any threshold.
+   */
+  public static final long UNLIMITED = Long.MAX_VALUE;
+
+  public enum Setting {
+    /** soft limit of open file descriptors (ulimit -n) */
+    OPEN_FILES("Max open files", 65536, false),
+    /** soft limit of locked memory in bytes (ulimit -l), not checked by default */
+    LOCKED_MEMORY("Max locked memory", UNKNOWN, false),
+    /** tendency to swap, checked to be at most its threshold */
+    SWAPPINESS("vm.swappiness", 10, true),
+    /** maximum number of memory map areas of a process */
+    MAX_MAP_COUNT("vm.max_map_count", 262144, false),
+    /** maximum backlog of listening sockets */
+    SOMAXCONN("net.core.somaxconn", 4096, false),
+    /** maximum number of open files of the system */
+    FILE_MAX("fs.file-max", 65536, false),
+    /** maximum process id, so maximum number of processes and threads */
+    PID_MAX("kernel.pid_max", 32768, false);
+
+    private final String key;
+    private final long defaultThreshold;
+    private final boolean maximum;
+
+    Setting(final String key, final long defaultThreshold, final boolean maximum) {
+      this.key = key;
+      this.defaultThreshold = defaultThreshold;
+      this.maximum = maximum;
+    }
+
+    /**
+     * @return the name of the limit in /proc/self/limits, or the sysctl name
+     */
+    public String getKey() {
+      return key;
+    }
+
+    /**
+     * @return the threshold used by {@link TuningInfo#check()}, or {@link #UNKNOWN} if the setting is not checked
+     */
+    public long getDefaultThreshold() {
+      return defaultThreshold;
+    }
+
+    /**
+     * @return true if the threshold is a maximum, false if it is a minimum
+     */
+    public boolean isMaximum() {
+      return maximum;
+    }
+
+    private boolean isWorse(final long value, final long threshold) {
+      if (value == UNKNOWN || threshold == UNKNOWN) {
+        return false;
+      }
+      return maximum ? value > threshold : value < threshold;
+    }
+
+    private Path path(final Path procSys) {
+      return procSys.resolve(key.replace('.', '/'));
+    }
+  }
+
+  private final EnumMap<Setting, Long> values;
+  private final long openFilesHardLimit;
+  private final long lockedMemoryHardLimit;
+
+  private TuningInfo(final EnumMap<Setting, Long> values, final long openFilesHardLimit, final long lockedMemoryHardLimit) {
+    this.values = values;
+    this.openFilesHardLimit = openFilesHardLimit;
+    this.lockedMemoryHardLimit = lockedMemoryHardLimit;
+  }
+
+  /**
+   * Reads the limits of the process and the sysctls from the /proc of the root file system.
+   * Missing or unreadable files only mean that the setting is unknown.
+   *
+   * @param root "/" for the running host, or the root of a copy of its /proc
+   */
+  public static TuningInfo read(final Path root) {
+    ReleaseFileReader reader = new ReleaseFileReader();
+    EnumMap<Setting, Long> values = new EnumMap<Setting, Long>(Setting.class);
+    long[] limits = readLimits(reader, root.resolve("proc/self/limits"));
+    values.put(Setting.OPEN_FILES, limits[0]);
+    values.put(Setting.LOCKED_MEMORY, limits[2]);
+
+    Path procSys = root.resolve("proc/sys");
+    for (Setting setting : Setting.values()) {
+      if (!values.containsKey(setting)) {
+        long value = SysFiles.readLong(reader, setting.path(procSys));
+        values.put(setting, value < 0 ? UNKNOWN : value);
+      }
+    }
+    return new TuningInfo(values, limits[1], limits[3]);
+  }
+
+  /**
+   * @return the value of the setting, {@link #UNLIMITED} or {@link #UNKNOWN}
+   */
+  public long get(final Setting setting) {
+    return values.get(setting);
+  }
+
+  public long getOpenFilesLimit() {
+    return values.get(Setting.OPEN_FILES);
+  }
+
+  /**
+   * @return the hard limit of open files, up to which the process may raise its soft limit
+   */
+  public long getOpenFilesHardLimit() {
+    return openFilesHardLimit;
+  }
+
+  /**
+   * @return the soft limit of locked memory in bytes
+   */
+  public long getLockedMemoryLimit() {
+    return values.get(Setting.LOCKED_MEMORY);
+  }
+
+  public long getLockedMemoryHardLimit() {
+    return lockedMemoryHardLimit;
+  }
+
+  public long getSwappiness() {
+    return values.get(Setting.SWAPPINESS);
+  }
+
+  public long getMaxMapCount() {
+    return values.get(Setting.MAX_MAP_COUNT);
+  }
+
+  public long getSomaxconn() {
+    return values.get(Setting.SOMAXCONN);
+  }
+
+  public long getFileMax() {
+    return values.get(Setting.FILE_MAX);
+  }
+
+  public long getPidMax() {
+    return values.get(Setting.PID_MAX);
+  }
+
+  /**
+   * @return the settings worse than their default threshold, unknown settings being never reported
+   */
+  public List<Setting> check() {
+    return check(Collections.<Setting, Long>emptyMap());
+  }
+
+  /**
+   * @param thresholds the thresholds replacing the default ones, {@link #UNKNOWN} disabling the check of a setting
+   * @return the settings worse than their threshold, unknown settings being never reported
+   */
+  public List<Setting> check(final Map<Setting, Long> thresholds) {
+    List<Setting> settings = new ArrayList<Setting>();
+    for (Setting setting : Setting.values()) {
+      Long threshold = thresholds.get(setting);
+      if (setting.isWorse(values.get(setting), threshold != null ? threshold : setting.getDefaultThreshold())) {
+        settings.add(setting);
+      }
+    }
+    return settings;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("TuningInfo{");
+    for (Map.Entry<Setting, Long> entry : values.entrySet()) {
+      if (sb.length() > "TuningInfo{".length()) {
+        sb.append(", ");
+      }
+      long value = entry.getValue();
+      sb.append(entry.getKey().getKey()).append(" = ").append(value == UNLIMITED ? "unlimited" : String.valueOf(value));
+    }
+    return sb.append('}').toString();
+  }
+
+  /**
+   * Lines are "Max open files            1024                 1048576              files", the limit name being
+   * followed by the soft and the hard limits.
+   *
+   * @return the soft and hard open files limits, then the soft and hard locked memory limits
+   */
+  private static long[] readLimits(final ReleaseFileReader reader, final Path file) {
+    long[] limits = { UNKNOWN, UNKNOWN, UNKNOWN, UNKNOWN };
+    CharSequence content = SysFiles.read(reader, file);
+    if (content == null) {
+      return limits;
+    }
+    int length = content.length();
+    int start = 0;
+    while (start < length) {
+      int end = ReleaseFiles.lineEnd(content, start, length);
+      Setting limit = startsWith(content, start, end, Setting.OPEN_FILES.getKey()) ? Setting.OPEN_FILES
+          : (startsWith(content, start, end, Setting.LOCKED_MEMORY.getKey()) ? Setting.LOCKED_MEMORY : null);
+      if (limit != null) {
+        int index = limit == Setting.OPEN_FILES ? 0 : 2;
+        int softStart = SysFiles.skipWhitespace(content, start + limit.getKey().length(), end);
+        int softEnd = SysFiles.tokenEnd(content, softStart, end);
+        int hardStart = SysFiles.skipWhitespace(content, softEnd, end);
+        limits[index] = parseLimit(content, softStart, softEnd);
+        limits[index + 1] = parseLimit(content, hardStart, SysFiles.tokenEnd(content, hardStart, end));
+      }
+      start = ReleaseFiles.nextLineStart(content, end, length);
+    }
+    return limits;
+  }
+
+  private static long parseLimit(final CharSequence content, final int start, final int end) {
+    if (SysFiles.regionEquals(content, start, end, "unlimited")) {
+      return UNLIMITED;
+    }
+    long value = SysFiles.parseLong(content, start, end);
+    return value < 0 ? UNKNOWN : value;
+  }
+
+  private static boolean startsWith(final CharSequence content, final int start, final int end, final String prefix) {
+    return end - start > prefix.length() && SysFiles.regionEquals(content, start, start + prefix.length(), prefix)
+           && Character.isWhitespace(content.charAt(start + prefix.length()));
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to the virtual threads of Java 21+, through reflection so that the library still runs on Java 8.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class VirtualThreads {
+
+  private static final ThreadFactory FACTORY = lookupFactory();
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * @return an executor starting one virtual thread per task, or null when the JVM has no virtual threads
+   */
+  static Executor executor() {
+    if (FACTORY == null) {
+      return null;
+    }
+    return new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        FACTORY.newThread(command).start();
+      }
+    };
+  }
+
+  private static ThreadFactory lookupFactory() {
+    try {
+      Method ofVirtual = Thread.class.getMethod("ofVirtual");
+      Object builder = ofVirtual.invoke(null);
+      Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+      return (ThreadFactory)factory.invoke(builder);
+    } catch (Exception e) {
+      // pre Java 21, or virtual threads still in preview and not enabled
+      return null;
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class PlatformServerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testRenderings() {
+    PlatformFacts facts = facts("Acme \"Rocket\" 2\\1");
+    Assert.assertThat(new String(facts.json(), StandardCharsets.UTF_8),
+        is(equalTo("{\"platform\":\"Acme \\\"Rocket\\\" 2\\\\1\",\"os.name\":\"Linux\"}\n")));
+    Assert.assertThat(new String(facts.text(), StandardCharsets.UTF_8), is(equalTo("platform=Acme \"Rocket\" 2\\1\nos.name=Linux\n")));
+    Assert.assertThat(new String(PlatformServer.answer(facts, "os.name"), StandardCharsets.UTF_8), is(equalTo("Linux\n")));
+    Assert.assertThat(new String(PlatformServer.answer(facts, ""), StandardCharsets.UTF_8), is(equalTo(new String(facts.json(), StandardCharsets.UTF_8))));
+  }
+
+  @Test
+  public void testHttp() throws IOException {
+    try (PlatformServer server = new PlatformServer(facts("Fedora Linux 40"))) {
+      InetSocketAddress address = server.startHttp(0);
+      String base = "http://" + address.getHostString() + ":" + address.getPort();
+      Assert.assertThat(get(base + "/"), is(equalTo("{\"platform\":\"Fedora Linux 40\",\"os.name\":\"Linux\"}\n")));
+      Assert.assertThat(get(base + "/facts?format=text"), is(equalTo("platform=Fedora Linux 40\nos.name=Linux\n")));
+      Assert.assertThat(get(base + "/facts/platform"), is(equalTo("Fedora Linux 40\n")));
+
+      server.update(facts("Fedora Linux 41"));
+      Assert.assertThat(get(base + "/facts/platform"), is(equalTo("Fedora Linux 41\n")));
+
+      HttpURLConnection connection = (HttpURLConnection)new URL(base + "/facts/unknown").openConnection();
+      Assert.assertThat(connection.getResponseCode(), is(equalTo(404)));
+      connection.disconnect();
+    }
+  }
+
+  @Test
+  public void testUnixSocket() throws Exception {
+    Path socket = folder.getRoot().toPath().resolve("platform.sock");
+    try (PlatformServer server = new PlatformServer(facts("Alpine Linux 3.20.0"))) {
+      try {
+        server.startUnix(socket);
+      } catch (IOException e) {
+        Assume.assumeTrue("Unix domain sockets need Java 16+", false);
+      }
+      Assert.assertThat(query(socket, "platform\n"), is(equalTo("Alpine Linux 3.20.0\n")));
+      Assert.assertThat(query(socket, "text\n"), is(equalTo("platform=Alpine Linux 3.20.0\nos.name=Linux\n")));
+    }
+    Assert.assertThat(Files.exists(socket), is(equalTo(false)));
+  }
+
+  @Test
+  public void testIdleUnixClients() throws Exception {
+    Path socket = folder.getRoot().toPath().resolve("platform.sock");
+    try (PlatformServer server = new PlatformServer(facts("Alpine Linux 3.20.0"), 1000)) {
+      try {
+        server.startUnix(socket);
+      } catch (IOException e) {
+        Assume.assumeTrue("Unix domain sockets need Java 16+", false);
+      }
+      InetSocketAddress address = server.startHttp(0);
+      String base = "http://" + address.getHostString() + ":" + address.getPort();
+
+      List<SocketChannel> idle = new ArrayList<SocketChannel>();
+      try {
+        for (int i = 0; i < 8; i++) {
+          SocketChannel channel = connect(socket);
+          channel.write(ByteBuffer.wrap("plat".getBytes(StandardCharsets.UTF_8)));
+          idle.add(channel);
+        }
+        long start = System.nanoTime();
+        Assert.assertThat(query(socket, "platform\n"), is(equalTo("Alpine Linux 3.20.0\n")));
+        Assert.assertThat(get(base + "/facts/platform"), is(equalTo("Alpine Linux 3.20.0\n")));
+        Assert.assertThat("answered while the idle clients are connected", System.nanoTime() - start < 1000000000L, is(equalTo(true)));
+
+        // the idle clients are disconnected once their time is up
+        for (SocketChannel channel : idle) {
+          Assert.assertThat(readAll(Channels.newInputStream(channel)), is(equalTo("")));
+        }
+      } finally {
+        for (SocketChannel channel : idle) {
+          channel.close();
+        }
+      }
+    }
+  }
+
+  private static PlatformFacts facts(final String platformName) {
+    Map<String, String> facts = new LinkedHashMap<String, String>();
+    facts.put("platform", platformName);
+    facts.put("os.name", "Linux");
+    return new PlatformFacts(facts);
+  }
+
+  private static String get(final String url) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection)new URL(url).openConnection();
+    try (InputStream in = connection.getInputStream()) {
+      return readAll(in);
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  private static String query(final Path socket, final String request) throws Exception {
+    SocketChannel channel = connect(socket);
+    try {
+      channel.write(ByteBuffer.wrap(request.getBytes(StandardCharsets.UTF_8)));
+      return readAll(Channels.newInputStream(channel));
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Opens the Unix domain socket by reflection, as the tests also compile for Java 8.
+   */
+  private static SocketChannel connect(final Path socket) throws Exception {
+    Object address = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class).invoke(null, socket);
+    return (SocketChannel)SocketChannel.class.getMethod("open", SocketAddress.class).invoke(null, address);
+  }
+
+  private static String readAll(final InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int read;
+    while ((read = in.read(buffer)) >= 0) {
+      out.write(buffer, 0, read);
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.jsoftbiz.utils.Fixtures.write;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class ContainerInfoTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testCgroupV2Docker() throws IOException {
+    Path root = folder.getRoot().toPath();
+    write(root, ".dockerenv", "");
+    write(root, "proc/self/cgroup", "0::/\n");
+    write(root, "proc/self/mountinfo",
+        "1 0 0:30 / / rw,relatime - overlay overlay rw,lowerdir=/var/lib/docker/overlay2/l/ABC\n" +
+        "2 1 0:31 / /sys/fs/cgroup ro,nosuid - cgroup2 cgroup rw,nsdelegate\n");
+    write(root, "sys/fs/cgroup/cpu.max", "150000 100000\n");
+    write(root, "sys/fs/cgroup/memory.max", "536870912\n");
+    write(root, "sys/fs/cgroup/cpuset.cpus.effective", "0-3\n");
+    write(root, "sys/devices/system/cpu/online", "0-7\n");
+
+    ContainerInfo containerInfo = ContainerInfo.read(root);
+    Assert.assertThat(containerInfo.isContainerized(), is(equalTo(true)));
+    Assert.assertThat(containerInfo.getRuntime(), is(equalTo("docker")));
+    Assert.assertThat(containerInfo.isKubernetes(), is(equalTo(false)));
+    Assert.assertThat(containerInfo.getCgroupVersion(), is(equalTo(2)));
+    Assert.assertThat(containerInfo.getCpuQuota(), is(equalTo(1.5)));
+    Assert.assertThat(containerInfo.getCpuSetCount(), is(equalTo(4)));
+    Assert.assertThat(containerInfo.getEffectiveCpuCount(), is(equalTo(2)));
+    Assert.assertThat(containerInfo.getMemoryLimit(), is(equalTo(536870912L)));
+  }
+
+  @Test
+  public void testCgroupV2HierarchicalLimits() throws IOException {
+    Path root = folder.getRoot().toPath();
+    write(root, "proc/self/cgroup", "0::/system.slice/app.service\n");
+    write(root, "proc/self/mountinfo", "2 1 0:31 / /sys/fs/cgroup rw - cgroup2 cgroup2 rw\n");
+    write(root, "sys/fs/cgroup/system.slice/app.service/cpu.max", "max 100000\n");
+    write(root, "sys/fs/cgroup/system.slice/app.service/memory.max", "max\n");
+    write(root, "sys/fs/cgroup/system.slice/cpu.max", "300000 100000\n");
+    write(root, "sys/fs/cgroup/system.slice/memory.max", "1073741824\n");
+    write(root, "sys/fs/cgroup/cpuset.cpus.effective", "0-5\n");
+    write(root, "sys/devices/system/cpu/online", "0-5\n");
+
+    ContainerInfo containerInfo = ContainerInfo.read(root);
+    Assert.assertThat(containerInfo.isContainerized(), is(equalTo(false)));
+    Assert.assertThat(containerInfo.getCpuQuota(), is(equalTo(3.0)));
+    Assert.assertThat(containerInfo.getEffectiveCpuCount(), is(equalTo(3)));
+    Assert.assertThat(containerInfo.getMemoryLimit(), is(equalTo(1073741824L)));
+  }
+
+  @Test
+  public void testCgroupV1Kubernetes() throws IOException {
+    Path root = folder.getRoot().toPath();
+    String pod = "/kubepods/burstable/pod1234/crio-abcd";
+    write(root, "proc/self/cgroup",
+        "12:memory:" + pod + "\n" +
+        "4:cpu,cpuacct:" + pod + "\n" +
+        "3:cpuset:" + pod + "\n" +
+        "1:name=systemd:" + pod + "\n");
+    write(root, "proc/self/mountinfo",
+        "30 25 0:26 " + pod + " /sys/fs/cgroup/memory ro - cgroup cgroup rw,memory\n" +
+        "31 25 0:27 " + pod + " /sys/fs/cgroup/cpu,cpuacct ro - cgroup cgroup rw,cpu,cpuacct\n" +
+        "32 25 0:28 " + pod + " /sys/fs/cgroup/cpuset ro - cgroup cgroup rw,cpuset\n");
+    write(root, "sys/fs/cgroup/cpu,cpuacct/cpu.cfs_quota_us", "200000\n");
+    write(root, "sys/fs/cgroup/cpu,cpuacct/cpu.cfs_period_us", "100000\n");
+    write(root, "sys/fs/cgroup/memory/memory.limit_in_bytes", "2147483648\n");
+    write(root, "sys/fs/cgroup/cpuset/cpuset.effective_cpus", "0-15\n");
+    write(root, "sys/devices/system/cpu/online", "0-15\n");
+
+    ContainerInfo containerInfo = ContainerInfo.read(root);
+    Assert.assertThat(containerInfo.getRuntime(), is(equalTo("cri-o")));
+    Assert.assertThat(containerInfo.isKubernetes(), is(equalTo(true)));
+    Assert.assertThat(containerInfo.getCgroupVersion(), is(equalTo(1)));
+    Assert.assertThat(containerInfo.getCpuQuota(), is(equalTo(2.0)));
+    Assert.assertThat(containerInfo.getCpuSetCount(), is(equalTo(16)));
+    Assert.assertThat(containerInfo.getEffectiveCpuCount(), is(equalTo(2)));
+    Assert.assertThat(containerInfo.getMemoryLimit(), is(equalTo(2147483648L)));
+  }
+
+  @Test
+  public void testCgroupV1Unlimited() throws IOException {
+    Path root = folder.getRoot().toPath();
+    write(root, "proc/self/cgroup", "4:memory:/user.slice\n3:cpu:/user.slice\n");
+    write(root, "proc/self/mountinfo",
+        "30 25 0:26 / /sys/fs/cgroup/memory rw - cgroup cgroup rw,memory\n" +
+        "31 25 0:27 / /sys/fs/cgroup/cpu rw - cgroup cgroup rw,cpu\n");
+    write(root, "sys/fs/cgroup/memory/user.slice/memory.limit_in_bytes", "9223372036854771712\n");
+    write(root, "sys/fs/cgroup/cpu/user.slice/cpu.cfs_quota_us", "-1\n");
+    write(root, "sys/fs/cgroup/cpu/user.slice/cpu.cfs_period_us", "100000\n");
+    write(root, "sys/devices/system/cpu/online", "0-3,6\n");
+    write(root, "proc/1/environ", "PATH=/bin\u0000container=lxc\u0000");
+
+    ContainerInfo containerInfo = ContainerInfo.read(root);
+    Assert.assertThat(containerInfo.getRuntime(), is(equalTo("lxc")));
+    Assert.assertThat(containerInfo.getCpuQuota(), is(equalTo((double)ContainerInfo.UNLIMITED)));
+    Assert.assertThat(containerInfo.getMemoryLimit(), is(equalTo(ContainerInfo.UNLIMITED)));
+    Assert.assertThat(containerInfo.getEffectiveCpuCount(), is(equalTo(5)));
+  }
+
+  @Test
+  public void testNoCgroup() {
+    ContainerInfo containerInfo = ContainerInfo.read(folder.getRoot().toPath());
+    Assert.assertThat(containerInfo.isContainerized(), is(equalTo(false)));
+    Assert.assertThat(containerInfo.getCgroupVersion(), is(equalTo(0)));
+    Assert.assertThat(containerInfo.getMemoryLimit(), is(equalTo(ContainerInfo.UNLIMITED)));
+    Assert.assertThat(containerInfo.getEffectiveCpuCount(), is(equalTo(Runtime.getRuntime().availableProcessors())));
+  }
+
+  @Test
+  public void testCpuList() {
+    Assert.assertThat(SysFiles.parseCpuList("0-3,8,10-11\n", 0, 12).cardinality(), is(equalTo(7)));
+    Assert.assertThat(SysFiles.parseCpuList("5", 0, 1).nextSetBit(0), is(equalTo(5)));
+    Assert.assertThat(SysFiles.parseCpuList("", 0, 0).isEmpty(), is(equalTo(true)));
+    Assert.assertThat(SysFiles.parseCpuList("3-1", 0, 3), is(equalTo(null)));
+    Assert.assertThat(SysFiles.parseCpuList("a-b", 0, 3), is(equalTo(null)));
+  }
+}
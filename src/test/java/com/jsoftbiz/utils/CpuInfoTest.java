@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.jsoftbiz.utils.Fixtures.write;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class CpuInfoTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testX86Topology() throws IOException {
+    Path root = folder.getRoot().toPath();
+    StringBuilder cpuInfo = new StringBuilder();
+    int processor = 0;
+    // 2 sockets x 2 cores x 2 threads
+    for (int thread = 0; thread < 2; thread++) {
+      for (int socket = 0; socket < 2; socket++) {
+        for (int core = 0; core < 2; core++) {
+          cpuInfo.append("processor\t: ").append(processor++).append('\n')
+              .append("vendor_id\t: GenuineIntel\n")
+              .append("model name\t: Intel(R) Xeon(R) Gold 6338 CPU @ 2.00GHz\n")
+              .append("physical id\t: ").append(socket).append('\n')
+              .append("core id\t\t: ").append(core * 4).append('\n')
+              .append("flags\t\t: fpu sse2 avx avx2 avx512f avx512bw\n")
+              .append('\n');
+        }
+      }
+    }
+    write(root, "proc/cpuinfo", cpuInfo.toString());
+    write(root, "sys/devices/system/cpu/online", "0-7\n");
+    write(root, "sys/devices/system/node/online", "0-1\n");
+    cache(root, 0, 1, "Data", "48K");
+    cache(root, 1, 1, "Instruction", "32K");
+    cache(root, 2, 2, "Unified", "1280K");
+    cache(root, 3, 3, "Unified", "48M");
+    write(root, "proc/self/status", "Name:\tjava\nCpus_allowed:\t0f\nCpus_allowed_list:\t0-3\n");
+
+    CpuInfo info = CpuInfo.read(root);
+    Assert.assertThat(info.getLogicalCpuCount(), is(equalTo(8)));
+    Assert.assertThat(info.getSocketCount(), is(equalTo(2)));
+    Assert.assertThat(info.getPhysicalCoreCount(), is(equalTo(4)));
+    Assert.assertThat(info.getThreadsPerCore(), is(equalTo(2)));
+    Assert.assertThat(info.getNumaNodeCount(), is(equalTo(2)));
+    Assert.assertThat(info.getL1DataCacheSize(), is(equalTo(48L * 1024)));
+    Assert.assertThat(info.getL1InstructionCacheSize(), is(equalTo(32L * 1024)));
+    Assert.assertThat(info.getL2CacheSize(), is(equalTo(1280L * 1024)));
+    Assert.assertThat(info.getL3CacheSize(), is(equalTo(48L * 1024 * 1024)));
+    Assert.assertThat(info.getCacheLineSize(), is(equalTo(64)));
+    Assert.assertThat(info.getAffinityCount(), is(equalTo(4)));
+    Assert.assertThat(info.hasAvx2(), is(equalTo(true)));
+    Assert.assertThat(info.hasAvx512(), is(equalTo(true)));
+    Assert.assertThat(info.hasSve(), is(equalTo(false)));
+    Assert.assertThat(info.getFlags().size(), is(equalTo(6)));
+    Assert.assertThat(info.getVendor(), is(equalTo("GenuineIntel")));
+    Assert.assertThat(info.getModelName(), is(equalTo("Intel(R) Xeon(R) Gold 6338 CPU @ 2.00GHz")));
+  }
+
+  @Test
+  public void testArmTopologyFromSysfs() throws IOException {
+    Path root = folder.getRoot().toPath();
+    StringBuilder cpuInfo = new StringBuilder();
+    for (int processor = 0; processor < 4; processor++) {
+      cpuInfo.append("processor\t: ").append(processor).append('\n')
+          .append("BogoMIPS\t: 243.75\n")
+          .append("Features\t: fp asimd evtstrm aes sve sve2\n")
+          .append("CPU implementer\t: 0x41\n")
+          .append('\n');
+      write(root, "sys/devices/system/cpu/cpu" + processor + "/topology/physical_package_id", "0\n");
+      write(root, "sys/devices/system/cpu/cpu" + processor + "/topology/core_id", processor + "\n");
+    }
+    write(root, "proc/cpuinfo", cpuInfo.toString());
+    write(root, "sys/devices/system/cpu/online", "0-3\n");
+
+    CpuInfo info = CpuInfo.read(root);
+    Assert.assertThat(info.getLogicalCpuCount(), is(equalTo(4)));
+    Assert.assertThat(info.getSocketCount(), is(equalTo(1)));
+    Assert.assertThat(info.getPhysicalCoreCount(), is(equalTo(4)));
+    Assert.assertThat(info.getThreadsPerCore(), is(equalTo(1)));
+    Assert.assertThat(info.getNumaNodeCount(), is(equalTo(1)));
+    Assert.assertThat(info.hasSve(), is(equalTo(true)));
+    Assert.assertThat(info.hasNeon(), is(equalTo(true)));
+    Assert.assertThat(info.hasAvx2(), is(equalTo(false)));
+    Assert.assertThat(info.getL2CacheSize(), is(equalTo((long)CpuInfo.UNKNOWN)));
+    Assert.assertThat(info.getAffinity(), is(equalTo(null)));
+    Assert.assertThat(info.getModelName(), is(equalTo(null)));
+  }
+
+  @Test
+  public void testLineReaderAcrossBuffers() throws IOException {
+    char[] longLine = new char[40000];
+    Arrays.fill(longLine, 'x');
+    Path file = folder.getRoot().toPath().resolve("lines");
+    write(folder.getRoot().toPath(), "lines", "first\n" + new String(longLine) + "\n\nlast");
+
+    List<String> lines = new ArrayList<String>();
+    try (ProcLineReader reader = new ProcLineReader(file)) {
+      while (reader.next()) {
+        lines.add(reader.line().toString());
+      }
+    }
+    Assert.assertThat(lines.size(), is(equalTo(4)));
+    Assert.assertThat(lines.get(0), is(equalTo("first")));
+    Assert.assertThat(lines.get(1).length(), is(equalTo(40000)));
+    Assert.assertThat(lines.get(2), is(equalTo("")));
+    Assert.assertThat(lines.get(3), is(equalTo("last")));
+  }
+
+  private static void cache(final Path root, final int index, final int level, final String type, final String size) throws IOException {
+    String dir = "sys/devices/system/cpu/cpu0/cache/index" + index + "/";
+    write(root, dir + "level", level + "\n");
+    write(root, dir + "type", type + "\n");
+    write(root, dir + "size", size + "\n");
+    write(root, dir + "coherency_line_size", "64\n");
+  }
+}
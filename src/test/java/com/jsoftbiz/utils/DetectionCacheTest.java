@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class DetectionCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path root;
+  private DetectionCache cache;
+
+  @Before
+  public void setUp() throws IOException {
+    root = folder.newFolder("root").toPath();
+    Files.createDirectories(root.resolve("etc"));
+    cache = new DetectionCache(folder.newFolder("cache").toPath());
+  }
+
+  @Test
+  public void testCachedResultIsReusedWhileFilesAreUnchanged() throws IOException {
+    write("etc/os-release", "NAME=\"Fedora Linux\"\nVERSION_ID=40\nID=fedora\n");
+    detectAndStore();
+
+    DetectionCache.Entry entry = cache.load(root, "Linux", "6.8", "amd64");
+    Assert.assertThat(entry.getOsInfo().getPlatformName(), is(equalTo("Fedora Linux 40 (fedora)")));
+    Assert.assertThat(entry.getDetectorId(), is(equalTo("os-release")));
+  }
+
+  @Test
+  public void testCachedResultIsInvalidatedByAChangedSource() throws IOException {
+    write("etc/os-release", "NAME=\"Fedora Linux\"\nVERSION_ID=40\nID=fedora\n");
+    detectAndStore();
+
+    write("etc/os-release", "NAME=\"Fedora Linux\"\nVERSION_ID=41.1\nID=fedora\n");
+    Assert.assertThat(cache.load(root, "Linux", "6.8", "amd64"), is(equalTo(null)));
+  }
+
+  @Test
+  public void testCachedResultIsInvalidatedByANewHigherPrioritySource() throws IOException {
+    write("etc/os-release", "NAME=\"Fedora Linux\"\nVERSION_ID=40\nID=fedora\n");
+    detectAndStore();
+
+    write("etc/lsb-release", "DISTRIB_DESCRIPTION=\"Fedora\"\nDISTRIB_CODENAME=f40\n");
+    Assert.assertThat(cache.load(root, "Linux", "6.8", "amd64"), is(equalTo(null)));
+  }
+
+  @Test
+  public void testCachedResultIsInvalidatedByAnotherKernel() throws IOException {
+    write("etc/os-release", "NAME=\"Fedora Linux\"\nVERSION_ID=40\nID=fedora\n");
+    detectAndStore();
+
+    Assert.assertThat(cache.load(root, "Linux", "6.9", "amd64"), is(equalTo(null)));
+  }
+
+  @Test
+  public void testCachedResultIsInvalidatedByOtherDisabledDetectors() throws IOException {
+    write("etc/os-release", "NAME=\"Fedora Linux\"\nVERSION_ID=40\nID=fedora\n");
+    detectAndStore();
+
+    Path dir = cache.getCacheFile().getParent();
+    Assert.assertThat(new DetectionCache(dir, "os-release").load(root, "Linux", "6.8", "amd64"), is(equalTo(null)));
+
+    cache = new DetectionCache(dir, "release-glob, proc-version");
+    detectAndStore();
+    Assert.assertThat(new DetectionCache(dir, null).load(root, "Linux", "6.8", "amd64"), is(equalTo(null)));
+    Assert.assertThat(new DetectionCache(dir, "release-glob, proc-version").load(root, "Linux", "6.8", "amd64").getDetectorId(), is(equalTo("os-release")));
+  }
+
+  @Test
+  public void testCachedResultIsInvalidatedByAnotherRoot() throws IOException {
+    write("etc/os-release", "NAME=\"Fedora Linux\"\nVERSION_ID=40\nID=fedora\n");
+    detectAndStore();
+    Path fedora = root;
+
+    root = folder.newFolder("other-root").toPath();
+    Files.createDirectories(root.resolve("etc"));
+    write("etc/os-release", "NAME=\"Ubuntu\"\nVERSION_ID=\"24.04\"\nID=ubuntu\n");
+    Assert.assertThat(cache.load(root, "Linux", "6.8", "amd64"), is(equalTo(null)));
+
+    detectAndStore();
+    Assert.assertThat(cache.load(root, "Linux", "6.8", "amd64").getOsInfo().getPlatformName(), is(equalTo("Ubuntu 24.04 (ubuntu)")));
+    Assert.assertThat(cache.load(fedora, "Linux", "6.8", "amd64"), is(equalTo(null)));
+  }
+
+  private void detectAndStore() {
+    ProbeContext context = new ProbeContext(root, "Linux", "6.8", "amd64", false);
+    String platformName = DetectorPipeline.defaultPipeline().detect(context);
+    cache.store(root, new OS.OsInfo("Linux", "6.8", "amd64", platformName), context.getDetector(), context.getConsulted());
+  }
+
+  private void write(String file, String content) throws IOException {
+    Files.write(root.resolve(file), content.getBytes(StandardCharsets.UTF_8));
+  }
+
+}
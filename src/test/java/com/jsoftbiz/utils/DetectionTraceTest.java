@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class DetectionTraceTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testTraceRecordsProbes() throws IOException {
+    byte[] osRelease = "NAME=\"Fedora Linux\"\nVERSION_ID=40\n".getBytes(StandardCharsets.UTF_8);
+    Path root = root("os-release", osRelease);
+
+    DetectionTrace trace = new DetectionTrace();
+    Assert.assertThat(OS.detect(root, trace).getPlatformName(), is(equalTo("Fedora Linux 40")));
+
+    Assert.assertThat(trace.isCompleted(), is(equalTo(true)));
+    Assert.assertThat(trace.getRoot(), is(equalTo(root)));
+    Assert.assertThat(trace.getPlatformName(), is(equalTo("Fedora Linux 40")));
+    Assert.assertThat(trace.getDetectorId(), is(equalTo("os-release")));
+
+    DetectionTrace.Probe lsbRead = find(trace, "lsb-release", root.resolve("etc/lsb-release"));
+    Assert.assertThat(lsbRead.getOutcome(), is(equalTo(DetectionTrace.Outcome.MISSING)));
+    Assert.assertThat(find(trace, "lsb-release", null).getOutcome(), is(equalTo(DetectionTrace.Outcome.NO_ANSWER)));
+
+    DetectionTrace.Probe osReleaseRead = find(trace, "os-release", root.resolve("etc/os-release"));
+    Assert.assertThat(osReleaseRead.getOutcome(), is(equalTo(DetectionTrace.Outcome.READ)));
+    Assert.assertThat(osReleaseRead.getBytesRead(), is(equalTo((long)osRelease.length)));
+    Assert.assertThat(find(trace, "os-release", null).getOutcome(), is(equalTo(DetectionTrace.Outcome.ANSWERED)));
+    Assert.assertThat(find(trace, "system-release", null), is(equalTo(null)));
+  }
+
+  @Test
+  public void testTraceRecordsDirectoryScan() throws IOException {
+    Path root = root("arch-release", "Arch Linux\n".getBytes(StandardCharsets.UTF_8));
+
+    DetectionTrace trace = new DetectionTrace();
+    Assert.assertThat(OS.detect(root, trace).getPlatformName(), is(equalTo("Arch Linux")));
+    Assert.assertThat(trace.getDetectorId(), is(equalTo("release-glob")));
+    Assert.assertThat(find(trace, "release-glob", root.resolve("etc")).getOutcome(), is(equalTo(DetectionTrace.Outcome.LISTED)));
+    Assert.assertThat(find(trace, "release-glob", root.resolve("etc/arch-release")).getOutcome(), is(equalTo(DetectionTrace.Outcome.READ)));
+  }
+
+  @Test
+  public void testTraceOfConcurrentDetection() throws IOException {
+    Path root = root("os-release", "NAME=\"Fedora Linux\"\n".getBytes(StandardCharsets.UTF_8));
+
+    DetectionTrace trace = new DetectionTrace();
+    ProbeContext context = new ProbeContext(root, "Linux", "6.8", "amd64", false, trace.recorder());
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Assert.assertThat(DetectorPipeline.defaultPipeline().detect(context, executor), is(equalTo("Fedora Linux")));
+    } finally {
+      executor.shutdownNow();
+    }
+    Assert.assertThat(find(trace, "os-release", null).getOutcome(), is(equalTo(DetectionTrace.Outcome.ANSWERED)));
+  }
+
+  @Test
+  public void testNoTraceByDefault() {
+    Assert.assertThat(OS.OS.getDetectionTrace(), is(equalTo(null)));
+  }
+
+  @Test
+  public void testMXBean() throws Exception {
+    Path root = root("os-release", "NAME=\"Fedora Linux\"\n".getBytes(StandardCharsets.UTF_8));
+    DetectionTrace trace = new DetectionTrace();
+    OS.OsInfo osInfo = OS.detect(root, trace);
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName objectName = new ObjectName(PlatformMXBean.OBJECT_NAME);
+    PlatformMBean bean = PlatformMBean.register(osInfo, trace);
+    try {
+      Assert.assertThat(server.getAttribute(objectName, "PlatformName"), is(equalTo((Object)"Fedora Linux")));
+      Assert.assertThat(server.getAttribute(objectName, "DetectorId"), is(equalTo((Object)"os-release")));
+      Assert.assertThat(((String[])server.getAttribute(objectName, "Probes")).length, is(equalTo(trace.getProbes().size())));
+
+      DetectionTrace refreshed = new DetectionTrace();
+      bean.update(OS.detect(root("lsb-release", "DISTRIB_DESCRIPTION=\"Fedora\"\nDISTRIB_CODENAME=f41\n".getBytes(StandardCharsets.UTF_8)), refreshed), refreshed);
+      Assert.assertThat(server.getAttribute(objectName, "PlatformName"), is(equalTo((Object)"Fedora (f41)")));
+      Assert.assertThat(server.getAttribute(objectName, "DetectorId"), is(equalTo((Object)"lsb-release")));
+      Assert.assertThat(((String[])server.getAttribute(objectName, "Probes")).length, is(equalTo(refreshed.getProbes().size())));
+    } finally {
+      server.unregisterMBean(objectName);
+    }
+  }
+
+  private Path root(final String etcFile, final byte[] content) throws IOException {
+    Path root = folder.getRoot().toPath();
+    Files.createDirectories(root.resolve("etc"));
+    Files.write(root.resolve("etc").resolve(etcFile), content);
+    return root;
+  }
+
+  /**
+   * @return the probe of the detector on the path, null meaning the outcome of the detector itself
+   */
+  private static DetectionTrace.Probe find(final DetectionTrace trace, final String detectorId, final Path path) {
+    for (DetectionTrace.Probe probe : trace.getProbes()) {
+      if (probe.getDetectorId().equals(detectorId) && (path == null ? probe.getPath() == null : path.equals(probe.getPath()))) {
+        return probe;
+      }
+    }
+    return null;
+  }
+}
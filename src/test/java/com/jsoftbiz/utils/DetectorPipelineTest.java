@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class DetectorPipelineTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testDetectorsAreOrderedByPriority() {
+    List<String> ids = ids(DetectorPipeline.fromSystemProperties());
+    Assert.assertThat(ids.toString(), is(equalTo("[marker, mac, darwin, lsb-release, os-release, system-release, release-glob, version-glob, issue, proc-version]")));
+  }
+
+  @Test
+  public void testDetectorsCanBeDisabled() {
+    System.setProperty(DetectorPipeline.DISABLED_DETECTORS_PROPERTY, "release-glob, proc-version");
+    try {
+      List<String> ids = ids(DetectorPipeline.fromSystemProperties());
+      Assert.assertThat(ids.contains("release-glob"), is(equalTo(false)));
+      Assert.assertThat(ids.contains("proc-version"), is(equalTo(false)));
+      Assert.assertThat(ids.contains("version-glob"), is(equalTo(true)));
+    } finally {
+      System.clearProperty(DetectorPipeline.DISABLED_DETECTORS_PROPERTY);
+    }
+  }
+
+  @Test
+  public void testServiceLoadedDetectorWins() throws IOException {
+    Path root = folder.getRoot().toPath();
+    Files.createDirectories(root.resolve("etc"));
+    Files.write(root.resolve("etc/os-release"), "NAME=\"Fedora Linux\"\n".getBytes(StandardCharsets.UTF_8));
+    Assert.assertThat(OS.detect(root).getPlatformName(), is(equalTo("Fedora Linux")));
+
+    Files.write(root.resolve("etc/marker"), "Marked Linux\n".getBytes(StandardCharsets.UTF_8));
+    ProbeContext context = new ProbeContext(root, "Linux", "6.8", "amd64", false);
+    Assert.assertThat(DetectorPipeline.defaultPipeline().detect(context), is(equalTo("Marked Linux")));
+    Assert.assertThat(context.getDetector().getId(), is(equalTo("marker")));
+  }
+
+  @Test
+  public void testUnixDetectorsAreSkippedOnOtherHosts() throws IOException {
+    ProbeContext context = new ProbeContext(folder.getRoot().toPath(), "Windows 11", "10.0", "amd64", true);
+    Assert.assertThat(BuiltinDetector.PROC_VERSION.detect(context), is(equalTo(null)));
+    Assert.assertThat(context.getConsulted().isEmpty(), is(equalTo(true)));
+  }
+
+  @Test
+  public void testMacDetectorsOnlyApplyToTheHost() throws IOException {
+    Path root = folder.getRoot().toPath();
+    Files.createDirectories(root.resolve("etc"));
+    Files.write(root.resolve("etc/os-release"), "NAME=\"Alpine Linux\"\nID=alpine\nVERSION_ID=3.20.1\n".getBytes(StandardCharsets.UTF_8));
+
+    ProbeContext image = new ProbeContext(root, "Mac OS X", "14.5", "aarch64", false);
+    Assert.assertThat(DetectorPipeline.defaultPipeline().detect(image), is(equalTo("Alpine Linux 3.20.1 (alpine)")));
+    ProbeContext darwinImage = new ProbeContext(root, "Darwin", "23.5.0", "aarch64", false);
+    Assert.assertThat(DetectorPipeline.defaultPipeline().detect(darwinImage), is(equalTo("Alpine Linux 3.20.1 (alpine)")));
+
+    ProbeContext host = new ProbeContext(root, "Mac OS X", "14.5", "aarch64", true);
+    Assert.assertThat(DetectorPipeline.defaultPipeline().detect(host), is(equalTo("OS X Sonoma (14.5)")));
+  }
+
+  private static List<String> ids(DetectorPipeline pipeline) {
+    List<String> ids = new ArrayList<String>();
+    for (PlatformDetector detector : pipeline.getDetectors()) {
+      ids.add(detector.getId());
+    }
+    return ids;
+  }
+
+  public static class MarkerFileDetector implements PlatformDetector {
+    @Override
+    public String getId() {
+      return "marker";
+    }
+
+    @Override
+    public int getPriority() {
+      return 50;
+    }
+
+    @Override
+    public String detect(DetectionContext context) throws IOException {
+      try {
+        return ReleaseFiles.parsePlatformName(context.read(context.getRoot().resolve("etc").resolve("marker")));
+      } catch (NoSuchFileException e) {
+        return null;
+      }
+    }
+  }
+
+}
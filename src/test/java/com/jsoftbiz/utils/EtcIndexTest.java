@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class EtcIndexTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testSingleScanIndexesAllSuffixes() throws IOException {
+    folder.newFile("redhat-release");
+    folder.newFile("centos-release");
+    folder.newFile("debian_version");
+    folder.newFile("issue");
+    folder.newFile("hostname");
+    Path dir = folder.getRoot().toPath();
+
+    EtcIndex index = EtcIndex.scan(dir);
+    Assert.assertThat(index.exists(), is(equalTo(true)));
+    Assert.assertThat(index.firstEndingWith(EtcIndex.RELEASE_SUFFIX), is(equalTo(dir.resolve("centos-release"))));
+    Assert.assertThat(index.firstEndingWith(EtcIndex.VERSION_SUFFIX), is(equalTo(dir.resolve("debian_version"))));
+    Assert.assertThat(index.contains("issue"), is(equalTo(true)));
+    Assert.assertThat(index.contains("os-release"), is(equalTo(false)));
+  }
+
+  @Test
+  public void testMissingDirectory() {
+    EtcIndex index = EtcIndex.scan(folder.getRoot().toPath().resolve("missing"));
+    Assert.assertThat(index.exists(), is(equalTo(false)));
+    Assert.assertThat(index.firstEndingWith(EtcIndex.RELEASE_SUFFIX), is(equalTo(null)));
+  }
+
+}
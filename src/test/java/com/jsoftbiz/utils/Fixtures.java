@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Builds the fixture root file systems of the tests.
+ *
+ * @author Aurelien Broszniowski
+ */
+final class Fixtures {
+
+  private Fixtures() {
+  }
+
+  /**
+   * Writes the file under the root, creating its parent directories.
+   */
+  static void write(final Path root, final String file, final String content) throws IOException {
+    write(root, file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static void write(final Path root, final String file, final byte[] content) throws IOException {
+    Path path = root.resolve(file);
+    Files.createDirectories(path.getParent());
+    Files.write(path, content);
+  }
+}
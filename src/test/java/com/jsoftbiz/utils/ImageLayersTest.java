@@ -0,0 +1,221 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class ImageLayersTest {
+
+  private static final String DEBIAN = "NAME=\"Debian GNU/Linux\"\nVERSION=\"12 (bookworm)\"\nID=debian\n";
+  private static final String ALPINE = "NAME=\"Alpine Linux\"\nVERSION_ID=3.20.0\nID=alpine\n";
+
+  @Test
+  public void testOsReleaseLinkInCompressedLayer() throws IOException {
+    byte[] layer = gzip(new Tar()
+        .directory("./etc/")
+        .symbolicLink("./etc/os-release", "../usr/lib/os-release")
+        .file("./etc/passwd", "root:x:0:0:root:/root:/bin/bash\n")
+        .file("./usr/lib/os-release", DEBIAN)
+        .toByteArray());
+    Assert.assertThat(OS.detectImage(Arrays.asList(stream(layer))).getPlatformName(), is(equalTo("Debian GNU/Linux 12 (bookworm) (debian)")));
+  }
+
+  @Test
+  public void testUpperLayerWins() throws IOException {
+    byte[] base = new Tar().file("etc/os-release", DEBIAN).toByteArray();
+    byte[] top = new Tar().file("etc/os-release", ALPINE).toByteArray();
+    Assert.assertThat(OS.detectImage(Arrays.asList(stream(base), stream(top))).getPlatformName(), is(equalTo("Alpine Linux 3.20.0 (alpine)")));
+  }
+
+  @Test
+  public void testWhiteoutHidesLowerFile() throws IOException {
+    byte[] base = new Tar()
+        .file("etc/os-release", DEBIAN)
+        .file("etc/redhat-release", "Red Hat Enterprise Linux release 9.4 (Plow)\n")
+        .toByteArray();
+    byte[] top = new Tar().file("etc/.wh.os-release", "").toByteArray();
+    Assert.assertThat(OS.detectImage(Arrays.asList(stream(base), stream(top))).getPlatformName(),
+        is(equalTo("Red Hat Enterprise Linux release 9.4 (Plow)")));
+  }
+
+  @Test
+  public void testOpaqueDirectoryHidesLowerFiles() throws IOException {
+    byte[] base = new Tar().file("etc/os-release", DEBIAN).toByteArray();
+    byte[] top = new Tar()
+        .file("etc/.wh..wh..opq", "")
+        .file("etc/system-release", "Amazon Linux release 2023 (Amazon Linux)\n")
+        .toByteArray();
+    Assert.assertThat(OS.detectImage(Arrays.asList(stream(base), stream(top))).getPlatformName(),
+        is(equalTo("Amazon Linux release 2023 (Amazon Linux)")));
+  }
+
+  @Test
+  public void testStopsAsSoonAsDecided() throws IOException {
+    AtomicBoolean baseRead = new AtomicBoolean();
+    InputStream base = new ByteArrayInputStream(new byte[1024]) {
+      @Override
+      public synchronized int read(final byte[] b, final int off, final int len) {
+        baseRead.set(true);
+        return super.read(b, off, len);
+      }
+
+      @Override
+      public synchronized int read() {
+        baseRead.set(true);
+        return super.read();
+      }
+    };
+    byte[] top = new Tar()
+        .file("etc/lsb-release", "DISTRIB_ID=Ubuntu\nDISTRIB_CODENAME=noble\nDISTRIB_DESCRIPTION=\"Ubuntu 24.04 LTS\"\n")
+        .file("usr/bin/app", "#!/bin/sh\n")
+        .toByteArray();
+    Assert.assertThat(OS.detectImage(Arrays.asList(base, stream(top))).getPlatformName(), is(equalTo("Ubuntu 24.04 LTS (noble)")));
+    Assert.assertThat(baseRead.get(), is(equalTo(false)));
+  }
+
+  @Test
+  public void testFallsBackOnOsName() throws IOException {
+    byte[] layer = new Tar().file("bin/sh", "").toByteArray();
+    Assert.assertThat(OS.detectImage(Arrays.asList(stream(layer))).getPlatformName(), is(equalTo(System.getProperty("os.name"))));
+  }
+
+  @Test(expected = IOException.class)
+  public void testNotATarArchive() throws IOException {
+    byte[] garbage = new byte[1024];
+    Arrays.fill(garbage, (byte)'x');
+    OS.detectImage(Arrays.asList(stream(garbage)));
+  }
+
+  @Test
+  public void testLongNames() throws IOException {
+    String longName = "usr/share/" + repeat("directory/", 20) + "file";
+    Tar tar = new Tar();
+    tar.entry("././@LongLink", 'L', (longName + '\0').getBytes(StandardCharsets.UTF_8), "");
+    tar.file(longName.substring(0, 99), "gnu");
+    String paxRecord = " path=" + longName + "\n";
+    int length = paxRecord.length() + 3;
+    tar.entry("PaxHeader", 'x', (length + paxRecord).getBytes(StandardCharsets.UTF_8), "");
+    tar.file("ignored", "pax");
+
+    try (TarReader reader = new TarReader(stream(tar.toByteArray()))) {
+      Assert.assertThat(reader.next(), is(equalTo(true)));
+      Assert.assertThat(reader.name(), is(equalTo(longName)));
+      Assert.assertThat(new String(reader.readContent(1024), StandardCharsets.UTF_8), is(equalTo("gnu")));
+      Assert.assertThat(reader.next(), is(equalTo(true)));
+      Assert.assertThat(reader.name(), is(equalTo(longName)));
+      Assert.assertThat(reader.next(), is(equalTo(false)));
+    }
+  }
+
+  @Test
+  public void testNormalize() {
+    Assert.assertThat(ImageLayers.normalize("./etc/os-release"), is(equalTo("etc/os-release")));
+    Assert.assertThat(ImageLayers.normalize("/etc/"), is(equalTo("etc")));
+    Assert.assertThat(ImageLayers.normalize("etc/../usr/lib/./os-release"), is(equalTo("usr/lib/os-release")));
+  }
+
+  private static InputStream stream(final byte[] bytes) {
+    return new ByteArrayInputStream(bytes);
+  }
+
+  private static byte[] gzip(final byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+
+  private static String repeat(final String value, final int count) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      sb.append(value);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Writes ustar archives.
+   */
+  private static final class Tar {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    Tar file(final String name, final String content) {
+      return entry(name, '0', content.getBytes(StandardCharsets.UTF_8), "");
+    }
+
+    Tar directory(final String name) {
+      return entry(name, '5', new byte[0], "");
+    }
+
+    Tar symbolicLink(final String name, final String target) {
+      return entry(name, '2', new byte[0], target);
+    }
+
+    Tar entry(final String name, final char type, final byte[] content, final String linkName) {
+      byte[] header = new byte[512];
+      put(header, 0, name);
+      put(header, 100, "0000644");
+      put(header, 108, "0000000");
+      put(header, 116, "0000000");
+      put(header, 124, String.format("%011o", content.length));
+      put(header, 136, "00000000000");
+      Arrays.fill(header, 148, 156, (byte)' ');
+      header[156] = (byte)type;
+      put(header, 157, linkName);
+      put(header, 257, "ustar");
+      put(header, 263, "00");
+      long checksum = 0;
+      for (byte b : header) {
+        checksum += b & 0xFF;
+      }
+      put(header, 148, String.format("%06o", checksum));
+      header[154] = 0;
+      out.write(header, 0, header.length);
+      out.write(content, 0, content.length);
+      out.write(new byte[(512 - content.length % 512) % 512], 0, (512 - content.length % 512) % 512);
+      return this;
+    }
+
+    byte[] toByteArray() {
+      out.write(new byte[1024], 0, 1024);
+      return out.toByteArray();
+    }
+
+    private static void put(final byte[] header, final int offset, final String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+  }
+}
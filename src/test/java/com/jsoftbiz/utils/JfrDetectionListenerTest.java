@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class JfrDetectionListenerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testDetectionEmitsEvents() throws IOException {
+    Path root = folder.newFolder("root").toPath();
+    Files.createDirectories(root.resolve("etc"));
+    Files.write(root.resolve("etc/os-release"), "NAME=\"Fedora Linux\"\n".getBytes(StandardCharsets.UTF_8));
+
+    Path recordingFile = folder.getRoot().toPath().resolve("detection.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("com.jsoftbiz.utils.Detection");
+      recording.enable("com.jsoftbiz.utils.Probe");
+      recording.start();
+      OS.detect(root);
+      recording.stop();
+      recording.dump(recordingFile);
+    }
+
+    List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+    RecordedEvent detection = null;
+    RecordedEvent osReleaseRead = null;
+    for (RecordedEvent event : events) {
+      String eventName = event.getEventType().getName();
+      if (eventName.equals("com.jsoftbiz.utils.Detection")) {
+        detection = event;
+      } else if (eventName.equals("com.jsoftbiz.utils.Probe") && "os-release".equals(event.getString("detectorId"))
+                 && event.getString("path") != null) {
+        osReleaseRead = event;
+      }
+    }
+
+    Assert.assertThat(detection != null, is(equalTo(true)));
+    Assert.assertThat(detection.getString("platformName"), is(equalTo("Fedora Linux")));
+    Assert.assertThat(detection.getString("detectorId"), is(equalTo("os-release")));
+    Assert.assertThat(detection.getString("root"), is(equalTo(root.toString())));
+    Assert.assertThat(osReleaseRead != null, is(equalTo(true)));
+    Assert.assertThat(osReleaseRead.getString("outcome"), is(equalTo("READ")));
+    Assert.assertThat(osReleaseRead.getLong("bytesRead"), is(equalTo(Files.size(root.resolve("etc/os-release")))));
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static com.jsoftbiz.utils.Fixtures.write;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class LibcInfoTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testGlibcFromInterpreterAndSymbolVersions() throws IOException {
+    Path root = folder.getRoot().toPath();
+    write(root, "proc/self/exe", elf("/lib64/ld-linux-x86-64.so.2", ByteOrder.LITTLE_ENDIAN));
+    write(root, "lib/x86_64-linux-gnu/ld-linux-x86-64.so.2", new byte[0]);
+    Files.createDirectories(root.resolve("lib64"));
+    Files.createSymbolicLink(root.resolve("lib64/ld-linux-x86-64.so.2"), Paths.get("/lib/x86_64-linux-gnu/ld-linux-x86-64.so.2"));
+    write(root, "lib/x86_64-linux-gnu/libc.so.6", libc("GLIBC_2.2.5", "GLIBC_2.36", "GLIBC_2.4", "GLIBC_PRIVATE"));
+
+    LibcInfo info = LibcInfo.read(root);
+    Assert.assertThat(info.getFlavor(), is(equalTo(LibcInfo.Flavor.GLIBC)));
+    Assert.assertThat(info.isGlibc(), is(equalTo(true)));
+    Assert.assertThat(info.getInterpreter(), is(equalTo("/lib64/ld-linux-x86-64.so.2")));
+    Assert.assertThat(info.getVersion(), is(equalTo("2.36")));
+  }
+
+  @Test
+  public void testOldGlibcFromLibraryName() throws IOException {
+    Path root = folder.getRoot().toPath();
+    write(root, "lib64/ld-linux-x86-64.so.2", new byte[0]);
+    write(root, "lib64/libc-2.17.so", new byte[0]);
+
+    LibcInfo info = LibcInfo.read(root);
+    Assert.assertThat(info.getFlavor(), is(equalTo(LibcInfo.Flavor.GLIBC)));
+    Assert.assertThat(info.getInterpreter(), is(equalTo("/lib64/ld-linux-x86-64.so.2")));
+    Assert.assertThat(info.getVersion(), is(equalTo("2.17")));
+  }
+
+  @Test
+  public void testMuslFromLoaderAndApkDatabase() throws IOException {
+    Path root = folder.getRoot().toPath();
+    write(root, "lib/ld-musl-aarch64.so.1", new byte[0]);
+    write(root, "lib/apk/db/installed", ("C:Q1abc=\nP:musl\nV:1.2.4-r2\nA:aarch64\n\n"
+                                         + "C:Q1def=\nP:busybox\nV:1.36.1-r5\n\n").getBytes(StandardCharsets.UTF_8));
+
+    LibcInfo info = LibcInfo.read(root);
+    Assert.assertThat(info.getFlavor(), is(equalTo(LibcInfo.Flavor.MUSL)));
+    Assert.assertThat(info.isMusl(), is(equalTo(true)));
+    Assert.assertThat(info.getInterpreter(), is(equalTo("/lib/ld-musl-aarch64.so.1")));
+    Assert.assertThat(info.getVersion(), is(equalTo("1.2.4")));
+  }
+
+  @Test
+  public void testBigEndianInterpreter() throws IOException {
+    Path root = folder.getRoot().toPath();
+    write(root, "exe", elf("/lib/ld64.so.1", ByteOrder.BIG_ENDIAN));
+    Assert.assertThat(LibcInfo.interpreter(root.resolve("exe")), is(equalTo("/lib/ld64.so.1")));
+    Assert.assertThat(LibcInfo.flavor("ld64.so.1"), is(equalTo(LibcInfo.Flavor.GLIBC)));
+  }
+
+  @Test
+  public void testUnknownOutsideOfLinux() throws IOException {
+    Path root = folder.getRoot().toPath();
+    write(root, "proc/self/exe", "#!/bin/sh\n".getBytes(StandardCharsets.UTF_8));
+
+    LibcInfo info = LibcInfo.read(root);
+    Assert.assertThat(info.getFlavor(), is(equalTo(null)));
+    Assert.assertThat(info.getVersion(), is(equalTo(null)));
+    Assert.assertThat(info.getInterpreter(), is(equalTo(null)));
+  }
+
+  @Test
+  public void testCorruptOffsetsAndSizes() throws IOException {
+    Path root = folder.getRoot().toPath();
+    byte[] exe = elf("/lib/ld-musl-x86_64.so.1", ByteOrder.LITTLE_ENDIAN);
+    ByteBuffer.wrap(exe).order(ByteOrder.LITTLE_ENDIAN).putLong(64 + 8, -1L);
+    write(root, "exe-negative-offset", exe);
+    Assert.assertThat(LibcInfo.interpreter(root.resolve("exe-negative-offset")), is(equalTo(null)));
+
+    exe = elf("/lib/ld-musl-x86_64.so.1", ByteOrder.LITTLE_ENDIAN);
+    ByteBuffer.wrap(exe).order(ByteOrder.LITTLE_ENDIAN).putLong(32, Long.MIN_VALUE);
+    write(root, "exe-negative-headers", exe);
+    Assert.assertThat(LibcInfo.interpreter(root.resolve("exe-negative-headers")), is(equalTo(null)));
+
+    byte[] libc = libc("GLIBC_2.2.5", "GLIBC_2.36");
+    ByteBuffer.wrap(libc).order(ByteOrder.LITTLE_ENDIAN).putLong(128 + 32, -28L);
+    write(root, "libc-negative-size", libc);
+    Assert.assertThat(LibcInfo.symbolVersion(root.resolve("libc-negative-size")), is(equalTo(null)));
+
+    libc = libc("GLIBC_2.2.5", "GLIBC_2.36");
+    ByteBuffer.wrap(libc).order(ByteOrder.LITTLE_ENDIAN).putLong(192 + 24, 1L << 40);
+    write(root, "libc-truncated", libc);
+    Assert.assertThat(LibcInfo.symbolVersion(root.resolve("libc-truncated")), is(equalTo(null)));
+  }
+
+  /**
+   * @return a 64 bits ELF executable with a single PT_INTERP program header
+   */
+  private static byte[] elf(final String interpreter, final ByteOrder order) {
+    byte[] path = (interpreter + '\0').getBytes(StandardCharsets.US_ASCII);
+    ByteBuffer elf = header(order, 64 + 56 + path.length);
+    elf.putLong(32, 64).putShort(54, (short)56).putShort(56, (short)1);
+    elf.putInt(64, 3).putLong(64 + 8, 64 + 56).putLong(64 + 32, path.length);
+    elf.position(64 + 56);
+    elf.put(path);
+    return elf.array();
+  }
+
+  /**
+   * @return a 64 bits ELF library with a SHT_GNU_verdef section of the versions, linked to a string table
+   */
+  private static byte[] libc(final String... versions) {
+    ByteArrayOutputStream names = new ByteArrayOutputStream();
+    names.write(0);
+    int definitionsOffset = 64 + 3 * 64;
+    int definitionsSize = versions.length * 28;
+    ByteBuffer elf = header(ByteOrder.LITTLE_ENDIAN, definitionsOffset + definitionsSize + 512);
+    elf.putLong(40, 64).putShort(58, (short)64).putShort(60, (short)3);
+    for (int i = 0; i < versions.length; i++) {
+      int definition = definitionsOffset + i * 28;
+      elf.putShort(definition, (short)1).putShort(definition + 4, (short)(i + 1)).putShort(definition + 6, (short)1);
+      elf.putInt(definition + 12, 20).putInt(definition + 16, i == versions.length - 1 ? 0 : 28);
+      elf.putInt(definition + 20, names.size());
+      byte[] name = (versions[i] + '\0').getBytes(StandardCharsets.US_ASCII);
+      names.write(name, 0, name.length);
+    }
+    int stringsOffset = definitionsOffset + definitionsSize;
+    // section 1 : the version definitions, linked to section 2 : the strings
+    elf.putInt(128 + 4, 0x6FFFFFFD).putLong(128 + 24, definitionsOffset).putLong(128 + 32, definitionsSize).putInt(128 + 40, 2);
+    elf.putInt(192 + 4, 3).putLong(192 + 24, stringsOffset).putLong(192 + 32, names.size());
+    elf.position(stringsOffset);
+    elf.put(names.toByteArray());
+    return elf.array();
+  }
+
+  private static ByteBuffer header(final ByteOrder order, final int size) {
+    ByteBuffer elf = ByteBuffer.allocate(size).order(order);
+    elf.putInt(0, order == ByteOrder.BIG_ENDIAN ? 0x7F454C46 : 0x464C457F);
+    elf.put(4, (byte)2).put(5, (byte)(order == ByteOrder.BIG_ENDIAN ? 2 : 1)).put(6, (byte)1);
+    return elf;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static com.jsoftbiz.utils.Fixtures.write;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class MemoryInfoTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testMeminfoAndHugePages() throws IOException {
+    Path root = folder.getRoot().toPath();
+    write(root, "proc/meminfo", "MemTotal:       16318496 kB\n"
+                                + "MemFree:         1234567 kB\n"
+                                + "MemAvailable:   12000000 kB\n"
+                                + "Buffers:          200000 kB\n"
+                                + "Cached:          8000000 kB\n"
+                                + "SwapCached:            0 kB\n"
+                                + "SwapTotal:       2097148 kB\n"
+                                + "SwapFree:        2097000 kB\n"
+                                + "HugePages_Total:      16\n"
+                                + "Hugepagesize:       2048 kB\n");
+    write(root, "sys/kernel/mm/transparent_hugepage/enabled", "always [madvise] never\n");
+    write(root, "sys/kernel/mm/hugepages/hugepages-2048kB/nr_hugepages", "16\n");
+    write(root, "sys/kernel/mm/hugepages/hugepages-2048kB/free_hugepages", "10\n");
+    write(root, "sys/kernel/mm/hugepages/hugepages-1048576kB/nr_hugepages", "2\n");
+    write(root, "sys/kernel/mm/hugepages/hugepages-1048576kB/free_hugepages", "2\n");
+
+    MemoryInfo info = MemoryInfo.read(root);
+    Assert.assertThat(info.getTotal(), is(equalTo(16318496L * 1024)));
+    Assert.assertThat(info.getFree(), is(equalTo(1234567L * 1024)));
+    Assert.assertThat(info.getAvailable(), is(equalTo(12000000L * 1024)));
+    Assert.assertThat(info.getCached(), is(equalTo(8000000L * 1024)));
+    Assert.assertThat(info.getSwapTotal(), is(equalTo(2097148L * 1024)));
+    Assert.assertThat(info.getSwapFree(), is(equalTo(2097000L * 1024)));
+    Assert.assertThat(info.getDefaultHugePageSize(), is(equalTo(2048L * 1024)));
+    Assert.assertThat(info.getTransparentHugePageMode(), is(equalTo("madvise")));
+
+    Assert.assertThat(info.getHugePagePoolCount(), is(equalTo(2)));
+    Assert.assertThat(info.getHugePageSize(0), is(equalTo(2048L * 1024)));
+    Assert.assertThat(info.getHugePagesTotal(0), is(equalTo(16L)));
+    Assert.assertThat(info.getHugePagesFree(0), is(equalTo(10L)));
+    Assert.assertThat(info.getHugePageSize(1), is(equalTo(1024L * 1024 * 1024)));
+    Assert.assertThat(info.getHugePagesFreeOfSize(1024L * 1024 * 1024), is(equalTo(2L)));
+    Assert.assertThat(info.getHugePagesFreeOfSize(16L * 1024 * 1024), is(equalTo(0L)));
+  }
+
+  @Test
+  public void testRefresh() throws IOException {
+    Path root = folder.getRoot().toPath();
+    write(root, "proc/meminfo", "MemTotal:       16318496 kB\nMemAvailable:   12000000 kB\n");
+    write(root, "sys/kernel/mm/transparent_hugepage/enabled", "[always] madvise never\n");
+    write(root, "sys/kernel/mm/hugepages/hugepages-2048kB/nr_hugepages", "16\n");
+    write(root, "sys/kernel/mm/hugepages/hugepages-2048kB/free_hugepages", "16\n");
+
+    MemoryInfo info = MemoryInfo.read(root);
+    Assert.assertThat(info.getAvailable(), is(equalTo(12000000L * 1024)));
+    Assert.assertThat(info.getTransparentHugePageMode(), is(equalTo("always")));
+
+    write(root, "proc/meminfo", "MemTotal:       16318496 kB\nMemAvailable:    3000000 kB\n");
+    write(root, "sys/kernel/mm/transparent_hugepage/enabled", "always madvise [never]\n");
+    write(root, "sys/kernel/mm/hugepages/hugepages-2048kB/free_hugepages", "4\n");
+
+    Assert.assertThat(info.refresh(), is(equalTo(info)));
+    Assert.assertThat(info.getAvailable(), is(equalTo(3000000L * 1024)));
+    Assert.assertThat(info.getTransparentHugePageMode(), is(equalTo("never")));
+    Assert.assertThat(info.getHugePagesFree(0), is(equalTo(4L)));
+  }
+
+  @Test
+  public void testUnknownOutsideOfLinux() {
+    MemoryInfo info = MemoryInfo.read(folder.getRoot().toPath());
+    Assert.assertThat(info.getTotal(), is(equalTo(MemoryInfo.UNKNOWN)));
+    Assert.assertThat(info.getSwapTotal(), is(equalTo(MemoryInfo.UNKNOWN)));
+    Assert.assertThat(info.getTransparentHugePageMode(), is(equalTo(null)));
+    Assert.assertThat(info.getHugePagePoolCount(), is(equalTo(0)));
+  }
+}
@@ -17,13 +17,30 @@
 package com.jsoftbiz.utils;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.core.Is.is;
@@ -36,6 +53,9 @@ import static com.jsoftbiz.utils.OS.OsInfo;
 
 public class OSTest {
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   @Test
   public void testReleaseFileWithLinuxPrettyName() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, IOException {
     BufferedReader mockFile = reader("NAME=Fedora", "PRETTY_NAME=\"Fedora 17 (Beefy Miracle)\"", "VERSION_ID=17");
@@ -112,6 +132,18 @@ public class OSTest {
     Assert.assertThat(osInfo.getPlatformName(), is(equalTo("Fedora 17 (Beefy Miracle)")));
   }
 
+  @Test
+  public void testReleaseFileWithEscapedQuotesInPrettyName() throws IOException {
+    OsInfo osInfo = OS.readPlatformName("some name", "4.1.4", "68000", reader("PRETTY_NAME=\"Acme \\\"Rocket\\\" 2\""));
+    Assert.assertThat(osInfo.getPlatformName(), is(equalTo("Acme \"Rocket\" 2")));
+  }
+
+  @Test
+  public void testReleaseFileLastDuplicateKeyWins() throws IOException {
+    OsInfo osInfo = OS.readPlatformName("some name", "4.1.4", "68000", reader("# PRETTY_NAME=\"Commented\"", "PRETTY_NAME=\"First\"", "PRETTY_NAME=\"Second\""));
+    Assert.assertThat(osInfo.getPlatformName(), is(equalTo("Second")));
+  }
+
   @Test
   public void testEmptyReleaseFileReturnsNull() throws IOException {
     OsInfo osInfo = OS.readPlatformName("some name", "4.1.4", "68000", reader());
@@ -145,6 +177,27 @@ public class OSTest {
     Assert.assertThat(osInfo.getPlatformName(), is(equalTo("Debian GNU/Linux 10 (buster) (debian)")));
   }
 
+  @Test
+  public void testOsReleaseIgnoresCommentsAndPrefixedKeys() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, IOException {
+    OsInfo osInfo = invokeReadPlatformNameFromOsRelease("some name", "4.1.4", "68000", reader("# NAME=Commented", "  NAME=\"Fedora Linux\"", "VERSION_ID=40", "ID=fedora", "PLATFORM_ID=\"platform:f40\""));
+    Assert.assertThat(osInfo.getPlatformName(), is(equalTo("Fedora Linux 40 (fedora)")));
+  }
+
+  @Test
+  public void testKeyFollowedByWhitespaceIsNotAnAssignment() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, IOException {
+    OsInfo osInfo = invokeReadPlatformNameFromOsRelease("some name", "4.1.4", "68000", reader("NAME=\"Fedora Linux\"", "NAME =\"Other\"", "VERSION_ID\t=41", "VERSION_ID=40", "ID=fedora"));
+    Assert.assertThat(osInfo.getPlatformName(), is(equalTo("Fedora Linux 40 (fedora)")));
+
+    osInfo = OS.readPlatformNameFromLsb("some name", "4.1.4", "68000", reader("DISTRIB_DESCRIPTION =\"Ubuntu 9.10\"", "DISTRIB_CODENAME =karmic"));
+    Assert.assertThat(osInfo, is(equalTo(null)));
+  }
+
+  @Test
+  public void testLsbReleaseOnlyCommentsReturnsNull() throws IOException {
+    OsInfo osInfo = OS.readPlatformNameFromLsb("some name", "4.1.4", "68000", reader("# DISTRIB_DESCRIPTION=\"Ubuntu 9.10\"", "# DISTRIB_CODENAME=karmic"));
+    Assert.assertThat(osInfo, is(equalTo(null)));
+  }
+
   @Test
   public void testMacOsRecentVersions() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
     assertMacOsPlatformName("14.7.6", "OS X Sonoma (14.7.6)");
@@ -165,6 +218,30 @@ public class OSTest {
     assertMacOsPlatformName("Tahoe", "OS X unknown (Tahoe)");
     assertDarwinPlatformName("", "OS X unknown ()");
     assertDarwinPlatformName("Tahoe", "OS X unknown (Tahoe)");
+    assertMacOsPlatformName("10", "OS X unknown (10)");
+    assertMacOsPlatformName("10.x", "OS X unknown (10.x)");
+    assertMacOsPlatformName("99.1", "OS X unknown (99.1)");
+    assertDarwinPlatformName("99.1.0", "OS X unknown (99.1.0)");
+  }
+
+  @Test
+  public void testMacOs10Versions() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    assertMacOsPlatformName("9.2", "Mac OS 9.2");
+    assertMacOsPlatformName("10.9.3", "OS X Mavericks (10.9.3)");
+    assertMacOsPlatformName("10.10", "OS X Yosemite (10.10)");
+    assertMacOsPlatformName("10.16", "OS X Big Sur (10.16)");
+  }
+
+  @Test
+  public void testMacVersionNumbers() {
+    Assert.assertThat(MacCodenames.versionNumber("10.15.7", 0), is(equalTo(10)));
+    Assert.assertThat(MacCodenames.versionNumber("10.15.7", 1), is(equalTo(15)));
+    Assert.assertThat(MacCodenames.versionNumber("10.15.7", 2), is(equalTo(7)));
+    Assert.assertThat(MacCodenames.versionNumber("10.15.7", 3), is(equalTo(-1)));
+    Assert.assertThat(MacCodenames.versionNumber("26", 1), is(equalTo(-1)));
+    Assert.assertThat(MacCodenames.versionNumber("26.", 1), is(equalTo(-1)));
+    Assert.assertThat(MacCodenames.versionNumber("99999999999", 0), is(equalTo(-1)));
+    Assert.assertThat(MacCodenames.versionNumber(null, 0), is(equalTo(-1)));
   }
 
   @Test
@@ -172,6 +249,89 @@ public class OSTest {
     Assert.assertThat(com.jsoftbiz.utils.OS.getOs(), is(equalTo(OS)));
   }
 
+  @Test
+  public void testCheapAttributesComeFromSystemProperties() {
+    Assert.assertThat(OS.getName(), is(equalTo(System.getProperty("os.name"))));
+    Assert.assertThat(OS.getVersion(), is(equalTo(System.getProperty("os.version"))));
+    Assert.assertThat(OS.getArch(), is(equalTo(System.getProperty("os.arch"))));
+  }
+
+  @Test
+  public void testPlatformNameIsResolvedOnce() {
+    String platformName = OS.getPlatformName();
+    Assert.assertThat(platformName, is(equalTo(OS.getPlatformName())));
+    Assert.assertTrue(platformName == OS.getPlatformName());
+  }
+
+  @Test
+  public void testConcurrentProbingGivesTheSequentialAnswer() throws InterruptedException {
+    String sequential = DetectorPipeline.defaultPipeline().detect(hostContext());
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Assert.assertThat(DetectorPipeline.defaultPipeline().detect(hostContext(), executor), is(equalTo(sequential)));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testConcurrentProbingRunsRejectedProbesInline() {
+    Executor rejecting = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        throw new RejectedExecutionException();
+      }
+    };
+    Assert.assertThat(DetectorPipeline.defaultPipeline().detect(hostContext(), rejecting), is(equalTo(DetectorPipeline.defaultPipeline().detect(hostContext()))));
+  }
+
+  @Test
+  public void testDetectRootFileSystem() throws IOException {
+    Path root = root("etc/os-release", "NAME=\"Alpine Linux\"\nID=alpine\nVERSION_ID=3.20.1\n");
+    OsInfo osInfo = com.jsoftbiz.utils.OS.detect(root);
+    Assert.assertThat(osInfo.getPlatformName(), is(equalTo("Alpine Linux 3.20.1 (alpine)")));
+    Assert.assertThat(osInfo.getName(), is(equalTo(System.getProperty("os.name"))));
+  }
+
+  @Test
+  public void testDetectRootFileSystemFallsBackToGlobAndName() throws IOException {
+    Path root = root("etc/redhat-release", "Red Hat Enterprise Linux Server release 6.5 (Santiago)\n");
+    Assert.assertThat(com.jsoftbiz.utils.OS.detect(root).getPlatformName(), is(equalTo("Red Hat Enterprise Linux Server release 6.5 (Santiago)")));
+    Path empty = folder.newFolder().toPath();
+    Assert.assertThat(com.jsoftbiz.utils.OS.detect(empty).getPlatformName(), is(equalTo(System.getProperty("os.name"))));
+  }
+
+  @Test
+  public void testDetectAllRootFileSystems() throws IOException {
+    List<Path> roots = new ArrayList<Path>();
+    for (int i = 0; i < 20; i++) {
+      roots.add(root("etc/lsb-release", "DISTRIB_DESCRIPTION=\"Ubuntu 24.04 LTS\"\nDISTRIB_CODENAME=noble" + i + "\n"));
+    }
+    final Map<Path, String> results = new ConcurrentHashMap<Path, String>();
+    com.jsoftbiz.utils.OS.detectAll(roots, new BiConsumer<Path, OsInfo>() {
+      @Override
+      public void accept(Path path, OsInfo osInfo) {
+        results.put(path, osInfo.getPlatformName());
+      }
+    }).join();
+    Assert.assertThat(results.size(), is(equalTo(20)));
+    Assert.assertThat(results.get(roots.get(7)), is(equalTo("Ubuntu 24.04 LTS (noble7)")));
+  }
+
+  @Test
+  public void testDetectAsync() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      OsInfo osInfo = OS.detectAsync(executor).get(10, TimeUnit.SECONDS);
+      Assert.assertThat(osInfo.getPlatformName(), is(equalTo(OS.getPlatformName())));
+      // resolved once and for all
+      Assert.assertThat(OS.detectAsync(null).isDone(), is(equalTo(true)));
+      Assert.assertThat(OS.detectAsync(null).get().getPlatformName(), is(equalTo(osInfo.getPlatformName())));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   @Test
   public void testDarwinOsInfoIsMacAndPosix() {
     OsInfo darwin = new OsInfo("Darwin", "25.0.0", "x86_64", "OS X Tahoe (25.0.0)");
@@ -187,6 +347,34 @@ public class OSTest {
     assertUnixOsName("OS/390");
   }
 
+  @Test
+  public void testOsFamily() {
+    Assert.assertThat(OsFamily.of("Windows 11"), is(equalTo(OsFamily.WINDOWS)));
+    Assert.assertThat(OsFamily.of("Mac OS X"), is(equalTo(OsFamily.MAC)));
+    Assert.assertThat(OsFamily.of("Linux"), is(equalTo(OsFamily.UNIX)));
+    Assert.assertThat(OsFamily.of("SunOS"), is(equalTo(OsFamily.UNIX)));
+    Assert.assertThat(OsFamily.of("OS/2"), is(equalTo(OsFamily.UNKNOWN)));
+    Assert.assertThat(OsFamily.of(null), is(equalTo(OsFamily.UNKNOWN)));
+    Assert.assertThat(OS.getFamily(), is(equalTo(OsFamily.of(System.getProperty("os.name")))));
+    Assert.assertThat(new OsInfo("Darwin", "25.0.0", "aarch64", "OS X Tahoe (25.0.0)").getFamily(), is(equalTo(OsFamily.MAC)));
+  }
+
+  @Test
+  public void testCpuArch() {
+    Assert.assertThat(CpuArch.of("amd64"), is(equalTo(CpuArch.X86_64)));
+    Assert.assertThat(CpuArch.of("x86_64"), is(equalTo(CpuArch.X86_64)));
+    Assert.assertThat(CpuArch.of("aarch64"), is(equalTo(CpuArch.AARCH64)));
+    Assert.assertThat(CpuArch.of("arm64"), is(equalTo(CpuArch.AARCH64)));
+    Assert.assertThat(CpuArch.of("i686"), is(equalTo(CpuArch.X86)));
+    Assert.assertThat(CpuArch.of("armv7l"), is(equalTo(CpuArch.ARM)));
+    Assert.assertThat(CpuArch.of("68000"), is(equalTo(CpuArch.UNKNOWN)));
+    Assert.assertThat(CpuArch.of("s390x").getByteOrder(), is(equalTo(ByteOrder.BIG_ENDIAN)));
+    Assert.assertThat(CpuArch.of("ppc64le").getByteOrder(), is(equalTo(ByteOrder.LITTLE_ENDIAN)));
+    Assert.assertThat(CpuArch.of("i386").getBits(), is(equalTo(32)));
+    Assert.assertThat(CpuArch.X86_64.is64Bit(), is(equalTo(true)));
+    Assert.assertThat(new OsInfo("Linux", "6.8", "arm64", "Debian").getCpuArch(), is(equalTo(CpuArch.AARCH64)));
+  }
+
   private void assertMacOsPlatformName(String version, String expectedPlatformName) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
     OsInfo osInfo = invokeOsInfoInitializer("initMacOsInfo", "Mac OS X", version, "x86_64");
     Assert.assertThat(osInfo.getPlatformName(), is(equalTo(expectedPlatformName)));
@@ -216,6 +404,18 @@ public class OSTest {
     Assert.assertThat(osInfo.isWindows(), is(equalTo(false)));
   }
 
+  private ProbeContext hostContext() {
+    return new ProbeContext(Paths.get("/"), OS.getName(), OS.getVersion(), OS.getArch(), true);
+  }
+
+  private Path root(String file, String content) throws IOException {
+    Path root = folder.newFolder().toPath();
+    Path path = root.resolve(file);
+    Files.createDirectories(path.getParent());
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    return root;
+  }
+
   private BufferedReader reader(String... lines) {
     StringBuilder content = new StringBuilder();
     for (String line : lines) {
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class OsInfoPoolTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testEquality() {
+    OS.OsInfo first = new OS.OsInfo("Linux", "6.8", "amd64", "Fedora Linux 40");
+    OS.OsInfo second = new OS.OsInfo("Linux", "6.8", "amd64", "Fedora Linux 40");
+    Assert.assertThat(first, is(equalTo(second)));
+    Assert.assertThat(first.hashCode(), is(equalTo(second.hashCode())));
+    Assert.assertThat(first, is(not(equalTo(new OS.OsInfo("Linux", "6.8", "aarch64", "Fedora Linux 40")))));
+    Assert.assertThat(first, is(not(equalTo(new OS.OsInfo("Linux", "6.8", "amd64", "Fedora Linux 41")))));
+    Assert.assertThat(new OS.OsInfo("Linux", null, "amd64", null), is(equalTo(new OS.OsInfo("Linux", null, "amd64", null))));
+  }
+
+  @Test
+  public void testWeakPoolInterns() {
+    OsInfoPool pool = OsInfoPool.weak();
+    OS.OsInfo first = pool.get("Linux", "6.8", "amd64", "Alpine Linux 3.20.1");
+    OS.OsInfo second = pool.intern(new OS.OsInfo("Linux", "6.8", "amd64", "Alpine Linux 3.20.1"));
+    Assert.assertThat(second, is(sameInstance(first)));
+    Assert.assertThat(pool.get("Linux", "6.8", "amd64", "Alpine Linux 3.19.0"), is(not(sameInstance(first))));
+    Assert.assertThat(pool.size(), is(equalTo(2)));
+  }
+
+  @Test
+  public void testBoundedPoolStopsGrowing() {
+    OsInfoPool pool = OsInfoPool.bounded(1);
+    OS.OsInfo first = pool.get("Linux", "6.8", "amd64", "Ubuntu 24.04 LTS");
+    Assert.assertThat(pool.get("Linux", "6.8", "amd64", "Ubuntu 24.04 LTS"), is(sameInstance(first)));
+
+    OS.OsInfo other = new OS.OsInfo("Linux", "6.8", "amd64", "Debian GNU/Linux 12 (bookworm)");
+    Assert.assertThat(pool.intern(other), is(sameInstance(other)));
+    Assert.assertThat(pool.size(), is(equalTo(1)));
+  }
+
+  @Test
+  public void testConcurrentInterning() throws Exception {
+    final OsInfoPool pool = OsInfoPool.weak();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<OS.OsInfo>> results = new ArrayList<Future<OS.OsInfo>>();
+      for (int i = 0; i < 64; i++) {
+        results.add(executor.submit(new Callable<OS.OsInfo>() {
+          @Override
+          public OS.OsInfo call() {
+            return pool.get("Linux", "6.8", "amd64", "Rocky Linux 9.4 (Blue Onyx)");
+          }
+        }));
+      }
+      OS.OsInfo canonical = results.get(0).get();
+      for (Future<OS.OsInfo> result : results) {
+        Assert.assertThat(result.get(), is(sameInstance(canonical)));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testDetectionResultsAreCanonical() throws IOException {
+    Path root = folder.getRoot().toPath();
+    Files.createDirectories(root.resolve("etc"));
+    Files.write(root.resolve("etc/os-release"), "NAME=\"Fedora Linux\"\nVERSION_ID=40\n".getBytes(StandardCharsets.UTF_8));
+
+    OS.OsInfo osInfo = OS.detect(root);
+    Assert.assertThat(OS.detect(root), is(sameInstance(osInfo)));
+    Assert.assertThat(OS.OsInfo.of(osInfo.getName(), osInfo.getVersion(), osInfo.getArch(), "Fedora Linux 40"), is(sameInstance(osInfo)));
+  }
+}
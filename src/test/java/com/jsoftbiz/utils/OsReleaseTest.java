@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class OsReleaseTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testAllFields() {
+    OsRelease osRelease = OsRelease.parse("NAME=\"Red Hat Enterprise Linux\"\n" +
+                                          "VERSION=\"9.3 (Plow)\"\n" +
+                                          "ID=\"rhel\"\n" +
+                                          "ID_LIKE=\"fedora\"\n" +
+                                          "VERSION_ID=\"9.3\"\n" +
+                                          "PLATFORM_ID=\"platform:el9\"\n" +
+                                          "PRETTY_NAME=\"Red Hat Enterprise Linux 9.3 (Plow)\"\n" +
+                                          "# comment\n" +
+                                          "REDHAT_SUPPORT_PRODUCT=\"Red Hat Enterprise Linux\"\n");
+    Assert.assertThat(osRelease.getName(), is(equalTo("Red Hat Enterprise Linux")));
+    Assert.assertThat(osRelease.getVersion(), is(equalTo("9.3 (Plow)")));
+    Assert.assertThat(osRelease.getId(), is(equalTo("rhel")));
+    Assert.assertThat(osRelease.getIdLike(), is(equalTo(Arrays.asList("fedora"))));
+    Assert.assertThat(osRelease.getVersionId(), is(equalTo("9.3")));
+    Assert.assertThat(osRelease.getPrettyName(), is(equalTo("Red Hat Enterprise Linux 9.3 (Plow)")));
+    Assert.assertThat(osRelease.get(OsRelease.PLATFORM_ID), is(equalTo("platform:el9")));
+    Assert.assertThat(osRelease.get("REDHAT_SUPPORT_PRODUCT"), is(equalTo("Red Hat Enterprise Linux")));
+    Assert.assertThat(osRelease.get(OsRelease.VARIANT_ID), is(equalTo(null)));
+    Assert.assertThat(osRelease.getKeys().size(), is(equalTo(8)));
+
+    Assert.assertThat(osRelease.getMajorVersion(), is(equalTo(9)));
+    Assert.assertThat(osRelease.getParsedVersion().getMinor(), is(equalTo(3)));
+    Assert.assertThat(osRelease.isLike("fedora"), is(equalTo(true)));
+    Assert.assertThat(osRelease.isLike("rhel"), is(equalTo(true)));
+    Assert.assertThat(osRelease.isLike("debian"), is(equalTo(false)));
+  }
+
+  @Test
+  public void testKeysAreInterned() {
+    OsRelease osRelease = OsRelease.parse(new StringBuilder("ID=debian\nCUSTOM_KEY=value\n"));
+    Assert.assertThat(osRelease.getKeys().get(0) == OsRelease.ID, is(equalTo(true)));
+    Assert.assertThat(osRelease.getKeys().get(1) == "CUSTOM_KEY", is(equalTo(true)));
+  }
+
+  @Test
+  public void testDefaultsAndDuplicates() {
+    OsRelease osRelease = OsRelease.parse("VERSION_ID=rolling\nID=arch\nID=archarm\n");
+    Assert.assertThat(osRelease.getName(), is(equalTo("Linux")));
+    Assert.assertThat(osRelease.getPrettyName(), is(equalTo("Linux")));
+    Assert.assertThat(osRelease.getId(), is(equalTo("archarm")));
+    Assert.assertThat(osRelease.getIdLike().isEmpty(), is(equalTo(true)));
+    Assert.assertThat(osRelease.getParsedVersion(), is(equalTo(null)));
+    Assert.assertThat(osRelease.getMajorVersion(), is(equalTo(-1)));
+
+    Assert.assertThat(OsRelease.parse("").getId(), is(equalTo("linux")));
+  }
+
+  @Test
+  public void testIdLikeList() {
+    OsRelease osRelease = OsRelease.parse("ID=linuxmint\nID_LIKE=\"ubuntu debian\"\nVERSION_ID=\"21.3\"\n");
+    Assert.assertThat(osRelease.getIdLike(), is(equalTo(Arrays.asList("ubuntu", "debian"))));
+    Assert.assertThat(osRelease.isLike("debian"), is(equalTo(true)));
+    Assert.assertThat(osRelease.isId("debian"), is(equalTo(false)));
+  }
+
+  @Test
+  public void testVersionComparison() {
+    Assert.assertThat(OsRelease.Version.parse("9.10").compareTo(OsRelease.Version.parse("9.9")), is(equalTo(1)));
+    Assert.assertThat(OsRelease.Version.parse("22.04").compareTo(OsRelease.Version.parse("24.04")), is(equalTo(-1)));
+    Assert.assertThat(OsRelease.Version.parse("9").compareTo(OsRelease.Version.parse("9.0")), is(equalTo(0)));
+    Assert.assertThat(OsRelease.Version.parse("9"), is(equalTo(OsRelease.Version.parse("9.0"))));
+    Assert.assertThat(OsRelease.Version.parse("9").hashCode(), is(equalTo(OsRelease.Version.parse("9.0").hashCode())));
+
+    OsRelease.Version version = OsRelease.Version.parse("7.9.2009");
+    Assert.assertThat(version.size(), is(equalTo(3)));
+    Assert.assertThat(version.get(2), is(equalTo(2009)));
+    Assert.assertThat(version.isAtLeast(7, 9), is(equalTo(true)));
+    Assert.assertThat(version.isAtLeast(8, 0), is(equalTo(false)));
+
+    Assert.assertThat(OsRelease.Version.parse("40-beta").getMajor(), is(equalTo(40)));
+    Assert.assertThat(OsRelease.Version.parse("3.").size(), is(equalTo(1)));
+    Assert.assertThat(OsRelease.Version.parse("n/a"), is(equalTo(null)));
+  }
+
+  @Test
+  public void testVersionOverflow() {
+    Assert.assertThat(OsRelease.Version.parse("2147483647.1").getMajor(), is(equalTo(Integer.MAX_VALUE)));
+    Assert.assertThat(OsRelease.Version.parse("2147483648"), is(equalTo(null)));
+    Assert.assertThat(OsRelease.Version.parse("9.99999999999999999999"), is(equalTo(null)));
+
+    OsRelease osRelease = OsRelease.parse("ID=fedora\nVERSION_ID=99999999999\n");
+    Assert.assertThat(osRelease.getVersionId(), is(equalTo("99999999999")));
+    Assert.assertThat(osRelease.getParsedVersion(), is(equalTo(null)));
+    Assert.assertThat(osRelease.getMajorVersion(), is(equalTo(-1)));
+  }
+
+  @Test
+  public void testReadFromRoot() throws IOException {
+    Path root = folder.getRoot().toPath();
+    Assert.assertThat(OsRelease.read(root), is(equalTo(null)));
+
+    Files.createDirectories(root.resolve("usr/lib"));
+    Files.write(root.resolve("usr/lib/os-release"), "ID=fedora\nVERSION_ID=40\n".getBytes(StandardCharsets.UTF_8));
+    Assert.assertThat(OsRelease.read(root).getMajorVersion(), is(equalTo(40)));
+
+    Files.createDirectories(root.resolve("etc"));
+    Files.write(root.resolve("etc/os-release"), "ID=fedora\nVERSION_ID=41\n".getBytes(StandardCharsets.UTF_8));
+    Assert.assertThat(OsRelease.read(root).getMajorVersion(), is(equalTo(41)));
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class PlatformWatcherTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final BlockingQueue<OS.OsInfo> refreshed = new LinkedBlockingQueue<OS.OsInfo>();
+
+  @Test
+  public void testSourceFileChange() throws Exception {
+    Path root = root();
+    write(root.resolve("etc/os-release"), "NAME=\"Fedora Linux\"\nVERSION_ID=40\n");
+
+    PlatformWatcher watcher = start(root);
+    try {
+      Assert.assertThat(watcher.getOsInfo().getPlatformName(), is(equalTo("Fedora Linux 40")));
+      write(root.resolve("etc/os-release"), "NAME=\"Fedora Linux\"\nVERSION_ID=41\n");
+      Assert.assertThat(next().getPlatformName(), is(equalTo("Fedora Linux 41")));
+      Assert.assertThat(watcher.getOsInfo().getPlatformName(), is(equalTo("Fedora Linux 41")));
+    } finally {
+      watcher.close();
+    }
+  }
+
+  @Test
+  public void testHigherPriorityFileAppears() throws Exception {
+    Path root = root();
+    write(root.resolve("etc/os-release"), "NAME=\"Ubuntu\"\nVERSION_ID=\"22.04\"\n");
+
+    PlatformWatcher watcher = start(root);
+    try {
+      write(root.resolve("etc/lsb-release"), "DISTRIB_DESCRIPTION=\"Ubuntu 24.04 LTS\"\nDISTRIB_CODENAME=noble\n");
+      Assert.assertThat(next().getPlatformName(), is(equalTo("Ubuntu 24.04 LTS (noble)")));
+    } finally {
+      watcher.close();
+    }
+  }
+
+  @Test
+  public void testSymbolicLinkTargetChange() throws Exception {
+    Path root = root();
+    Files.createDirectories(root.resolve("usr/lib"));
+    write(root.resolve("usr/lib/os-release"), "NAME=\"Debian GNU/Linux\"\nVERSION_ID=\"12\"\n");
+    Files.createSymbolicLink(root.resolve("etc/os-release"), Paths.get("../usr/lib/os-release"));
+
+    PlatformWatcher watcher = start(root);
+    try {
+      Assert.assertThat(watcher.getOsInfo().getPlatformName(), is(equalTo("Debian GNU/Linux 12")));
+      write(root.resolve("usr/lib/os-release"), "NAME=\"Debian GNU/Linux\"\nVERSION_ID=\"13\"\n");
+      Assert.assertThat(next().getPlatformName(), is(equalTo("Debian GNU/Linux 13")));
+    } finally {
+      watcher.close();
+    }
+  }
+
+  @Test
+  public void testFailingConsumerDoesNotStopTheWatcher() throws Exception {
+    Path root = root();
+    write(root.resolve("etc/os-release"), "NAME=\"Fedora Linux\"\nVERSION_ID=40\n");
+
+    final BlockingQueue<Throwable> reported = new LinkedBlockingQueue<Throwable>();
+    Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+    Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+      @Override
+      public void uncaughtException(final Thread thread, final Throwable e) {
+        reported.add(e);
+      }
+    });
+    PlatformWatcher watcher = new PlatformWatcher(root, "Linux", "6.8", "amd64", false, false, new BiConsumer<OS.OsInfo, DetectionTrace>() {
+      @Override
+      public void accept(final OS.OsInfo osInfo, final DetectionTrace trace) {
+        refreshed.add(osInfo);
+        if (osInfo.getPlatformName().endsWith("41")) {
+          throw new IllegalStateException("failing consumer");
+        }
+      }
+    });
+    try {
+      write(root.resolve("etc/os-release"), "NAME=\"Fedora Linux\"\nVERSION_ID=41\n");
+      Assert.assertThat(next().getPlatformName(), is(equalTo("Fedora Linux 41")));
+      Throwable failure = reported.poll(30, TimeUnit.SECONDS);
+      Assert.assertThat(failure != null ? failure.getMessage() : null, is(equalTo("failing consumer")));
+
+      write(root.resolve("etc/os-release"), "NAME=\"Fedora Linux\"\nVERSION_ID=42\n");
+      Assert.assertThat(next().getPlatformName(), is(equalTo("Fedora Linux 42")));
+    } finally {
+      watcher.close();
+      Thread.setDefaultUncaughtExceptionHandler(handler);
+    }
+  }
+
+  @Test
+  public void testTracedDetections() throws Exception {
+    Path root = root();
+    write(root.resolve("etc/os-release"), "NAME=\"Fedora Linux\"\nVERSION_ID=40\n");
+
+    final BlockingQueue<DetectionTrace> traces = new LinkedBlockingQueue<DetectionTrace>();
+    PlatformWatcher watcher = new PlatformWatcher(root, "Linux", "6.8", "amd64", false, true, new BiConsumer<OS.OsInfo, DetectionTrace>() {
+      @Override
+      public void accept(final OS.OsInfo osInfo, final DetectionTrace trace) {
+        traces.add(trace);
+      }
+    });
+    try {
+      DetectionTrace initial = watcher.getTrace();
+      Assert.assertThat(initial.getPlatformName(), is(equalTo("Fedora Linux 40")));
+      Assert.assertThat(initial.getDetectorId(), is(equalTo("os-release")));
+
+      write(root.resolve("etc/lsb-release"), "DISTRIB_DESCRIPTION=\"Fedora\"\nDISTRIB_CODENAME=f41\n");
+      DetectionTrace refreshed = traces.poll(30, TimeUnit.SECONDS);
+      Assert.assertThat(refreshed.isCompleted(), is(equalTo(true)));
+      Assert.assertThat(refreshed.getPlatformName(), is(equalTo("Fedora (f41)")));
+      Assert.assertThat(refreshed.getDetectorId(), is(equalTo("lsb-release")));
+      Assert.assertThat(watcher.getTrace(), is(sameInstance(refreshed)));
+    } finally {
+      watcher.close();
+    }
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    PlatformWatcher watcher = start(root());
+    watcher.close();
+    Assert.assertThat(watcher.isClosed(), is(equalTo(true)));
+  }
+
+  private PlatformWatcher start(final Path root) throws IOException {
+    return new PlatformWatcher(root, "Linux", "6.8", "amd64", false, false, new BiConsumer<OS.OsInfo, DetectionTrace>() {
+      @Override
+      public void accept(final OS.OsInfo osInfo, final DetectionTrace trace) {
+        refreshed.add(osInfo);
+      }
+    });
+  }
+
+  private OS.OsInfo next() throws InterruptedException {
+    OS.OsInfo osInfo = refreshed.poll(30, TimeUnit.SECONDS);
+    Assert.assertThat("no refresh", osInfo != null, is(equalTo(true)));
+    return osInfo;
+  }
+
+  private Path root() throws IOException {
+    Path root = folder.getRoot().toPath();
+    Files.createDirectories(root.resolve("etc"));
+    return root;
+  }
+
+  private static void write(final Path file, final String content) throws IOException {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class ReleaseFileReaderTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testReadsUtf8Content() throws IOException {
+    Path file = write("NAME=\"Linux Mint\"\nPRETTY_NAME=\"Débian Größe\"\n");
+    ReleaseFileReader reader = new ReleaseFileReader();
+    Assert.assertThat(ReleaseFiles.parsePlatformName(reader.read(file)), is(equalTo("Débian Größe")));
+  }
+
+  @Test
+  public void testContentIsTruncatedToMaxSize() throws IOException {
+    StringBuilder content = new StringBuilder("Fedora release 40\n");
+    for (int i = 0; i < 10000; i++) {
+      content.append("padding line ").append(i).append('\n');
+    }
+    Path file = write(content.toString());
+    ReleaseFileReader reader = new ReleaseFileReader(8 * 1024);
+    CharSequence read = reader.read(file);
+    Assert.assertThat(read.length(), is(equalTo(8 * 1024)));
+    Assert.assertThat(reader.bytesRead(), is(equalTo(8 * 1024)));
+    Assert.assertThat(ReleaseFiles.parsePlatformName(read), is(equalTo("Fedora release 40")));
+  }
+
+  @Test
+  public void testReaderIsReusedAcrossFiles() throws IOException {
+    ReleaseFileReader reader = new ReleaseFileReader();
+    Assert.assertThat(ReleaseFiles.parseLsbPlatformName(reader.read(write("DISTRIB_CODENAME=karmic\r\nDISTRIB_DESCRIPTION=\"Ubuntu 9.10\"\r\n"))),
+        is(equalTo("Ubuntu 9.10 (karmic)")));
+    Assert.assertThat(ReleaseFiles.parsePlatformName(reader.read(write("Welcome"))), is(equalTo("Welcome")));
+  }
+
+  @Test(expected = NoSuchFileException.class)
+  public void testMissingFileThrows() throws IOException {
+    new ReleaseFileReader().read(folder.getRoot().toPath().resolve("missing-release"));
+  }
+
+  private Path write(String content) throws IOException {
+    Path file = folder.newFile().toPath();
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014-2026 Aurélien Broszniowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jsoftbiz.utils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static com.jsoftbiz.utils.Fixtures.write;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Aurelien Broszniowski
+ */
+
+public class TuningInfoTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testLimitsAndSysctls() throws IOException {
+    Path root = folder.getRoot().toPath();
+    write(root, "proc/self/limits", "Limit                     Soft Limit           Hard Limit           Units     \n"
+                                    + "Max cpu time              unlimited            unlimited            seconds   \n"
+                                    + "Max open files            1024                 524288               files     \n"
+                                    + "Max locked memory         unlimited            unlimited            bytes     \n"
+                                    + "Max address space         unlimited            unlimited            bytes     \n");
+    write(root, "proc/sys/vm/swappiness", "60\n");
+    write(root, "proc/sys/vm/max_map_count", "65530\n");
+    write(root, "proc/sys/net/core/somaxconn", "4096\n");
+    write(root, "proc/sys/fs/file-max", "9223372036854775807\n");
+    write(root, "proc/sys/kernel/pid_max", "4194304\n");
+
+    TuningInfo info = TuningInfo.read(root);
+    Assert.assertThat(info.getOpenFilesLimit(), is(equalTo(1024L)));
+    Assert.assertThat(info.getOpenFilesHardLimit(), is(equalTo(524288L)));
+    Assert.assertThat(info.getLockedMemoryLimit(), is(equalTo(TuningInfo.UNLIMITED)));
+    Assert.assertThat(info.getLockedMemoryHardLimit(), is(equalTo(TuningInfo.UNLIMITED)));
+    Assert.assertThat(info.getSwappiness(), is(equalTo(60L)));
+    Assert.assertThat(info.getMaxMapCount(), is(equalTo(65530L)));
+    Assert.assertThat(info.getSomaxconn(), is(equalTo(4096L)));
+    Assert.assertThat(info.getFileMax(), is(equalTo(Long.MAX_VALUE)));
+    Assert.assertThat(info.get(TuningInfo.Setting.PID_MAX), is(equalTo(4194304L)));
+
+    Assert.assertThat(info.check(), is(equalTo(Arrays.asList(TuningInfo.Setting.OPEN_FILES, TuningInfo.Setting.SWAPPINESS,
+        TuningInfo.Setting.MAX_MAP_COUNT))));
+  }
+
+  @Test
+  public void testConfiguredThresholds() throws IOException {
+    Path root = folder.getRoot().toPath();
+    write(root, "proc/self/limits", "Max open files            1024                 524288               files     \n"
+                                    + "Max locked memory         65536                65536                bytes     \n");
+    write(root, "proc/sys/vm/swappiness", "1\n");
+    write(root, "proc/sys/vm/max_map_count", "65530\n");
+
+    Map<TuningInfo.Setting, Long> thresholds = new EnumMap<TuningInfo.Setting, Long>(TuningInfo.Setting.class);
+    thresholds.put(TuningInfo.Setting.OPEN_FILES, 1024L);
+    thresholds.put(TuningInfo.Setting.LOCKED_MEMORY, 64L * 1024 * 1024);
+    thresholds.put(TuningInfo.Setting.MAX_MAP_COUNT, TuningInfo.UNKNOWN);
+    Assert.assertThat(TuningInfo.read(root).check(thresholds), is(equalTo(Collections.singletonList(TuningInfo.Setting.LOCKED_MEMORY))));
+  }
+
+  @Test
+  public void testUnknownOutsideOfLinux() {
+    TuningInfo info = TuningInfo.read(folder.getRoot().toPath());
+    Assert.assertThat(info.getOpenFilesLimit(), is(equalTo(TuningInfo.UNKNOWN)));
+    Assert.assertThat(info.getMaxMapCount(), is(equalTo(TuningInfo.UNKNOWN)));
+    Assert.assertThat(info.check().isEmpty(), is(equalTo(true)));
+  }
+}